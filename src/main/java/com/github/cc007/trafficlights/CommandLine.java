@@ -7,10 +7,10 @@
 package com.github.cc007.trafficlights;
 
 import com.github.cc007.trafficlights.algo.dp.DPFactory;
-import com.github.cc007.trafficlights.algo.tlc.TLCFactory;
-import com.github.cc007.trafficlights.algo.tlc.TLController;
-import com.github.cc007.trafficlights.sim.SimController;
+import com.github.cc007.trafficlights.sim.HeadlessSimulation;
+import com.github.cc007.trafficlights.sim.ParallelSeriesRunner;
 import com.github.cc007.trafficlights.sim.SimModel;
+import com.github.cc007.trafficlights.sim.SimOptions;
 import java.util.HashMap;
 
 /**
@@ -57,9 +57,17 @@ public class CommandLine {
         System.err.println("\tdriving_policy=xml_name XML name of the driving policy.");
         System.err.println("\tseries=value Number of series to be run.");
         System.err.println("\tseries_steps=value Number of cycles in one serie.");
+        System.err.println("\tthreads=value Number of series to be run at the same time.");
+        System.err.println("\tmove_threads=value Number of threads moving the roadusers of one simulation.");
         System.err.println();
         System.err.println("On|off values may be also set to true|false.");
         System.err.println("Unrecognized parameters are passed to the traffic light controller.");
+        System.err.println("The learning traffic light controllers also recognize:");
+        System.err.println("\tsparse_tables=on|off Only allocate the parts of the learning tables that are used.");
+        System.err.println("\ttable_budget=megabytes Forget the least recently learned situations when the tables grow larger.");
+        System.err.println("\ttable_file=prefix Keep the learning tables in files with this prefix, and go on with the tables found there (not for tlc-tc2opt).");
+        System.err.println("Most traffic light controllers also recognize:");
+        System.err.println("\tdecision_threads=n Decide the nodes on n threads, with a random number generator per node.");
     }
 
     /**
@@ -70,66 +78,66 @@ public class CommandLine {
     }
 
     public static void main(String[] args) {
-        SimModel simModel = new SimModel();
-        SimController simController = new SimController(simModel, false);
+        // The simulation runs without any windows, so no display is needed.
+        System.setProperty("java.awt.headless", "true");
+
+        HeadlessSimulation simulation = new HeadlessSimulation();
+        SimModel simModel = simulation.getSimModel();
+        SimOptions options = simulation.getOptions();
 
         HashMap<String, String> arguments = processArguments(args);
 
         String infra = arguments.remove("infra");
-        if (infra != null) {
-            simController.tryLoad(infra);
-        } else {
+        if (infra == null) {
             printHelp();
             System.exit(1);
         }
 
         try {
+            simulation.load(infra);
+
 
             String tlcName = arguments.remove("tlc");
-            TLController tlc = null;
+            HashMap<String, String> tlcArgs = new HashMap<>(arguments);
             if (tlcName != null) {
-                TLCFactory tlcFactory = new TLCFactory(simModel.getInfrastructure());
-
-                tlc = tlcFactory.getInstanceForLoad(TLCFactory.getNumberByXMLTagName(tlcName));
-
-                tlc.loadArgs(arguments);
-
-                simModel.setTLController(tlc);
+                simulation.setTLC(tlcName, arguments);
             }
 
             String hec = arguments.remove("hec");
             if (hec != null) {
-                simController.setHecAddon(isOn(hec));
+                simulation.setHecAddon(isOn(hec));
             }
 
             String accidents = arguments.remove("accidents");
             if (accidents != null) {
-                simController.setAccidents(isOn(accidents));
+                options.setAccidents(isOn(accidents));
             }
 
             String removeStuckCars = arguments.remove("remove_stuck_cars");
             if (removeStuckCars != null) {
-                simController.setRemoveStuckCars(isOn(removeStuckCars), true);
+                options.setRemoveStuckCars(isOn(removeStuckCars));
             }
 
             String maxWaitingTime = arguments.remove("max_waiting_time");
             if (maxWaitingTime != null) {
-                simController.setMaxWaitingTime(Integer.parseInt(maxWaitingTime));
+                options.setMaxWaitingTime(Integer.parseInt(maxWaitingTime));
             }
 
             String penalty = arguments.remove("penalty");
             if (penalty != null) {
-                simController.setPenalty(Integer.parseInt(penalty));
+                options.setPenalty(Integer.parseInt(penalty));
             }
 
             String rerouting = arguments.remove("rerouting");
             if (rerouting != null) {
-                simController.setRerouting(isOn(rerouting));
+                options.setRerouting(isOn(rerouting));
             }
 
             String drivingPolicy = arguments.remove("driving_policy");
+            int dp = DPFactory.SHORTEST_PATH;
             if (drivingPolicy != null) {
-                simController.setDrivingPolicy(DPFactory.getNumberByXMLTagName(drivingPolicy));
+                dp = DPFactory.getNumberByXMLTagName(drivingPolicy);
+                simulation.setDrivingPolicy(dp);
             }
 
             String series = arguments.remove("series");
@@ -142,12 +150,28 @@ public class CommandLine {
                 simModel.setSeriesSteps(Integer.parseInt(seriesSteps));
             }
 
-            simController.setQuitAfterSeries(true);
+            String moveThreads = arguments.remove("move_threads");
+            if (moveThreads != null) {
+                options.setMovementThreads(Integer.parseInt(moveThreads));
+            }
+
+            String threads = arguments.remove("threads");
+
             for (String param : arguments.keySet()) {
                 System.err.println("Unknown parameter '" + param + "'");
             }
 
-            simController.runSeries();
+            if (threads != null && Integer.parseInt(threads) > 1) {
+                ParallelSeriesRunner runner = new ParallelSeriesRunner(infra);
+                runner.setTLC(tlcName, tlcArgs);
+                runner.setDrivingPolicy(dp);
+                runner.setOptions(options);
+                runner.setNumSeries(simModel.getNumSeries());
+                runner.setNumThreads(Integer.parseInt(threads));
+                runner.run();
+            } else {
+                simulation.runSeries();
+            }
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -497,9 +497,9 @@ public abstract class Controller extends Frame implements XMLSerializable {
      */
     public void newInfrastructure(Infrastructure infra) {
         //infra.reset();
-        CustomFactory.reset();
         viewScroller.center();
         model.setInfrastructure(infra);
+        infra.getContext().getCustomFactory().reset();
         view.setInfrastructure(infra);
         currentSelection.setSelectionStarter(infra);
         currentSelection.deselectAll();
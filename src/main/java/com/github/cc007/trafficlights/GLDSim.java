@@ -26,7 +26,6 @@ package com.github.cc007.trafficlights;
 
 public class GLDSim
 {
-        public static int seriesSeedIndex = 0;
         public final static long [] seriesSeed = {
                                            0, 1000, 8000, 6000, 7000, 4000, 9000, 10000, 11000, 12000,13000,14000
                                            // 0 wordt gebruikt om het programma op te starten,
@@ -63,6 +63,11 @@ public class Model extends Observable implements XMLSerializable
 	{	infra = new Infrastructure();
 		SAVE_STATS=myElement.getAttribute("save-stats").getBoolValue();
 		loader.load(this,infra);
+		try {
+			infra.loadRoutes(loader.getFile() == null ? null : RouteCache.getFile(loader.getFile()));
+		} catch (InfraException e) {
+			throw new XMLInvalidInputException("Cannot calculate the shortest paths : " + e);
+		}
 	}
   
     @Override
@@ -74,7 +79,8 @@ public class Model extends Observable implements XMLSerializable
 	
     @Override
 	public void saveChilds (XMLSaver saver) throws XMLTreeException,IOException,XMLCannotSaveException
-	{	saver.saveObject(infra);
+	{	infra.setRouteCache(saver.getFile() == null ? null : RouteCache.getFile(saver.getFile()));
+		saver.saveObject(infra);
 	}
 	
     @Override
@@ -0,0 +1,443 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.dp;
+
+import com.github.cc007.trafficlights.algo.edit.DistanceHeap;
+import com.github.cc007.trafficlights.algo.tlc.TLController;
+import com.github.cc007.trafficlights.infra.DriveLane;
+import com.github.cc007.trafficlights.infra.InfraException;
+import com.github.cc007.trafficlights.infra.Infrastructure;
+import com.github.cc007.trafficlights.infra.Roaduser;
+import com.github.cc007.trafficlights.infra.SpecialNode;
+import com.github.cc007.trafficlights.sim.SimModel;
+import com.github.cc007.trafficlights.utils.Typeutils;
+import com.github.cc007.trafficlights.xml.XMLAttribute;
+import com.github.cc007.trafficlights.xml.XMLCannotSaveException;
+import com.github.cc007.trafficlights.xml.XMLElement;
+import com.github.cc007.trafficlights.xml.XMLInvalidInputException;
+import com.github.cc007.trafficlights.xml.XMLLoader;
+import com.github.cc007.trafficlights.xml.XMLTreeException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ *
+ * This extension of ShortestPathDP sends roadusers along the route that is the
+ * shortest when every lane is made longer by the blocks taken on it. The
+ * route tables are recalculated every few cycles on a background thread from
+ * a snapshot of the lanes, while the simulation goes on. The new tables are
+ * taken into use at the next update cycle, and are never changed after that,
+ * so every decision is a lookup in the table. Because the tables are always
+ * taken into use at the same cycle, a run with the same seed gives the same
+ * results; the simulation only waits for a calculation that takes longer than
+ * the whole update interval. Until the first tables are ready the normal
+ * shortest paths are used.
+ *
+ * @author Group Algorithms
+ * @version 1.0
+ */
+public class CongestionPathDP extends ShortestPathDP {
+
+    public static final String shortXMLName = "dp-cgp";
+    /**
+     * The number of cycles between two updates of the route tables
+     */
+    public static final int DEFAULT_UPDATE_INTERVAL = 50;
+    /**
+     * How many blocks of length a block taken by a roaduser adds to a lane
+     */
+    public static final double DEFAULT_CONGESTION_WEIGHT = 1.0;
+    protected static final int int_MAX = Integer.MAX_VALUE;
+
+    protected int updateInterval = DEFAULT_UPDATE_INTERVAL;
+    protected double congestionWeight = DEFAULT_CONGESTION_WEIGHT;
+    /**
+     * The route tables in use, or null if there are none yet
+     */
+    protected volatile RouteTable table = null;
+    /**
+     * The route tables being recalculated, or null
+     */
+    protected Future<RouteTable> pending = null;
+    protected volatile int nextUpdate = 0;
+    /**
+     * The thread of this policy that recalculates the route tables, or null
+     * if it was not needed yet
+     */
+    protected ThreadPoolExecutor recomputer = null;
+
+    /**
+     * The constructor for a congestion aware driving policy.
+     *
+     * @param sim The model which is used
+     * @param _tlc The traffic light controller which is used
+     */
+    public CongestionPathDP(SimModel sim, TLController _tlc) {
+        super(sim, _tlc);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        synchronized (this) {
+            if (pending != null) {
+                pending.cancel(false);
+                pending = null;
+            }
+            if (recomputer != null) {
+                recomputer.shutdown();
+                recomputer = null;
+            }
+            table = null;
+            nextUpdate = 0;
+        }
+    }
+
+    /**
+     * Returns the number of cycles between two updates of the route tables
+     */
+    public int getUpdateInterval() {
+        return updateInterval;
+    }
+
+    /**
+     * Sets the number of cycles between two updates of the route tables
+     */
+    public void setUpdateInterval(int updateInterval) {
+        this.updateInterval = Math.max(1, updateInterval);
+    }
+
+    /**
+     * Returns how many blocks of length a block taken by a roaduser adds to a
+     * lane
+     */
+    public double getCongestionWeight() {
+        return congestionWeight;
+    }
+
+    /**
+     * Sets how many blocks of length a block taken by a roaduser adds to a
+     * lane
+     */
+    public void setCongestionWeight(double congestionWeight) {
+        this.congestionWeight = congestionWeight;
+    }
+
+    /**
+     * The lane to which a car continues his trip: the one with the shortest
+     * route to the car's destination in the current route tables. Of lanes
+     * with equally short routes one is chosen at random.
+     *
+     * @param r The road user being asked.
+     * @param allOutgoing All the possible outgoing lanes
+     * @param shortest All the lanes which are in a shortest path to the car's
+     * destination
+     * @return The chosen lane.
+     */
+    @Override
+    public DriveLane getDirectionLane(Roaduser r, DriveLane lane_now, DriveLane[] allOutgoing, DriveLane[] shortest) {
+        RouteTable routes = getRouteTable();
+        int[] costs = (routes == null) ? null : routes.getCosts(r.getType(), r.getDestNode().getId());
+        if (costs == null) {
+            return super.getDirectionLane(r, lane_now, allOutgoing, shortest);
+        }
+
+        DriveLane chosen = null;
+        int best = int_MAX;
+        int ties = 0;
+        for (DriveLane lane : allOutgoing) {
+            Integer index = routes.laneIndex.get(lane);
+            if (index == null || costs[index] == int_MAX || costs[index] > best) {
+                continue;
+            }
+            if (costs[index] < best) {
+                best = costs[index];
+                ties = 0;
+            }
+            ties++;
+            if (ties == 1 || random.nextInt(ties) == 0) {
+                chosen = lane;
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * Returns the route tables in use, first starting or taking in a new
+     * calculation when an update is due. Returns null when there are no
+     * tables for the current infrastructure yet.
+     */
+    protected RouteTable getRouteTable() {
+        int cycle = model.getCurCycle();
+        if (cycle >= nextUpdate) {
+            synchronized (this) {
+                if (cycle >= nextUpdate) {
+                    update(cycle);
+                }
+            }
+        }
+        RouteTable routes = table;
+        if (routes == null || routes.infra != model.getInfrastructure()) {
+            return null;
+        }
+        return routes;
+    }
+
+    /**
+     * Takes the route tables calculated since the last update into use and
+     * starts a new calculation from the lanes as they are now
+     */
+    protected void update(int cycle) {
+        nextUpdate = cycle + updateInterval;
+        if (pending != null) {
+            try {
+                table = pending.get();
+            } catch (InterruptedException | ExecutionException e) {
+                Logger.getLogger(CongestionPathDP.class.getName()).log(Level.WARNING, "Could not recalculate the route tables", e);
+            }
+            pending = null;
+        }
+        try {
+            pending = getRecomputer().submit(new Recalculation(model.getInfrastructure(), congestionWeight));
+        } catch (InfraException e) {
+            Logger.getLogger(CongestionPathDP.class.getName()).log(Level.WARNING, "Could not look at the lanes", e);
+        }
+    }
+
+    /**
+     * Returns the thread that recalculates the route tables of this policy, it
+     * is started when it is first needed and stops after being idle for a
+     * while. Every policy has its own, so simulations that run at the same
+     * time do not wait for each other's calculations.
+     */
+    protected ThreadPoolExecutor getRecomputer() {
+        if (recomputer == null) {
+            recomputer = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Route recomputer");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            recomputer.allowCoreThreadTimeOut(true);
+        }
+        return recomputer;
+    }
+
+    /**
+     * The routes of one update: for every roaduser type and every exit, how
+     * long the route from the start of each lane to the exit is. Once made the
+     * tables are never changed.
+     */
+    protected static class RouteTable {
+
+        protected final Infrastructure infra;
+        /**
+         * The place of each lane in the cost arrays
+         */
+        protected final IdentityHashMap<DriveLane, Integer> laneIndex;
+        /**
+         * The costs, indexed by [type index][exit id][lane index], null for
+         * the types and exits that have no routes
+         */
+        protected final int[][][] costs;
+
+        protected RouteTable(Infrastructure infra, IdentityHashMap<DriveLane, Integer> laneIndex, int[][][] costs) {
+            this.infra = infra;
+            this.laneIndex = laneIndex;
+            this.costs = costs;
+        }
+
+        /**
+         * Returns the costs of the lanes to the given exit for the given
+         * roaduser type, or null if they are not known
+         */
+        protected int[] getCosts(int ruType, int exitId) {
+            int typeIndex = Integer.numberOfTrailingZeros(ruType);
+            if (Integer.bitCount(ruType) != 1 || typeIndex >= costs.length
+                    || exitId < 0 || exitId >= costs[typeIndex].length) {
+                return null;
+            }
+            return costs[typeIndex][exitId];
+        }
+    }
+
+    /**
+     * Calculates new route tables from a snapshot of the lanes. The snapshot
+     * is taken when it is made, on the thread of the simulation, so the
+     * calculation on the background thread does not look at the
+     * infrastructure at all.
+     */
+    protected static class Recalculation implements Callable<RouteTable> {
+
+        protected final Infrastructure infra;
+        protected final IdentityHashMap<DriveLane, Integer> laneIndex;
+        protected final int[] weights;
+        protected final boolean[] disabled;
+        protected final SpecialNode[] exits;
+        /**
+         * The indices of the lanes leading to each exit
+         */
+        protected final int[][] exitLanes;
+        /**
+         * The roaduser types that can reach each exit
+         */
+        protected final int[] exitTypes;
+        /**
+         * The indices of the lanes leading to each lane, indexed by [type
+         * index][lane index]
+         */
+        protected final int[][][] leadingTo;
+
+        protected Recalculation(Infrastructure infra, double congestionWeight) throws InfraException {
+            this.infra = infra;
+            ArrayList<?> allLanes = infra.getAllInboundLanes();
+            DriveLane[] lanes = allLanes.toArray(new DriveLane[allLanes.size()]);
+            laneIndex = new IdentityHashMap<>(lanes.length);
+            weights = new int[lanes.length];
+            disabled = new boolean[lanes.length];
+            for (int i = 0; i < lanes.length; i++) {
+                laneIndex.put(lanes[i], i);
+                weights[i] = lanes[i].getLength() + (int) Math.round(congestionWeight * lanes[i].getNumBlocksTaken());
+                disabled[i] = lanes[i].isDisabled();
+            }
+
+            exits = infra.getSpecialNodes();
+            exitLanes = new int[exits.length][];
+            exitTypes = new int[exits.length];
+            int allTypes = 0;
+            for (int e = 0; e < exits.length; e++) {
+                DriveLane[] inbound = exits[e].getInboundLanes();
+                exitLanes[e] = indicesOf(inbound);
+                for (DriveLane lane : inbound) {
+                    exitTypes[e] |= lane.getType();
+                }
+                allTypes |= exitTypes[e];
+            }
+
+            leadingTo = new int[32 - Integer.numberOfLeadingZeros(allTypes)][][];
+            for (int ruType : Typeutils.getTypes(allTypes)) {
+                int[][] leading = new int[lanes.length][];
+                for (int i = 0; i < lanes.length; i++) {
+                    leading[i] = indicesOf(lanes[i].getNodeComesFrom().getLanesLeadingTo(lanes[i], ruType));
+                }
+                leadingTo[Integer.numberOfTrailingZeros(ruType)] = leading;
+            }
+        }
+
+        /**
+         * Returns the indices of the given lanes, leaving out the ones which
+         * are not known
+         */
+        protected int[] indicesOf(DriveLane[] lanes) {
+            int[] indices = new int[lanes.length];
+            int num = 0;
+            for (DriveLane lane : lanes) {
+                Integer i = laneIndex.get(lane);
+                if (i != null) {
+                    indices[num++] = i;
+                }
+            }
+            return (num == indices.length) ? indices : Arrays.copyOf(indices, num);
+        }
+
+        @Override
+        public RouteTable call() {
+            int maxExitId = -1;
+            for (SpecialNode exit : exits) {
+                maxExitId = Math.max(maxExitId, exit.getId());
+            }
+            int[][][] costs = new int[leadingTo.length][maxExitId + 1][];
+            int[] d = new int[weights.length];
+            DistanceHeap heap = new DistanceHeap(d);
+            for (int e = 0; e < exits.length; e++) {
+                for (int ruType : Typeutils.getTypes(exitTypes[e])) {
+                    int typeIndex = Integer.numberOfTrailingZeros(ruType);
+                    costs[typeIndex][exits[e].getId()] = calcCosts(exitLanes[e], leadingTo[typeIndex], d, heap);
+                }
+            }
+            return new RouteTable(infra, laneIndex, costs);
+        }
+
+        /**
+         * Finds the cost from every lane to an exit for one roaduser type,
+         * going back from the exit along the lanes leading to the lanes
+         * already reached.
+         *
+         * @param start The lanes leading to the exit
+         * @param leading The lanes leading to each lane for the roaduser type
+         */
+        protected int[] calcCosts(int[] start, int[][] leading, int[] d, DistanceHeap heap) {
+            Arrays.fill(d, int_MAX);
+            heap.clear();
+            for (int i : start) {
+                if (!disabled[i]) {
+                    d[i] = weights[i];
+                    heap.decreased(i);
+                }
+            }
+            while (!heap.isEmpty()) {
+                int m = heap.poll();
+                for (int i : leading[m]) {
+                    if (disabled[i]) {
+                        continue;
+                    }
+                    int cost = d[m] + weights[i];
+                    if (cost < d[i]) {
+                        d[i] = cost;
+                        heap.decreased(i);
+                    }
+                }
+            }
+            return d.clone();
+        }
+    }
+
+    @Override
+    public void load(XMLElement myElement, XMLLoader loader) throws XMLTreeException, IOException, XMLInvalidInputException {
+        if (myElement.hasAttribute("update-interval")) {
+            setUpdateInterval(myElement.getAttribute("update-interval").getIntValue());
+        }
+        if (myElement.hasAttribute("congestion-weight")) {
+            setCongestionWeight(myElement.getAttribute("congestion-weight").getDoubleValue());
+        }
+    }
+
+    @Override
+    public XMLElement saveSelf() throws XMLCannotSaveException {
+        XMLElement result = new XMLElement(shortXMLName);
+        result.addAttribute(new XMLAttribute("update-interval", updateInterval));
+        result.addAttribute(new XMLAttribute("congestion-weight", congestionWeight));
+        return result;
+    }
+
+    @Override
+    public String getXMLName() {
+        return "model." + shortXMLName;
+    }
+}
@@ -34,7 +34,8 @@ public class DPFactory {
             AGGRESSIVE = 2,
             COLEARNING = 3,
             CHANCE_PATH = 4,
-            SMARTER_CHANCE_PATH = 5;
+            SMARTER_CHANCE_PATH = 5,
+            CONGESTION_PATH = 6;
 
     protected static final String[] dpDescs = {
         "Normal shortest path",
@@ -42,14 +43,18 @@ public class DPFactory {
         "Aggressive",
         "Colearning",
         "Chance path",
-        "Smarter Chance path"
+        "Smarter Chance path",
+        "Least congested path"
     };
 
     protected static final String[] xmlNames = {
         ShortestPathDP.shortXMLName,
         SmarterShortestPathDP.shortXMLName,
         AggressiveDP.shortXMLName,
-        ColearnPolicy.shortXMLName
+        ColearnPolicy.shortXMLName,
+        ChancePathDP.shortXMLName,
+        SmarterChancePathDP.shortXMLName,
+        CongestionPathDP.shortXMLName
     };
 
     /**
@@ -126,6 +131,8 @@ public class DPFactory {
                 return new ChancePathDP(model, tlc);
             case SMARTER_CHANCE_PATH:
                 return new SmarterChancePathDP(model, tlc);
+            case CONGESTION_PATH:
+                return new CongestionPathDP(model, tlc);
         }
         throw new ClassNotFoundException("The DPFactory can't make DP's of type " + algoId);
     }
@@ -16,12 +16,12 @@
 
 package com.github.cc007.trafficlights.algo.dp;
 
-import com.github.cc007.trafficlights.GLDSim;
 import com.github.cc007.trafficlights.algo.tlc.*;
 import com.github.cc007.trafficlights.infra.*;
 import com.github.cc007.trafficlights.sim.*;
 import com.github.cc007.trafficlights.xml.*;
 import java.io.IOException;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Random;
 
@@ -37,27 +37,65 @@ public abstract class DrivingPolicy implements XMLSerializable,TwoStageLoader
 {
 	protected SimModel model;
 	protected TLController tlc;
-        protected Random random = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);    //random number generator must be independent on other generators (to avoid magic influence) (DOAS 06)
+        protected Random random;    //random number generator must be independent on other generators (to avoid magic influence) (DOAS 06)
+        /** The directions chosen since the roadusers last moved, see getDirection */
+        protected final IdentityHashMap<Roaduser, Decision> decisions = new IdentityHashMap<>();
 
 	DrivingPolicy(SimModel m, TLController _tlc) {
 		model = m;
 		tlc = _tlc;
+		random = new Random(m.getContext().getSeed());
 	}
         
         /** Reset neccessary stuff (DOAS 06)
          */
         public void reset(){
-            random = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+            random = new Random(model.getContext().getSeed());
+            forgetDecisions();
+        }
+
+        /**
+         * Forgets the directions chosen so far. Called when all roadusers have
+         * moved, so every roaduser is asked again in the next cycle.
+         */
+        public void forgetDecisions(){
+            synchronized (decisions) {
+                decisions.clear();
+            }
         }
 
 	/**
-	 * The lane to which a car continues his trip.
+	 * The lane to which a car continues his trip. A car is only asked once
+	 * until all roadusers have moved: the traffic light controller and the
+	 * movement of the car get the same lane, and the random numbers are only
+	 * drawn once.
 	 * @param r The road user being asked.
-	 * @param allOutgoing All the possible outgoing lanes
-	 * @param shortest All the lanes which are in a shortest path to the car's destination
+	 * @param lane_now The lane the car is on
+	 * @param node_now The node the car is about to cross
 	 * @return The chosen lane.
 	 */
 	public DriveLane getDirection(Roaduser r, DriveLane lane_now, Node node_now) throws InfraException {
+                synchronized (decisions) {
+                    Decision decision = decisions.get(r);
+                    if (decision != null && decision.lane == lane_now && decision.node == node_now) {
+                        return decision.direction;
+                    }
+                }
+                DriveLane direction = decideDirection(r, lane_now, node_now);
+                synchronized (decisions) {
+                    decisions.put(r, new Decision(lane_now, node_now, direction));
+                }
+                return direction;
+        }
+
+	/**
+	 * Chooses the lane to which a car continues his trip.
+	 * @param r The road user being asked.
+	 * @param lane_now The lane the car is on
+	 * @param node_now The node the car is about to cross
+	 * @return The chosen lane.
+	 */
+	protected DriveLane decideDirection(Roaduser r, DriveLane lane_now, Node node_now) throws InfraException {
                 DriveLane[] lanesleadingfrom = node_now.getLanesLeadingFrom(
                         lane_now, r.getType());
                 DriveLane[] shortestpaths = node_now.getShortestPaths(r.
@@ -69,7 +107,7 @@ public abstract class DrivingPolicy implements XMLSerializable,TwoStageLoader
                 //Because of the accidents the shortest path might not be among the possible directions (DOAS 06)
                 //But if rerouting is off, we like the "null way"
                 //if(lanesleadingfrom.length == 0) System.out.println("Uh: " + lane_now.getName() + " " + node_now.getName());
-                if(result == null && this.model.getSimController().getRerouting()){
+                if(result == null && this.model.getOptions().getRerouting()){
                     if(lanesleadingfrom.length == 0){
                         return null;    //f. e. no line leads from the EdgeNode
                     } else {
@@ -113,6 +151,22 @@ public abstract class DrivingPolicy implements XMLSerializable,TwoStageLoader
 
 	public abstract DriveLane getDirectionLane(Roaduser r, DriveLane lane_now, DriveLane[] allOutgoing, DriveLane[] shortest);
 
+        /**
+         * A direction chosen for a roaduser, and where it was chosen
+         */
+        protected static class Decision {
+
+            protected final DriveLane lane;
+            protected final Node node;
+            protected final DriveLane direction;
+
+            protected Decision(DriveLane lane, Node node, DriveLane direction) {
+                this.lane = lane;
+                this.node = node;
+                this.direction = direction;
+            }
+        }
+
 	// Generic XMLSerializable implementation
 	/**Empty for Drivingpolicy*/
     @Override
@@ -0,0 +1,161 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.edit;
+
+import java.util.Arrays;
+
+/**
+ *
+ * An indexed binary min-heap of node ids, ordered by the distances in the
+ * given array. Of two nodes at the same distance the one with the highest id
+ * comes first, the same node the linear search of the ShortestPathCalculator
+ * used to find. When the distance of a node in the heap decreases the heap
+ * has to be told with decreased.
+ *
+ * @author Algo-group
+ */
+public class DistanceHeap {
+
+    /**
+     * The distance of every node, indexed by node id
+     */
+    protected int[] d;
+    /**
+     * The node ids in heap order
+     */
+    protected int[] heap;
+    /**
+     * index[id] is the place of the node in the heap, or -1 if it is not in
+     * the heap
+     */
+    protected int[] index;
+    protected int size = 0;
+
+    /**
+     * Creates an empty heap for the nodes 0 up to d.length
+     *
+     * @param d The distances, the heap keeps using this array
+     */
+    public DistanceHeap(int[] d) {
+        this.d = d;
+        heap = new int[d.length];
+        index = new int[d.length];
+        Arrays.fill(index, -1);
+    }
+
+    /**
+     * Removes all nodes from the heap
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            index[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return index[id] >= 0;
+    }
+
+    /**
+     * Adds a node, which must not be in the heap yet
+     */
+    public void add(int id) {
+        heap[size] = id;
+        index[id] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Tells the heap that the distance of a node decreased. The node is added
+     * when it is not in the heap yet.
+     */
+    public void decreased(int id) {
+        if (index[id] < 0) {
+            add(id);
+        } else {
+            siftUp(index[id]);
+        }
+    }
+
+    /**
+     * Removes and returns the nearest node, or -1 if the heap is empty
+     */
+    public int poll() {
+        if (size == 0) {
+            return -1;
+        }
+        int first = heap[0];
+        index[first] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            index[heap[0]] = 0;
+            siftDown(0);
+        }
+        return first;
+    }
+
+    /**
+     * Returns true if node a has to be taken before node b
+     */
+    protected boolean before(int a, int b) {
+        return d[a] < d[b] || (d[a] == d[b] && a > b);
+    }
+
+    protected void siftUp(int i) {
+        int id = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(id, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            index[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        index[id] = i;
+    }
+
+    protected void siftDown(int i) {
+        int id = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], id)) {
+                break;
+            }
+            heap[i] = heap[child];
+            index[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = id;
+        index[id] = i;
+    }
+}
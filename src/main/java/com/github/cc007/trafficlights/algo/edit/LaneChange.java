@@ -0,0 +1,121 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.edit;
+
+import com.github.cc007.trafficlights.infra.DriveLane;
+import com.github.cc007.trafficlights.infra.InfraException;
+import com.github.cc007.trafficlights.infra.Junction;
+import com.github.cc007.trafficlights.infra.Node;
+import com.github.cc007.trafficlights.infra.Road;
+import com.github.cc007.trafficlights.utils.Arrayutils;
+
+/**
+ *
+ * Describes how the infrastructure changed when the lanes of a road leaving a
+ * junction were disabled or enabled, so the ShortestPathCalculator can repair
+ * only the shortest paths that could have changed. Create it before changing
+ * anything, so it can remember the targets of the lanes leading to the
+ * junction, and call finish when the lanes and targets have been changed.
+ *
+ * @author Algo-group
+ */
+public class LaneChange {
+
+    protected Junction junction;
+    protected DriveLane[] lanes;
+    protected DriveLane[] inboundLanes;
+    protected boolean[][] targetsBefore;
+    protected Road[] retargetedRoads = null;
+
+    /**
+     * Starts describing a change
+     *
+     * @param junction The junction the disabled or enabled lanes come from
+     * @param lanes The lanes that will be disabled or enabled, all leading to
+     * the same node
+     */
+    public LaneChange(Junction junction, DriveLane[] lanes) throws InfraException {
+        this.junction = junction;
+        this.lanes = lanes;
+        inboundLanes = junction.getInboundLanes();
+        targetsBefore = new boolean[inboundLanes.length][];
+        for (int i = 0; i < inboundLanes.length; i++) {
+            targetsBefore[i] = inboundLanes[i].getTargets().clone();
+        }
+    }
+
+    /**
+     * Finds the targets that changed since this change was created. Call this
+     * when the lanes have been disabled or enabled and the targets changed.
+     */
+    public void finish() {
+        Road[] roads = junction.getAllRoads();
+        retargetedRoads = new Road[0];
+        for (int i = 0; i < inboundLanes.length; i++) {
+            boolean[] targets = inboundLanes[i].getTargets();
+            int pos = Arrayutils.findElement(roads, inboundLanes[i].getRoad());
+            for (int k = 0; k < targets.length; k++) {
+                if (targets[k] != targetsBefore[i][k] && roads[(pos + k + 1) % 4] != null) {
+                    // k ranges from 0-2, while dirs range from 1-3: 1: left, 2: straight, 3: right
+                    retargetedRoads = (Road[]) Arrayutils.addUnique(retargetedRoads, roads[(pos + k + 1) % 4]);
+                }
+            }
+        }
+    }
+
+    /*============================================*/
+ /* GET methods                                */
+ /*============================================*/
+    /**
+     * Returns the junction the disabled or enabled lanes come from
+     */
+    public Junction getJunction() {
+        return junction;
+    }
+
+    /**
+     * Returns the lanes that were disabled or enabled
+     */
+    public DriveLane[] getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Returns the node the disabled or enabled lanes lead to
+     */
+    public Node getNodeLeadsTo() throws InfraException {
+        return lanes[0].getNodeLeadsTo();
+    }
+
+    /**
+     * Returns true if the lanes were enabled, false if they were disabled
+     */
+    public boolean isEnabling() {
+        return !lanes[0].isDisabled();
+    }
+
+    /**
+     * Returns the roads of the junction to which lanes leading to the junction
+     * got or lost a target
+     *
+     * @throws IllegalStateException if finish has not been called
+     */
+    public Road[] getRetargetedRoads() {
+        if (retargetedRoads == null) {
+            throw new IllegalStateException("The change has not been finished");
+        }
+        return retargetedRoads;
+    }
+}
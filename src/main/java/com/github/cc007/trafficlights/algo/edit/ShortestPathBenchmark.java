@@ -0,0 +1,77 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.edit;
+
+import com.github.cc007.trafficlights.infra.GridInfra;
+import com.github.cc007.trafficlights.infra.InfraException;
+
+/**
+ *
+ * Measures how long the ShortestPathCalculator takes on generated grids of
+ * increasing size, both serial and in parallel. Every grid is calculated a few
+ * times after one warm-up run and the fastest time is reported.
+ * <p>
+ * Usage: ShortestPathBenchmark [size ...], the sizes being the number of
+ * junctions in a row of the grid.
+ *
+ * @author Algo-group
+ */
+public class ShortestPathBenchmark {
+
+    protected static final int[] DEFAULT_SIZES = {5, 10, 20, 40, 70};
+    protected static final int RUNS = 3;
+    protected static final long SEED = 42;
+
+    public static void main(String[] args) throws InfraException {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.println("size\tnodes\texits\tlanes\tserial ms\tparallel ms");
+        ShortestPathCalculator calc = new ShortestPathCalculator();
+        for (int size : sizes) {
+            GridInfra infra = new GridInfra(size, SEED);
+            calc.setParallel(false);
+            long serial = time(calc, infra);
+            calc.setParallel(true);
+            long parallel = time(calc, infra);
+            int numLanes = 0;
+            for (int i = 0; i < infra.getAllNodes().length; i++) {
+                numLanes += infra.getAllNodes()[i].getInboundLanes().length;
+            }
+            System.out.println(size + "\t" + infra.getAllNodes().length + "\t"
+                    + infra.getSpecialNodes().length + "\t" + numLanes + "\t" + serial + "\t" + parallel);
+        }
+    }
+
+    /**
+     * Returns the fastest time in milliseconds the calculator takes on the
+     * given infrastructure
+     */
+    protected static long time(ShortestPathCalculator calc, GridInfra infra) throws InfraException {
+        calc.calcAllShortestPaths(infra);
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            calc.calcAllShortestPaths(infra);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1000000;
+    }
+}
@@ -17,19 +17,34 @@ package com.github.cc007.trafficlights.algo.edit;
 
 import com.github.cc007.trafficlights.infra.*;
 import com.github.cc007.trafficlights.utils.Typeutils;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * This class will determine for each node for each exitnode what lanes are
  * on a shortest path towards it.
+ * <p>
+ * The paths to every exitnode are calculated for every Roaduser type in a
+ * separate pass. A pass only reads the paths it found itself, which it keeps
+ * in its own SPData objects until it is done. In parallel mode the passes run
+ * on the common fork-join pool. Either way the found paths are added to the
+ * nodes in the same order, so both modes give the same SPData.
+ * <p>
+ * When lanes are disabled or enabled, most passes would do exactly the same
+ * again. The updateShortestPaths method only repeats the passes that could
+ * have found other paths.
  */
 
 public class ShortestPathCalculator
 {
     private final static int int_MAX = Integer.MAX_VALUE; // To be used as 'infinite'
     private Node[] allNodes;
-    private Node[] v;
-    private int[] d;
-    private final static double derivation_factor = 1.1; // Factor of how much longer a path may be to be seen as a 'shortest path'
+    private int[] exitOrder; // The place of every exit in the special nodes, indexed by node id
+    public final static double DEFAULT_DERIVATION_FACTOR = 1.1; // Factor of how much longer a path may be to be seen as a 'shortest path'
+    private boolean parallel = ForkJoinPool.getCommonPoolParallelism() > 1;
 
     /**
      * The constructor for a shortest path calculator.
@@ -38,6 +53,23 @@ public class ShortestPathCalculator
     {
     }
 
+    /**
+     * Returns true if the passes are run on the common fork-join pool
+     */
+    public boolean isParallel()
+    {
+        return parallel;
+    }
+
+    /**
+     * Sets if the passes are run on the common fork-join pool. By default they
+     * are when that pool uses more than one thread.
+     */
+    public void setParallel(boolean b)
+    {
+        parallel = b;
+    }
+
     /**
      * Calculates all the shortest paths for each EdgeNode in the Infrastructure.
      * @param infra The Infrastructure of which the shortest paths should be calculated.
@@ -46,7 +78,7 @@ public class ShortestPathCalculator
     public void calcAllShortestPaths(Infrastructure infra) throws
             InfraException
     {
-        calcAllShortestPaths(infra, derivation_factor);
+        calcAllShortestPaths(infra, DEFAULT_DERIVATION_FACTOR);
     }
 
     /**
@@ -59,205 +91,395 @@ public class ShortestPathCalculator
             InfraException
     {
         infra.resetShortestPaths(); //(DOAS 06)
+        infra.setRouteDerivationFactor(derivation_factor);
         Node[] exits = infra.getSpecialNodes();
         allNodes = infra.getAllNodes();
         int num_exits = exits.length;
         //System.out.println("Calculating Shortest Paths to "+num_exits+" ExitNodes");
+        ArrayList<Pass> passes = new ArrayList<>();
         for (int i = 0; i < num_exits; i++)
         {
-            calcShortestPaths(infra, exits[i], derivation_factor);
+            int[] type_arr = getTypes(exits[i]);
+            for (int t = 0; t < type_arr.length; t++)
+            {
+                passes.add(new Pass(infra, exits[i], type_arr[t], derivation_factor, false));
+            }
         }
+        runPasses(passes);
     }
 
     /**
-     * Calculates the shortest paths to the given Node from each and every other Node in the Infrastructure.
+     * Repairs the shortest paths after the lanes of a road were disabled or enabled. The passes for the exits
+     * and Roaduser types that could not have found other paths are skipped, the result is the same as when all
+     * paths would be calculated again.
+     * @param infra The Infrastructure of which the shortest paths should be repaired.
+     * @param change The finished description of the change.
+     * @param derivation_factor the derivation from the real shortest path that is still accepted as shortest, the one the paths were calculated with
+     * @return The exit id and Roaduser type of every pass that was repeated, the paths to other exits or for
+     * other types did not change.
+     */
+    public int[][] updateShortestPaths(Infrastructure infra, LaneChange change, double derivation_factor) throws
+            InfraException
+    {
+        infra.setRouteDerivationFactor(derivation_factor);
+        Node[] exits = infra.getSpecialNodes();
+        allNodes = infra.getAllNodes();
+        int num_exits = exits.length;
+        exitOrder = new int[allNodes.length];
+        for (int i = 0; i < num_exits; i++)
+        {
+            exitOrder[exits[i].getId()] = i;
+        }
+        ArrayList<Pass> passes = new ArrayList<>();
+        for (int i = 0; i < num_exits; i++)
+        {
+            int[] type_arr = getTypes(exits[i]);
+            for (int t = 0; t < type_arr.length; t++)
+            {
+                if (mayChange(change, exits[i].getId(), type_arr[t], derivation_factor))
+                {
+                    passes.add(new Pass(infra, exits[i], type_arr[t], derivation_factor, true));
+                }
+            }
+        }
+        runPasses(passes);
+        int[][] repeated = new int[passes.size()][];
+        for (int i = 0; i < repeated.length; i++)
+        {
+            repeated[i] = new int[]{passes.get(i).exit.getId(), passes.get(i).ruType};
+        }
+        return repeated;
+    }
+
+    /**
+     * Returns false if the pass for the exit and Roaduser type would do exactly the same after the change as
+     * it did before, judging by the paths it found before. When in doubt true is returned.
+     * <p>
+     * A pass only sees the change when it handles the junction and relaxes lanes to a road that got or lost
+     * targets, or when it handles the node the changed lanes lead to and relaxes those lanes. The first can
+     * only happen if the junction has a path over such a road. The second makes no difference if the
+     * junction was done before that node and the lanes are too long to be on a near-shortest path.
+     */
+    private boolean mayChange(LaneChange change, int exitId, int ruType, double derivation_factor) throws
+            InfraException
+    {
+        Node junction = change.getJunction();
+        Node next = change.getNodeLeadsTo();
+        DriveLane[] jlanes = junction.getShortestPaths(exitId, ruType);
+        DriveLane[] nextlanes = next.getShortestPaths(exitId, ruType);
+        boolean jReached = jlanes != null && jlanes.length > 0;
+        boolean nextReached = nextlanes != null && nextlanes.length > 0;
+
+        Road[] roads = change.getRetargetedRoads();
+        for (int i = 0; jReached && i < jlanes.length; i++)
+        {
+            for (int j = 0; j < roads.length; j++)
+            {
+                if (jlanes[i].getRoad() == roads[j])
+                {
+                    return true;
+                }
+            }
+        }
+
+        if (!nextReached)
+        {
+            return false; // The changed lanes were never relaxed and will not be
+        }
+        if (!jReached)
+        {
+            // Relaxing a lane to the junction would have reached it, so the lanes were not relaxed before.
+            // When they were disabled they will not be relaxed now either.
+            return change.isEnabling();
+        }
+        DriveLane[] lanes = change.getLanes();
+        int dj = getDistance(junction, jlanes, exitId, ruType);
+        int dnext = getDistance(next, nextlanes, exitId, ruType);
+        if (dj < 0 || dnext < 0)
+        {
+            return true;
+        }
+        if (dj > dnext || (dj == dnext && junction.getId() < next.getId()))
+        {
+            return true; // The junction was not done yet when the lanes were relaxed
+        }
+        for (int i = 0; i < lanes.length; i++)
+        {
+            if (dnext + lanes[i].getLength() <= Math.max(dj, (int) Math.floor(dj * derivation_factor)))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the length of the shortest path from the node to the exit, from the lengths stored with its
+     * paths. Returns -1 if that length is not stored, which is the case for paths that start with a lane
+     * leading to the exit itself.
+     */
+    private int getDistance(Node node, DriveLane[] splanes, int exitId, int ruType) throws InfraException
+    {
+        for (int i = 0; i < splanes.length; i++)
+        {
+            if (splanes[i].getNodeLeadsTo().getId() == exitId || splanes[i].getLength() <= 0)
+            {
+                return -1;
+            }
+        }
+        int length = node.getShortestPathMinLength(exitId, ruType);
+        return (length == int_MAX) ? -1 : length;
+    }
+
+    /**
+     * Runs the passes, on the common fork-join pool in parallel mode, and adds the paths they found to the
+     * nodes in the order of the passes
+     */
+    private void runPasses(ArrayList<Pass> passes) throws InfraException
+    {
+        if (!parallel)
+        {
+            for (Pass pass : passes)
+            {
+                pass.addFoundPaths(pass.call());
+            }
+            return;
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        ArrayList<Future<SPData[]>> results = new ArrayList<>();
+        for (Pass pass : passes)
+        {
+            results.add(pool.submit(pass));
+        }
+        try
+        {
+            for (int i = 0; i < passes.size(); i++)
+            {
+                passes.get(i).addFoundPaths(results.get(i).get());
+            }
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof InfraException)
+            {
+                throw (InfraException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InfraException("Interrupted while calculating the shortest paths");
+        }
+        finally
+        {
+            for (Future<SPData[]> result : results)
+            {
+                result.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Returns each primitive type of the Roadusers that can reach the given exit
+     */
+    private int[] getTypes(Node exit) throws InfraException
+    {
+        DriveLane[] lanes = exit.getInboundLanes();
+        int types = 0;
+        for (int i = 0; i < lanes.length; i++)
+        {
+            types |= lanes[i].getType(); // Getting a complete typing
+        }
+        return Typeutils.getTypes(types);
+    }
+
+    /**
+     * Calculates the shortest paths to the given Node from each and every other Node in the Infrastructure,
+     * for one type of Roaduser. The nodes are not changed.
      * @param infra The Infrastructure of which the shortest paths should be calculated.
      * @param exit The Node to which the shortest paths should be caluclated.
+     * @param ruType The type of Roaduser.
+     * @return The paths found, indexed by node id, null for the nodes that have none.
      */
-    private void calcShortestPaths(Infrastructure infra, Node exit, double derivation_factor) throws
+    private SPData[] calcShortestPaths(Infrastructure infra, Node exit, int ruType, double derivation_factor) throws
             InfraException
     {
-        Node node = exit; // The Node variable we need for tracking
+        Node node; // The Node variable we need for tracking
         int exitId = exit.getId(); // The ID we need for entering the found route in the SPData
-        int nearest = int_MAX; // Needed for speeding up the 'findNearest..'
-        int nearestId = 0;
-        int id = exitId; // The id of the node we're working with
-        int num_nodes = infra.getAllNodes().length; // Needed for looping through all nodes
+        int id; // The id of the node we're working with
+        int num_nodes = allNodes.length; // Needed for looping through all nodes
 
-        d = new int[num_nodes]; // To keep track of the length of the shortest path, necessary for this algorithm.
+        int[] d = new int[num_nodes]; // To keep track of the length of the shortest path, necessary for this algorithm.
+        DistanceHeap heap = new DistanceHeap(d); // The nodes not yet in our 'Cloud' that can reach the exit, nearest first
+        SPData[] found = new SPData[num_nodes]; // The paths found, only this pass uses them
 
-        // To get all the types of Roadusers that can reach this ExitNode
-        DriveLane[] lanes = node.getInboundLanes();
-        DriveLane[] edgelanes = exit.getInboundLanes();
+        DriveLane[] lanes;
         DriveLane[] splanes; // For looping, no need to recreate the Object all over
         DriveLane l;
         Node newNode;
         int newId;
-        int types = 0;
         int lanelength;
-        int num_lanes = lanes.length;
-        int num_edgelanes = edgelanes.length;
-        int num_nodes_left;
         int num_splanes;
 
-        for (int i = 0; i < num_lanes; i++)
+        for (int i = 0; i < num_nodes; i++)
         {
-            types |= lanes[i].getType(); // Getting a complete typing
+            d[i] = int_MAX;
         }
+        d[exitId] = 0;
 
-        int[] type_arr = Typeutils.getTypes(types); // Getting each primitive type of that
-        int num_types = type_arr.length;
-
-        //System.out.println("--- EdgeNode "+exitId+" ---");
-        //System.out.println("Number of inbound lanes on EdgeNode "+exit.getId()+" : "+num_lanes+" totaltype:"+types);
-
-        for (int t = 0; t < num_types; t++) // For each of those Roaduser Types
+        lanes = exit.getInboundLanes();
+        for (int i = 0; i < lanes.length; i++)
         {
-
-            for (int i = 0; i < num_nodes; i++)
+            if (lanes[i].mayUse(ruType) && !lanes[i].isDisabled())
             {
-                d[i] = int_MAX;
+                newNode = lanes[i].getNodeComesFrom();
+                getFound(found, newNode).addShortestPath(lanes[i], exitId, ruType, 0);
+                int tnewId = newNode.getId();
+                d[tnewId] = lanes[i].getLength();
+                //System.out.println("Adding Shortest Path from "+newNode.getId()+" to:"+exitId+" laneId:"+i+" for type "+ruType+" : length == "+d[tnewId]);
             }
-            d[exitId] = 0;
+        }
+
+        Node[] v = (Node[]) allNodes.clone(); // We need all the nodes as we will have to determine the shortest paths
+        // for each node to the given exit.
+        // We use an array as with using the Id as the key, we get an O(1) speed of resolving the actual Node-pointer
 
-            lanes = exit.getInboundLanes();
-            for (int i = 0; i < lanes.length; i++)
+        v[exitId] = null;
+
+        // Only the nodes that can reach the exit are put in the heap, the others have no shortest paths to pass on.
+        for (int i = 0; i < num_nodes; i++)
+        {
+            if (d[i] != int_MAX && v[i] != null)
             {
-                if (lanes[i].mayUse(type_arr[t]) && !infra.getDisabledLanes().contains(lanes[i]))
-                {
-                    newNode = lanes[i].getNodeComesFrom();
-                    newNode.addShortestPath(lanes[i], exitId, type_arr[t], 0);
-                    int tnewId = newNode.getId();
-                    d[tnewId] = lanes[i].getLength();
-                    //System.out.println("Adding Shortest Path from "+newNode.getId()+" to:"+exitId+" laneId:"+i+" for type "+type_arr[t]+" : length == "+d[tnewId]);
-                }
+                heap.add(i);
             }
+        }
 
-            v = (Node[]) allNodes.clone(); // We need all the nodes as we will have to determine the shortest paths
-            // for each node to the given exit.
-            // We use an array as with using the Id as the key, we get an O(1) speed of resolving the actual Node-pointer
+        //System.out.println("Now Finding all SPs for Type: "+ruType);
 
-            num_nodes_left = num_nodes - 1;
-            v[exitId] = null;
+        while (!heap.isEmpty())
+        {
+            id = heap.poll(); // Find the ID of the nearest Node not yet in our 'Cloud', ties go to the highest ID.
+            node = v[id]; // Get the pointer to that Node
+            v[id] = null; // Remove that node from our 'todo' list
 
-            //System.out.println("Now Finding all SPs for Type: "+type_arr[t]);
+            splanes = (found[id] == null) ? new DriveLane[0] : found[id].getShortestPaths(exitId, ruType); // Get the lanes that are on a shortest path from this node to the exitNode.
+            num_splanes = splanes.length;
+            //System.out.println("At "+id+" to search for SP to "+exitId+" lanes to search: "+num_splanes);
 
-            while (num_nodes_left != 0)
+            for (int i = 0; i < num_splanes; i++)
             {
-                num_nodes_left--;
-                id = findNearestAvailableNode(); // Find the ID of the nearest Node not yet in our 'Cloud'. To help the search, supply a suspect.
-                if (id == -1)
-                {
-                    break;
-                }
-                node = v[id]; // Get the pointer to that Node
-                v[id] = null; // Remove that node from our 'todo' list
+                lanes = node.getLanesLeadingTo(splanes[i], ruType); // Get an array of Drivelanes that can transfer Roadusers to the shortest-path lane
+                int num_working_lanes = lanes.length;
 
-                splanes = node.getShortestPaths(exitId, type_arr[t]); // Get the lanes that are on a shortest path from this node to the exitNode.
-                num_splanes = splanes.length;
-                //System.out.println("At "+id+" to search for SP to "+exitId+" lanes to search: "+num_splanes);
+                //System.out.println(num_working_lanes+" lanes leading to SPLane "+i);
 
-                for (int i = 0; i < num_splanes; i++)
+                for (int j = 0; j < num_working_lanes; j++) // For each of those lanes
                 {
-                    lanes = node.getLanesLeadingTo(splanes[i], type_arr[t]); // Get an array of Drivelanes that can transfer Roadusers to the shortest-path lane
-                    int num_working_lanes = lanes.length;
-
-                    //System.out.println(num_working_lanes+" lanes leading to SPLane "+i);
-
-                    for (int j = 0; j < num_working_lanes; j++) // For each of those lanes
+                    l = lanes[j];
+                    if(!l.isDisabled())
                     {
-                        l = lanes[j];
-                        if(!infra.getDisabledLanes().contains(l))
-                        {
-
 
-                            lanelength = l.getLength();
-                            newNode = l.getNodeComesFrom();
-                            newId = newNode.getId();
 
-                            if (d[id] + lanelength < d[newId]) // Determine if the road to the Exitnode is quicker via node
-                            { // Ifso, Remove the earlier thought-up shortestpaths, and use this one.
-                                d[newId] = d[id] + lanelength; // Also update the newly found length of the shortest path.
-                                //System.out.println("Setted SP from: "+newId+" to "+exitId+" : "+(d[id]+lanelength)+" oldlength: "+d[newId]);
-                                //newNode.setShortestPath(l, exitId, type_arr[t],d[newId]);
+                        lanelength = l.getLength();
+                        newNode = l.getNodeComesFrom();
+                        newId = newNode.getId();
 
-                                // Instead of 'set' now just add this lane, and remove all 'too long lanes'
-                                newNode.addShortestPath(l, exitId, type_arr[t],
-                                        d[newId]);
-                                newNode.remPaths(exitId, type_arr[t],
-                                                 (int) Math.
-                                                 floor(d[newId] *
-                                        derivation_factor));
-                            }
-                            else if (d[id] + lanelength == d[newId]) // If the length of this found path is the same as one already found,
-                            { // add this route to the shortest paths.
-                                //System.out.println("Added SP from: "+newId+" laneId "+j+" to "+exitId+" : "+(d[id]+lanelength)+" oldlength: "+d[newId]);
-                                newNode.addShortestPath(l, exitId, type_arr[t],
-                                        d[newId]);
-                            }
-                            else if (d[id] + lanelength <=
-                                     (int) Math.floor(d[newId] *
-                                    derivation_factor))
+                        if (d[id] + lanelength < d[newId]) // Determine if the road to the Exitnode is quicker via node
+                        { // Ifso, Remove the earlier thought-up shortestpaths, and use this one.
+                            d[newId] = d[id] + lanelength; // Also update the newly found length of the shortest path.
+                            if (v[newId] != null)
                             {
-                                newNode.addShortestPath(l, exitId, type_arr[t],
-                                        d[id] + lanelength);
+                                heap.decreased(newId);
                             }
+                            //System.out.println("Setted SP from: "+newId+" to "+exitId+" : "+(d[id]+lanelength)+" oldlength: "+d[newId]);
+
+                            // Instead of 'set' now just add this lane, and remove all 'too long lanes'
+                            SPData sp = getFound(found, newNode);
+                            sp.addShortestPath(l, exitId, ruType,
+                                    d[newId]);
+                            sp.remPaths(exitId, ruType,
+                                        (int) Math.
+                                        floor(d[newId] *
+                                    derivation_factor));
+                        }
+                        else if (d[id] + lanelength == d[newId]) // If the length of this found path is the same as one already found,
+                        { // add this route to the shortest paths.
+                            //System.out.println("Added SP from: "+newId+" laneId "+j+" to "+exitId+" : "+(d[id]+lanelength)+" oldlength: "+d[newId]);
+                            getFound(found, newNode).addShortestPath(l, exitId, ruType,
+                                    d[newId]);
+                        }
+                        else if (d[id] + lanelength <=
+                                 (int) Math.floor(d[newId] *
+                                derivation_factor))
+                        {
+                            getFound(found, newNode).addShortestPath(l, exitId, ruType,
+                                    d[id] + lanelength);
                         }
                     }
                 }
             }
         }
+        return found;
     }
 
     /**
-     *Find the nearest which can be choosen as an alternative destination
-     * @param nodeId The Id of the current node
-     * @return The node found
+     * Returns the SPData a pass keeps for the given node, creating it if needed
      */
-    public int findNearestAvailableNode(int nodeId)
+    private static SPData getFound(SPData[] found, Node node)
     {
-        if (v[nodeId] != null)
-        {
-            return nodeId;
-        }
-        else
+        int id = node.getId();
+        if (found[id] == null)
         {
-            //int checked = 0;                      // Possible speedup: Keep track of number of nodes checked in this loop
-            int nearest = int_MAX; // continue if less than num_nodes_left;
-            int nearestId = -1;
-            int numNodes = d.length;
-            for (int i = 0; i < numNodes; i++)
-            {
-                if (v[i] != null && d[i] <= nearest)
-                {
-                    nearest = d[i];
-                    nearestId = i;
-                }
-            }
-            return nearestId;
+            found[id] = new SPData();
         }
+        return found[id];
     }
 
     /**
-     *Find the nearest which can be choosen as an alternative destination
-     * @return The node found
+     * One pass of the calculation, for one exit and one type of Roaduser
      */
-    public int findNearestAvailableNode()
+    private class Pass implements Callable<SPData[]>
     {
-        int nearest = int_MAX; // continue if less than num_nodes_left;
-        int nearestId = -1;
-        int numNodes = d.length;
-        for (int i = 0; i < numNodes; i++)
+        private final Infrastructure infra;
+        private final Node exit;
+        private final int ruType;
+        private final double derivation_factor;
+        private final boolean replace; // If the nodes may already have paths for this pass
+
+        Pass(Infrastructure infra, Node exit, int ruType, double derivation_factor, boolean replace)
+        {
+            this.infra = infra;
+            this.exit = exit;
+            this.ruType = ruType;
+            this.derivation_factor = derivation_factor;
+            this.replace = replace;
+        }
+
+        @Override
+        public SPData[] call() throws InfraException
         {
-            if (v[i] != null && d[i] <= nearest)
+            return calcShortestPaths(infra, exit, ruType, derivation_factor);
+        }
+
+        /**
+         * Adds the paths found by this pass to the nodes
+         */
+        void addFoundPaths(SPData[] found)
+        {
+            for (int i = 0; i < found.length; i++)
             {
-                nearest = d[i];
-                nearestId = i;
+                if (replace)
+                {
+                    allNodes[i].replaceShortestPaths(exit.getId(), ruType, found[i], exitOrder);
+                }
+                else if (found[i] != null)
+                {
+                    allNodes[i].addShortestPaths(found[i]);
+                }
             }
         }
-        ///System.out.println("Nearest is: "+nearestId+" with length:"+nearest);
-        return nearestId;
     }
-
-
 }
@@ -9,15 +9,13 @@ package com.github.cc007.trafficlights.algo.heuristic;
 import com.github.cc007.trafficlights.infra.InfraException;
 import com.github.cc007.trafficlights.infra.Node;
 import com.github.cc007.trafficlights.algo.dp.DrivingPolicy;
-import com.github.cc007.trafficlights.sim.SimModel;
 import com.github.cc007.trafficlights.infra.DriveLane;
 import com.github.cc007.trafficlights.infra.Roaduser;
 
 public class HEC
 {
-       public static float getCongestion(Roaduser ru,DriveLane currentLane, Node currentNode)
+       public static float getCongestion(DrivingPolicy dp, Roaduser ru,DriveLane currentLane, Node currentNode)
        {
-         DrivingPolicy dp = SimModel.getDrivingPolicy();
          DriveLane destLane;
          float percWaiting = 0;
 
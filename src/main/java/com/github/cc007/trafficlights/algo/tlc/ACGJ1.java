@@ -120,6 +120,11 @@ public class ACGJ1 extends TLController implements XMLSerializable, TwoStageLoad
         ruMoves++;
     }
 
+    @Override
+    public boolean usesPosMovs() {
+        return false;
+    }
+
     private class Population implements XMLSerializable, TwoStageLoader {
 
         List<Person> members;
@@ -131,7 +136,7 @@ public class ACGJ1 extends TLController implements XMLSerializable, TwoStageLoad
         public Population(Infrastructure infra) {
             this.infra = infra;
             members = new ArrayList<>();
-            rnd = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+            rnd = new Random(infra.getContext().getSeed());
             currentMax = 0;
             numMaxTimes = 0;
             initialize();
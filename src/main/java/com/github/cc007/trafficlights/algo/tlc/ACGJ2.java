@@ -148,6 +148,11 @@ public class ACGJ2 extends TLController implements XMLSerializable, TwoStageLoad
         // No implementation necessary
     }
 
+    @Override
+    public boolean usesPosMovs() {
+        return false;
+    }
+
     private class NextCycles implements XMLSerializable {
 
         int cyclesForward;
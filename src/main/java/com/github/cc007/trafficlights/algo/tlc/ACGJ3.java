@@ -93,7 +93,7 @@ public class ACGJ3 extends TLController implements InstantiationAssistant, XMLSe
      * @param i The infrastructure this algorithm will have to operate on
      */
     public ACGJ3(Infrastructure i) {
-        random = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random = new Random(i.getContext().getSeed());
         setInfrastructure(i);
     }
 
@@ -214,6 +214,11 @@ public class ACGJ3 extends TLController implements InstantiationAssistant, XMLSe
         }
     }
 
+    @Override
+    public boolean usesPosMovs() {
+        return false;
+    }
+
     protected class ACGJ3Population implements XMLSerializable {
 
         /**
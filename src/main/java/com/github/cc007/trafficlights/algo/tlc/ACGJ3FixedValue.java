@@ -59,7 +59,7 @@ public class ACGJ3FixedValue extends TLController implements InstantiationAssist
 	 */
 	public ACGJ3FixedValue(Infrastructure _i)
 	{	//super(_i);
-		random = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+		random = new Random(_i.getContext().getSeed());
 		setInfrastructure(_i);
 		System.out.println("ACGJ3.new ACGJ3 with "+tld.length+" nodes");
 	}
@@ -147,6 +147,12 @@ public class ACGJ3FixedValue extends TLController implements InstantiationAssist
 		}
 	}
 
+    @Override
+	public boolean usesPosMovs()
+	{
+		return false;
+	}
+
 	protected class ACGJ3FixedValueIndividual implements XMLSerializable
 	{
 		/**
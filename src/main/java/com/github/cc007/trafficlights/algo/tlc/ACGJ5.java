@@ -68,7 +68,7 @@ public class ACGJ5 extends TLController implements InstantiationAssistant,XMLSer
 	 * @param i The infrastructure this algorithm will have to operate on
 	 */
 	public ACGJ5(Infrastructure i)
-	{	random = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+	{	random = new Random(i.getContext().getSeed());
 		tlc = new BestFirstTLC(i);
 		setInfrastructure(i);
 	}
@@ -173,6 +173,12 @@ public class ACGJ5 extends TLController implements InstantiationAssistant,XMLSer
 		}
 	}
 
+    @Override
+	public boolean usesPosMovs()
+	{
+		return false;
+	}
+
 	protected class Population implements XMLSerializable
 	{
 		/** the ID of the current Individual that's showing off it's coolness */
@@ -69,6 +69,12 @@ public class BestFirstTLC extends TLController
 	{
 	    // No needed
 	}
+
+@Override
+	public boolean usesPosMovs()
+	{
+		return false;
+	}
 	
 	// Trivial XMLSerializable implementation
 
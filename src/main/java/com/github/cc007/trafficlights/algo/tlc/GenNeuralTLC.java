@@ -91,7 +91,7 @@ public class GenNeuralTLC extends TLController implements XMLSerializable, TwoSt
     public GenNeuralTLC(Infrastructure i) {
         super(i);
         assistant = this;
-        random = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random = new Random(i.getContext().getSeed());
     }
 
     /**
@@ -208,6 +208,11 @@ public class GenNeuralTLC extends TLController implements XMLSerializable, TwoSt
         }
     }
 
+    @Override
+    public boolean usesPosMovs() {
+        return false;
+    }
+
     protected class GenNeuralPopulation implements XMLSerializable, TwoStageLoader {
 
         /* the current group of Individuals that's showing off it's coolness */
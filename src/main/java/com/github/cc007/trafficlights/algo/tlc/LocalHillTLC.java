@@ -78,7 +78,7 @@ public class LocalHillTLC extends TLController implements Colearning {
         }
 
         // Create random setting for the D array
-        seed = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        seed = new Random(infra.getContext().getSeed());
         for (int i = 0; i < tld.length; i++) {
             for (int j = 0; j < tld[i].length; j++) {
                 tld[i][j].setGain(seed.nextFloat());
@@ -180,7 +180,7 @@ public class LocalHillTLC extends TLController implements Colearning {
                                 changed = true;
                             }
                         } else {
-                            DrivingPolicy dp = SimModel.getDrivingPolicy();
+                            DrivingPolicy dp = infra.getContext().getDrivingPolicy();
                             Roaduser firstRU = dls[j].getFirstRoaduser();
                             DriveLane destLane = dp.getDirection(firstRU, dls[j], currentNode);
                             int value = v_table[s.getId()];
@@ -240,6 +240,11 @@ public class LocalHillTLC extends TLController implements Colearning {
 		}*/
     }
 
+    @Override
+    public boolean usesPosMovs() {
+        return false;
+    }
+
     protected boolean isRed(TLDecision[] tld_node, int sign_id) {
         int num_tld_node = tld_node.length;
         Sign sign;
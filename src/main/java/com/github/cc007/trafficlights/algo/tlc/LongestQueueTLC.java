@@ -19,6 +19,7 @@ package com.github.cc007.trafficlights.algo.tlc;
 import com.github.cc007.trafficlights.algo.tlc.*;
 import com.github.cc007.trafficlights.infra.*;
 import com.github.cc007.trafficlights.xml.*;
+import java.util.Random;
 
 /**
  * This controller will switch TrafficLights so that the Trafficlight with the longest queue of 
@@ -27,8 +28,9 @@ import com.github.cc007.trafficlights.xml.*;
  * @author Group Algorithms
  * @version 1.0
  */
-public class LongestQueueTLC extends TLController
+public class LongestQueueTLC extends TLController implements PerNodeTLC
 {	protected final static String shortXMLName="tlc-longestqueue";
+	protected final NodeDecider nodeDecider = new NodeDecider(this);
 	
 	/**
 	 * The constructor for TL controllers
@@ -45,33 +47,42 @@ public class LongestQueueTLC extends TLController
 @Override
 	public TLDecision[][] decideTLs()
 	{
-		int maxLength, num_lanes, num_nodes, maxId, temp_len, ru_pos;
-		num_nodes = tld.length;
-		
-		for (int i=0; i < num_nodes; i++) {
-			maxLength = -1;
-			maxId = -1;
-			num_lanes = tld[i].length;
-			for(int j=0; j < num_lanes; j++) {
-				temp_len = tld[i][j].getTL().getLane().getNumRoadusersWaiting();
-				if (temp_len > maxLength) {
-					maxLength = temp_len;
-					maxId = j;
-				}
-				
-				tld[i][j].setGain(0);
+		nodeDecider.decideNodes(null);
+		return tld;
+	}
+
+
+@Override
+	public void decideNode(int i, Random random)
+	{
+		int maxLength, num_lanes, maxId, temp_len;
+		maxLength = -1;
+		maxId = -1;
+		num_lanes = tld[i].length;
+		for(int j=0; j < num_lanes; j++) {
+			temp_len = tld[i][j].getTL().getLane().getNumRoadusersWaiting();
+			if (temp_len > maxLength) {
+				maxLength = temp_len;
+				maxId = j;
 			}
-			if(maxId!=-1) {
-                tld[i][maxId].setGain(maxLength);
-            }
+			
+			tld[i][j].setGain(0);
 		}
-		return tld;
+		if(maxId!=-1) {
+            tld[i][maxId].setGain(maxLength);
+        }
 	}
 
 @Override
 	public void updateRoaduserMove(Roaduser _ru, DriveLane _prevlane, Sign _prevsign, int _prevpos, DriveLane _dlanenow, Sign _signnow, int _posnow, PosMov[] posMovs, DriveLane desired)
 	{    // No needed
 	}
+
+@Override
+	public boolean usesPosMovs()
+	{
+		return false;
+	}
 	
 	// XMLSerializable implementation
 
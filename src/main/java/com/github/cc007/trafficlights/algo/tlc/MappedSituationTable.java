@@ -0,0 +1,82 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.tlc;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ *
+ * A SituationTable that keeps its values in a MappedTableFile instead of on
+ * the Java heap. If the file holds a table with the same layout and stride,
+ * its values are used, unless the other tables of the controller do not
+ * belong with it (see TableMemory.bindTables). Otherwise all values start at
+ * 0.
+ *
+ * @author Group Algorithms
+ * @version 1.0
+ */
+public class MappedSituationTable extends SituationTable {
+
+    protected MappedTableFile file;
+
+    public MappedSituationTable(SituationLayout layout, File file) throws IOException {
+        this(layout, 1, file);
+    }
+
+    public MappedSituationTable(SituationLayout layout, int stride, File file) throws IOException {
+        super(layout, stride, false);
+        this.file = new MappedTableFile(file, MappedTableFile.TABLE, stride, layout);
+        try {
+            this.file.ensureCapacity(4L * layout.getNumSituations() * stride);
+        } catch (IOException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    public MappedTableFile getFile() {
+        return file;
+    }
+
+    @Override
+    public float get(int situation) {
+        return file.getFloat((long) situation * stride);
+    }
+
+    @Override
+    public float get(int situation, int index) {
+        return file.getFloat((long) situation * stride + index);
+    }
+
+    @Override
+    public void set(int situation, float value) {
+        file.putFloat((long) situation * stride, value);
+    }
+
+    @Override
+    public void set(int situation, int index, float value) {
+        file.putFloat((long) situation * stride + index, value);
+    }
+
+    /**
+     * Returns an estimate of the number of bytes the table takes up on the
+     * heap, which does not include the values
+     */
+    @Override
+    public long getFootprint() {
+        return 64;
+    }
+}
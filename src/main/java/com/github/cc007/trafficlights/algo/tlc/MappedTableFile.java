@@ -0,0 +1,228 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.tlc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ *
+ * A file that is mapped into memory to keep a learning table outside of the
+ * Java heap. The file starts with a header with a version and the dimensions
+ * of the SituationLayout the table belongs to: the number of positions of
+ * every sign, the number of destinations and states, and the number of values
+ * per situation. The header also holds the generation of the set of tables
+ * the file belongs to (see TableMemory.bindTables): the files of one
+ * controller are only used again together, when all of them have the same
+ * generation. When an existing file has the same dimensions, its data is kept
+ * until the set is checked; otherwise the file is started anew.
+ *
+ * The data is mapped in chunks, so it can grow and be larger than 2 GB. The
+ * file is locked while it is in use.
+ *
+ * @author Group Algorithms
+ * @version 1.0
+ */
+public class MappedTableFile {
+
+    protected static final int MAGIC = 0x474c4454; // "GLDT"
+    public static final int VERSION = 2;
+    /**
+     * The kinds of tables
+     */
+    public static final int TABLE = 1, COUNTS = 2;
+    protected static final int CHUNK_BITS = 28;
+    protected static final long CHUNK_SIZE = 1L << CHUNK_BITS, CHUNK_MASK = CHUNK_SIZE - 1;
+
+    protected File file;
+    protected FileChannel channel;
+    protected FileLock lock;
+    protected MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+    protected long dataOffset, mappedSize;
+    protected ByteBuffer header;	// The dimensions, without the generation
+    protected boolean matching;
+    protected long generation;		// 0 for a new file
+
+    /**
+     * Opens the file, and keeps the existing data if the dimensions in its
+     * header match
+     *
+     * @param file The file
+     * @param kind The kind of table, TABLE or COUNTS
+     * @param stride The number of values per situation, for a TABLE
+     * @param layout The situations of the table
+     * @throws IOException if the file cannot be opened, or is in use
+     */
+    public MappedTableFile(File file, int kind, int stride, SituationLayout layout) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException(file + " is in use");
+        }
+
+        header = createHeader(kind, stride, layout);
+        dataOffset = (header.limit() + 8 + 63) & ~63L;
+        ByteBuffer saved = ByteBuffer.allocate(header.limit() + 8);
+        if (channel.size() >= dataOffset) {
+            channel.read(saved, 0);
+        }
+        matching = Arrays.equals(Arrays.copyOf(saved.array(), header.limit()), header.array());
+        if (matching) {
+            generation = saved.getLong(header.limit());
+        } else {
+            channel.truncate(0);
+            writeHeader(0);
+        }
+    }
+
+    protected static ByteBuffer createHeader(int kind, int stride, SituationLayout layout) {
+        int numSigns = layout.getNumSigns();
+        ByteBuffer header = ByteBuffer.allocate(4 * (7 + numSigns));
+        header.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(stride);
+        header.putInt(layout.getNumDestinations()).putInt(layout.getNumStates());
+        header.putInt(numSigns);
+        for (int sign = 0; sign < numSigns; sign++) {
+            header.putInt(layout.getNumPositions(sign));
+        }
+        header.flip();
+        return header;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns whether the file held the data of a table with the same
+     * dimensions
+     */
+    public boolean isMatching() {
+        return matching;
+    }
+
+    /**
+     * Returns the generation of the set of tables the data belongs to, 0 if
+     * there was no data
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Sets all data to 0 and gives the file a new generation
+     */
+    public void reset(long generation) throws IOException {
+        byte[] zeros = new byte[1 << 16];
+        for (int c = 0; c < chunks.length; c++) {
+            ByteBuffer chunk = chunks[c].duplicate();
+            chunk.position(c == 0 ? (int) dataOffset : 0);
+            while (chunk.remaining() > 0) {
+                chunk.put(zeros, 0, Math.min(zeros.length, chunk.remaining()));
+            }
+        }
+        writeHeader(generation);
+        matching = true;
+    }
+
+    protected void writeHeader(long generation) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(header.limit() + 8);
+        buffer.put(header.array()).putLong(generation);
+        buffer.flip();
+        channel.write(buffer, 0);
+        this.generation = generation;
+    }
+
+    /**
+     * Makes sure the given number of bytes of data are mapped, and makes the
+     * file larger if needed. New data is 0.
+     */
+    public void ensureCapacity(long bytes) throws IOException {
+        long size = dataOffset + bytes;
+        if (size <= mappedSize) {
+            return;
+        }
+        int numChunks = (int) ((size + CHUNK_MASK) >>> CHUNK_BITS);
+        int first = Math.max(chunks.length - 1, 0);	// The last chunk may have to grow
+        chunks = Arrays.copyOf(chunks, numChunks);
+        for (int c = first; c < numChunks; c++) {
+            long start = (long) c << CHUNK_BITS;
+            chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(CHUNK_SIZE, size - start));
+        }
+        mappedSize = size;
+    }
+
+    /**
+     * Returns the float at the given index of the data
+     */
+    public float getFloat(long index) {
+        long pos = dataOffset + (index << 2);
+        return chunks[(int) (pos >>> CHUNK_BITS)].getFloat((int) (pos & CHUNK_MASK));
+    }
+
+    public void putFloat(long index, float value) {
+        long pos = dataOffset + (index << 2);
+        chunks[(int) (pos >>> CHUNK_BITS)].putFloat((int) (pos & CHUNK_MASK), value);
+    }
+
+    /**
+     * Returns the long at the given index of the data
+     */
+    public long getLong(long index) {
+        long pos = dataOffset + (index << 3);
+        return chunks[(int) (pos >>> CHUNK_BITS)].getLong((int) (pos & CHUNK_MASK));
+    }
+
+    public void putLong(long index, long value) {
+        long pos = dataOffset + (index << 3);
+        chunks[(int) (pos >>> CHUNK_BITS)].putLong((int) (pos & CHUNK_MASK), value);
+    }
+
+    /**
+     * Writes the data to the disk
+     */
+    public void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Writes the data to the disk and releases the file. The table cannot be
+     * used after this.
+     */
+    public void close() throws IOException {
+        force();
+        chunks = new MappedByteBuffer[0];
+        mappedSize = 0;
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+}
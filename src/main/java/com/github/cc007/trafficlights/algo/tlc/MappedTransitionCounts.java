@@ -0,0 +1,114 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.tlc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ *
+ * TransitionCounts that keeps its entries in a MappedTableFile instead of on
+ * the Java heap. Only the hash table is kept on the heap; it is rebuilt from
+ * the entries when the file already holds the counts of a table with the same
+ * layout.
+ *
+ * The file holds the number of entries, followed by the key and count of
+ * every entry.
+ *
+ * @author Group Algorithms
+ * @version 1.0
+ */
+public class MappedTransitionCounts extends TransitionCounts {
+
+    protected MappedTableFile file;
+    protected int capacity;
+
+    public MappedTransitionCounts(SituationLayout layout, File file) throws IOException {
+        super(0, false);
+        this.file = new MappedTableFile(file, MappedTableFile.COUNTS, 0, layout);
+        try {
+            this.file.ensureCapacity(8);
+            int stored = (int) this.file.getLong(0);
+            capacity = Math.max(stored, DEFAULT_CAPACITY);
+            this.file.ensureCapacity(8 + 16L * capacity);
+            size = stored;
+        } catch (IOException e) {
+            this.file.close();
+            throw e;
+        }
+        rehash(capacity);
+    }
+
+    public MappedTableFile getFile() {
+        return file;
+    }
+
+    @Override
+    public long getCount(int entry) {
+        return file.getLong(2 + 2L * entry);
+    }
+
+    @Override
+    protected long getKey(int entry) {
+        return file.getLong(1 + 2L * entry);
+    }
+
+    @Override
+    protected void setCount(int entry, long count) {
+        file.putLong(2 + 2L * entry, count);
+    }
+
+    @Override
+    protected void setEntry(int entry, long key, long count) {
+        file.putLong(1 + 2L * entry, key);
+        file.putLong(2 + 2L * entry, count);
+    }
+
+    @Override
+    protected int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Makes the file larger if needed. The file does not shrink.
+     */
+    @Override
+    protected void setCapacity(int capacity) {
+        if (capacity > this.capacity) {
+            try {
+                file.ensureCapacity(8 + 16L * capacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.capacity = capacity;
+        }
+    }
+
+    @Override
+    protected void setSize(int size) {
+        this.size = size;
+        file.putLong(0, size);
+    }
+
+    /**
+     * Returns an estimate of the number of bytes the counts take up on the
+     * heap, which does not include the entries
+     */
+    @Override
+    public long getFootprint() {
+        return 64 + 4L * index.length;
+    }
+}
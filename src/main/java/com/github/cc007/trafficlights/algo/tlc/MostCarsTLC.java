@@ -65,6 +65,12 @@ public class MostCarsTLC extends TLController
 	{
 	    // No needed
 	}
+
+@Override
+	public boolean usesPosMovs()
+	{
+		return false;
+	}
 	
 	// Trivial XMLSerializable implementation
 
@@ -0,0 +1,153 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.tlc;
+
+import com.github.cc007.trafficlights.algo.dp.DrivingPolicy;
+import com.github.cc007.trafficlights.infra.DriveLane;
+import com.github.cc007.trafficlights.infra.InfraException;
+import com.github.cc007.trafficlights.infra.Infrastructure;
+import com.github.cc007.trafficlights.infra.Roaduser;
+import com.github.cc007.trafficlights.infra.Sign;
+import java.util.HashMap;
+import java.util.ListIterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *
+ * Calls decideNode of a PerNodeTLC for every node of its decision array.
+ * Without decision threads (see TLController.getDecisionThreads), the nodes
+ * are decided one after the other with the random number generator of the
+ * controller. Otherwise the nodes are decided concurrently on a fork-join
+ * pool, and every node draws from a generator of its own, seeded by the seed
+ * of the simulation and the index of the node, so the decisions are the same
+ * for any number of threads. The pools are shared by all controllers that
+ * decide on the same number of threads, so controllers and simulations that
+ * are replaced leave no threads behind.
+ *
+ * @author Group Algorithms
+ * @version 1.0
+ */
+public class NodeDecider {
+
+    protected final TLController tlc;
+    protected final PerNodeTLC decider;
+    protected Random[] nodeRandoms;		// The generators of the nodes when there are decision threads
+    protected Infrastructure randomsInfra;	// The infrastructure the generators were made for
+    protected static final HashMap<Integer, ForkJoinPool> pools = new HashMap<>();	// By number of threads
+
+    public <T extends TLController & PerNodeTLC> NodeDecider(T tlc) {
+        this.tlc = tlc;
+        this.decider = tlc;
+    }
+
+    /**
+     * Decides every node of the controller
+     *
+     * @param random The random number generator of the controller
+     */
+    public void decideNodes(Random random) {
+        int numNodes = tlc.tld.length;
+        int threads = tlc.getDecisionThreads();
+        if (threads <= 0) {
+            for (int i = 0; i < numNodes; i++) {
+                decider.decideNode(i, random);
+            }
+            return;
+        }
+        if (nodeRandoms == null || randomsInfra != tlc.infra || nodeRandoms.length != numNodes) {
+            long seed = tlc.infra.getContext().getSeed();
+            nodeRandoms = new Random[numNodes];
+            for (int i = 0; i < numNodes; i++) {
+                nodeRandoms[i] = new Random(seed + 0x9e3779b97f4a7c15L * (i + 1));
+            }
+            randomsInfra = tlc.infra;
+        }
+        if (threads == 1) {
+            for (int i = 0; i < numNodes; i++) {
+                decider.decideNode(i, nodeRandoms[i]);
+            }
+        } else {
+            getPool(threads).invoke(new Range(0, numNodes, Math.max(1, numNodes / (4 * threads))));
+        }
+    }
+
+    /**
+     * Asks the driving policy where every waiting roaduser goes, in the order
+     * a serial decision would. Controllers that ask for directions in
+     * decideNode call this before deciding the nodes concurrently: the driving
+     * policy remembers the directions, so the random numbers it draws do not
+     * depend on the order the threads ask in.
+     */
+    public void askDirections() {
+        DrivingPolicy dp = tlc.infra.getContext().getDrivingPolicy();
+        for (TLDecision[] decisions : tlc.tld) {
+            for (TLDecision decision : decisions) {
+                Sign tl = decision.getTL();
+                DriveLane lane = tl.getLane();
+                int waitingsize = lane.getNumRoadusersWaiting();
+                ListIterator<Roaduser> queue = lane.getQueue().listIterator();
+                for (int k = 0; k < waitingsize; k++) {
+                    try {
+                        dp.getDirection(queue.next(), lane, tl.getNode());
+                    } catch (InfraException e) {
+                        // Reported again when the node is decided
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the pool the nodes are decided on with the given number of
+     * threads, it is created when it is first needed
+     */
+    protected static synchronized ForkJoinPool getPool(int threads) {
+        ForkJoinPool pool = pools.get(threads);
+        if (pool == null) {
+            pool = new ForkJoinPool(threads);
+            pools.put(threads, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Decides a range of nodes, splitting it in halves until the ranges are
+     * small enough
+     */
+    protected class Range extends RecursiveAction {
+
+        protected int from, to, grain;
+
+        public Range(int from, int to, int grain) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    decider.decideNode(i, nodeRandoms[i]);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Range(from, middle, grain), new Range(middle, to, grain));
+            }
+        }
+    }
+}
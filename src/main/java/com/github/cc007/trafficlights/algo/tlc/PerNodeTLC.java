@@ -0,0 +1,39 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.tlc;
+
+import java.util.Random;
+
+/**
+ *
+ * A traffic light controller that decides for every node on its own. Its
+ * decideTLs lets a NodeDecider call decideNode for every node, which can then
+ * happen concurrently.
+ *
+ * @author Group Algorithms
+ * @version 1.0
+ */
+public interface PerNodeTLC {
+
+    /**
+     * Calculates how the traffic lights of one node should be switched. It may
+     * be called concurrently for different nodes, so it should only change
+     * the decisions of the node.
+     *
+     * @param node The index of the node in the decision array
+     * @param random The random number generator to use for the node
+     */
+    public void decideNode(int node, Random random);
+}
@@ -0,0 +1,107 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.tlc;
+
+import java.util.ArrayList;
+
+/**
+ *
+ * A reusable list of the possible moves of a roaduser. The moves are kept as
+ * packed (tlId, pos) pairs in an int array. The PosMov array given to the TLC
+ * is reused as well: there is one array for every length, filled with PosMov
+ * objects that are overwritten the next time.
+ * <p>
+ * The arrays returned by getPosMovs are only valid until the buffer is
+ * cleared, use copyOf to keep them longer.
+ *
+ * @author Group Algorithms
+ * @version 1.0
+ */
+public class PosMovBuffer {
+
+    /**
+     * moves[2 * i] is the tlId and moves[2 * i + 1] the position of move i
+     */
+    protected int[] moves = new int[32];
+    protected int size = 0;
+    /**
+     * views.get(n) is the PosMov array of length n
+     */
+    protected ArrayList<PosMov[]> views = new ArrayList<>();
+
+    /**
+     * Removes all moves
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a possible move
+     */
+    public void add(int tlId, int pos) {
+        if (2 * size + 1 >= moves.length) {
+            int[] newMoves = new int[moves.length * 2];
+            System.arraycopy(moves, 0, newMoves, 0, 2 * size);
+            moves = newMoves;
+        }
+        moves[2 * size] = tlId;
+        moves[2 * size + 1] = pos;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getTlId(int index) {
+        return moves[2 * index];
+    }
+
+    public int getPos(int index) {
+        return moves[2 * index + 1];
+    }
+
+    /**
+     * Returns the moves as a PosMov array of the exact length. The array and
+     * its PosMovs are reused by this buffer.
+     */
+    public PosMov[] getPosMovs() {
+        while (views.size() <= size) {
+            PosMov[] view = new PosMov[views.size()];
+            for (int i = 0; i < view.length; i++) {
+                view[i] = new PosMov(0, 0);
+            }
+            views.add(view);
+        }
+        PosMov[] view = views.get(size);
+        for (int i = 0; i < size; i++) {
+            view[i].tlId = moves[2 * i];
+            view[i].pos = moves[2 * i + 1];
+        }
+        return view;
+    }
+
+    /**
+     * Returns a new array with new PosMovs equal to the given ones
+     */
+    public static PosMov[] copyOf(PosMov[] posMovs) {
+        PosMov[] copy = new PosMov[posMovs.length];
+        for (int i = 0; i < posMovs.length; i++) {
+            copy[i] = new PosMov(posMovs[i].tlId, posMovs[i].pos);
+        }
+        return copy;
+    }
+}
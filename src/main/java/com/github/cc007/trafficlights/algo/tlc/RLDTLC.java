@@ -82,6 +82,12 @@ public class RLDTLC extends TLController
 	public void updateRoaduserMove(Roaduser _ru, DriveLane _prevlane, Sign _prevsign, int _prevpos, DriveLane _dlanenow, Sign _signnow, int _posnow, PosMov[] posMovs, DriveLane desired)
 	{    // No needed
 	}
+
+@Override
+	public boolean usesPosMovs()
+	{
+		return false;
+	}
 	
 	// XMLSerializable implementation
 @Override
@@ -41,7 +41,7 @@ public class RandomTLC extends TLController
 
 	public RandomTLC(Infrastructure infra)
 	{ 	super(infra);
-	  	seed=new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+	  	seed=new Random(infra.getContext().getSeed());
 		num_nodes = tld.length;
 	}
 
@@ -74,6 +74,12 @@ public class RandomTLC extends TLController
 	{
 	}
 
+@Override
+	public boolean usesPosMovs()
+	{
+		return false;
+	}
+
 	// XMLSerializable implementation
 
 @Override
@@ -19,6 +19,7 @@ package com.github.cc007.trafficlights.algo.tlc;
 import com.github.cc007.trafficlights.algo.tlc.*;
 import com.github.cc007.trafficlights.infra.*;
 import com.github.cc007.trafficlights.xml.*;
+import java.util.Random;
 
 /**
  * This controller will switch TrafficLights so that the Trafficlight 
@@ -27,10 +28,11 @@ import com.github.cc007.trafficlights.xml.*;
  * @author Group Algorithms
  * @version 1.0
  */
-public class RelativeLongestQueueTLC extends TLController
+public class RelativeLongestQueueTLC extends TLController implements PerNodeTLC
 {	
 	protected int num_nodes;
 	public static final String shortXMLName="tlc-rlq";
+	protected final NodeDecider nodeDecider = new NodeDecider(this);
 	
 	/**
 	 * The constructor for TL controllers
@@ -53,26 +55,35 @@ public class RelativeLongestQueueTLC extends TLController
 	 */	
     @Override
 	public TLDecision[][] decideTLs()
+	{
+		nodeDecider.decideNodes(null);
+		return tld;
+	}
+
+
+    @Override
+	public void decideNode(int i, Random random)
 	{
 		TLDecision tldec;
 		DriveLane lane;
-		int num_lanes;
-		
-		for (int i=0; i < num_nodes; i++) {
-			num_lanes = tld[i].length;
-			for(int j=0; j < num_lanes; j++) {
-				tldec = tld[i][j];
-				lane = tldec.getTL().getLane();
-				tldec.setGain(((float)lane.getNumBlocksWaiting())/((float)lane.getLength()));
-			}
+		int num_lanes = tld[i].length;
+		for(int j=0; j < num_lanes; j++) {
+			tldec = tld[i][j];
+			lane = tldec.getTL().getLane();
+			tldec.setGain(((float)lane.getNumBlocksWaiting())/((float)lane.getLength()));
 		}
-		return tld;
 	}
 
     @Override
 	public void updateRoaduserMove(Roaduser _ru, DriveLane _prevlane, Sign _prevsign, int _prevpos, DriveLane _dlanenow, Sign _signnow, int _posnow, PosMov[] posMovs, DriveLane desired)
 	{    // No needed
 	}
+
+    @Override
+	public boolean usesPosMovs()
+	{
+		return false;
+	}
 	
 	// Trivial XMLSerializable implementation
 
@@ -35,7 +35,7 @@ import java.util.*;
  * @author Arne K, Jilles V, Søren Louring
  * @version 1.1
  */
-public class SL2TLC extends TCRL implements InstantiationAssistant {
+public class SL2TLC extends TCRL implements InstantiationAssistant, PerNodeTLC {
 
     protected Infrastructure infrastructure;
     protected TrafficLight[][] tls;
@@ -51,6 +51,8 @@ public class SL2TLC extends TCRL implements InstantiationAssistant {
     protected final static int green_index = 0, red_index = 1;
     protected final static String shortXMLName = "tlc-sl2";
     private Random random_number;
+    protected boolean do_this_random;	// Whether the gains are set randomly in this cycle
+    protected final NodeDecider nodeDecider = new NodeDecider(this);
 
     protected float time_step = 0;
 
@@ -92,7 +94,7 @@ public class SL2TLC extends TCRL implements InstantiationAssistant {
         System.out.println("tl = " + numSigns);
         System.out.println("des = " + num_specialnodes);
         System.out.println("Alpha = " + alpha);
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     @Override
@@ -125,11 +127,8 @@ public class SL2TLC extends TCRL implements InstantiationAssistant {
      */
     @Override
     public TLDecision[][] decideTLs() {
-        int num_dec;
-        int num_tld = tld.length;
-
         //Determine wheter it should be random or not
-        boolean do_this_random = false;
+        do_this_random = false;
 
         time_step++;
         random_chance = (1.0f / ((float) Math.sqrt(time_step)));
@@ -138,33 +137,37 @@ public class SL2TLC extends TCRL implements InstantiationAssistant {
             do_this_random = true;
         }
 
-        for (int i = 0; i < num_tld; i++) {
-            num_dec = tld[i].length;
-            for (int j = 0; j < num_dec; j++) {
-                Sign currenttl = tld[i][j].getTL();
-                float gain = 0;
+        nodeDecider.decideNodes(random_number);
+        return tld;
+    }
 
-                DriveLane currentlane = currenttl.getLane();
-                int waitingsize = currentlane.getNumRoadusersWaiting();
-                Iterator<Roaduser> queue = currentlane.getQueue().iterator();
 
-                if (!do_this_random) {
-                    for (; waitingsize > 0; waitingsize--) {
-                        Roaduser ru = queue.next();
-                        int pos = ru.getPosition();
-                        Node destination = ru.getDestNode();
-                        gain += q_table[currenttl.getId()][pos][destination.getId()][1] - q_table[currenttl.getId()][pos][destination.getId()][0];  //red - green
-                        // System.out.println(gain + " ");
-                    }
-                    float q = gain;
-                } else {
-                    gain = random_number.nextFloat();
+    @Override
+    public void decideNode(int i, Random random) {
+        int num_dec = tld[i].length;
+        for (int j = 0; j < num_dec; j++) {
+            Sign currenttl = tld[i][j].getTL();
+            float gain = 0;
+
+            DriveLane currentlane = currenttl.getLane();
+            int waitingsize = currentlane.getNumRoadusersWaiting();
+            Iterator<Roaduser> queue = currentlane.getQueue().iterator();
+
+            if (!do_this_random) {
+                for (; waitingsize > 0; waitingsize--) {
+                    Roaduser ru = queue.next();
+                    int pos = ru.getPosition();
+                    Node destination = ru.getDestNode();
+                    gain += q_table[currenttl.getId()][pos][destination.getId()][1] - q_table[currenttl.getId()][pos][destination.getId()][0];  //red - green
+                    // System.out.println(gain + " ");
                 }
-
-                tld[i][j].setGain(gain);
+                float q = gain;
+            } else {
+                gain = random.nextFloat();
             }
+
+            tld[i][j].setGain(gain);
         }
-        return tld;
     }
 
     @Override
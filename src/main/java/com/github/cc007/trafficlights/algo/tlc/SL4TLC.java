@@ -36,7 +36,7 @@ import java.util.*;
  * @author Arne K, Jilles V, Søren Louring
  * @version 1.1
  */
-public class SL4TLC extends TCRL implements InstantiationAssistant {
+public class SL4TLC extends TCRL implements InstantiationAssistant, PerNodeTLC {
 
     protected Infrastructure infrastructure;
     protected TrafficLight[][] tls;
@@ -52,6 +52,8 @@ public class SL4TLC extends TCRL implements InstantiationAssistant {
     protected final static int green_index = 0, red_index = 1;
     protected final static String shortXMLName = "tlc-sl4";
     private Random random_number;
+    protected boolean do_this_random;	// Whether the gains are set randomly in this cycle
+    protected final NodeDecider nodeDecider = new NodeDecider(this);
 
     /**
      * The constructor for TL controllers
@@ -90,7 +92,7 @@ public class SL4TLC extends TCRL implements InstantiationAssistant {
         }
         System.out.println("Startet med Alpha = " + alpha);
 
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     @Override
@@ -123,44 +125,45 @@ public class SL4TLC extends TCRL implements InstantiationAssistant {
      */
     @Override
     public TLDecision[][] decideTLs() {
-        int num_dec;
-        int num_tld = tld.length;
-
         //Determine wheter it should be random or not
-        boolean do_this_random = false;
+        do_this_random = false;
         if (random_number.nextFloat() < random_chance) {
             do_this_random = true;
         }
 
-        for (int i = 0; i < num_tld; i++) {
-            num_dec = tld[i].length;
-            for (int j = 0; j < num_dec; j++) {
-                Sign currenttl = tld[i][j].getTL();
-                float gain = 0;
-                float tempGain = 0;
-
-                DriveLane currentlane = currenttl.getLane();
-                int waitingsize = currentlane.getNumRoadusersWaiting();
-                ListIterator queue = currentlane.getQueue().listIterator();
-
-                if (!do_this_random) {
-                    for (; waitingsize > 0; waitingsize--) {
-                        Roaduser ru = (Roaduser) queue.next();
-                        int pos = ru.getPosition();
-                        Node destination = ru.getDestNode();
-                        // And here are the additions to the code
-                        tempGain = q_table[currenttl.getId()][pos][destination.getId()][1] - q_table[currenttl.getId()][pos][destination.getId()][0]; //red - green
-                        gain += (tempGain * tempGain);  //(red - green)^2
-                    }
-                    float q = gain;
-                } else {
-                    gain = random_number.nextFloat();
-                }
+        nodeDecider.decideNodes(random_number);
+        return tld;
+    }
+
 
-                tld[i][j].setGain(gain);
+    @Override
+    public void decideNode(int i, Random random) {
+        int num_dec = tld[i].length;
+        for (int j = 0; j < num_dec; j++) {
+            Sign currenttl = tld[i][j].getTL();
+            float gain = 0;
+            float tempGain = 0;
+
+            DriveLane currentlane = currenttl.getLane();
+            int waitingsize = currentlane.getNumRoadusersWaiting();
+            ListIterator queue = currentlane.getQueue().listIterator();
+
+            if (!do_this_random) {
+                for (; waitingsize > 0; waitingsize--) {
+                    Roaduser ru = (Roaduser) queue.next();
+                    int pos = ru.getPosition();
+                    Node destination = ru.getDestNode();
+                    // And here are the additions to the code
+                    tempGain = q_table[currenttl.getId()][pos][destination.getId()][1] - q_table[currenttl.getId()][pos][destination.getId()][0]; //red - green
+                    gain += (tempGain * tempGain);  //(red - green)^2
+                }
+                float q = gain;
+            } else {
+                gain = random.nextFloat();
             }
+
+            tld[i][j].setGain(gain);
         }
-        return tld;
     }
 
     @Override
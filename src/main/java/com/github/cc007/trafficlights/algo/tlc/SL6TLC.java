@@ -35,7 +35,7 @@ import java.util.*;
  * @author Arne K, Jilles V and Søren Louring
  * @version 1.2
  */
-public class SL6TLC extends TCRL implements InstantiationAssistant {
+public class SL6TLC extends TCRL implements InstantiationAssistant, PerNodeTLC {
 
     protected Infrastructure infrastructure;
     protected TrafficLight[][] tls;
@@ -53,6 +53,8 @@ public class SL6TLC extends TCRL implements InstantiationAssistant {
     protected final static int green_index = 0, red_index = 1;
     protected final static String shortXMLName = "tlc-sl6";
     private Random random_number;
+    protected boolean do_this_random;	// Whether the gains are set randomly in this cycle
+    protected final NodeDecider nodeDecider = new NodeDecider(this);
 
     protected float time_step = 0;
     protected Node[] MY_nodes;
@@ -110,7 +112,7 @@ public class SL6TLC extends TCRL implements InstantiationAssistant {
         System.out.println("tl = " + numSigns);
         System.out.println("des = " + num_specialnodes);
         System.out.println("Alpha = " + alpha);
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     @Override
@@ -146,41 +148,42 @@ public class SL6TLC extends TCRL implements InstantiationAssistant {
      */
     @Override
     public TLDecision[][] decideTLs() {
-        int num_dec;
-        int num_tld = tld.length;
-
         //Determine wheter it should be random or not
-        boolean do_this_random = false;
+        do_this_random = false;
         if (random_number.nextFloat() < random_chance) {
             do_this_random = true;
         }
 
-        for (int i = 0; i < num_tld; i++) {
-            num_dec = tld[i].length;
-            for (int j = 0; j < num_dec; j++) {
-                Sign currenttl = tld[i][j].getTL();
-                float gain = 0;
+        nodeDecider.decideNodes(random_number);
+        return tld;
+    }
 
-                DriveLane currentlane = currenttl.getLane();
-                int waitingsize = currentlane.getNumRoadusersWaiting();
-                ListIterator queue = currentlane.getQueue().listIterator();
 
-                if (!do_this_random) {
-                    for (; waitingsize > 0; waitingsize--) {
-                        Roaduser ru = (Roaduser) queue.next();
-                        int pos = ru.getPosition();
-                        Node destination = ru.getDestNode();
-                        gain += q_table[currenttl.getId()][pos][destination.getId()][1] - q_table[currenttl.getId()][pos][destination.getId()][0];  //red - green
-                    }
-                    float q = gain;
-                } else {
-                    gain = random_number.nextFloat();
+    @Override
+    public void decideNode(int i, Random random) {
+        int num_dec = tld[i].length;
+        for (int j = 0; j < num_dec; j++) {
+            Sign currenttl = tld[i][j].getTL();
+            float gain = 0;
+
+            DriveLane currentlane = currenttl.getLane();
+            int waitingsize = currentlane.getNumRoadusersWaiting();
+            ListIterator queue = currentlane.getQueue().listIterator();
+
+            if (!do_this_random) {
+                for (; waitingsize > 0; waitingsize--) {
+                    Roaduser ru = (Roaduser) queue.next();
+                    int pos = ru.getPosition();
+                    Node destination = ru.getDestNode();
+                    gain += q_table[currenttl.getId()][pos][destination.getId()][1] - q_table[currenttl.getId()][pos][destination.getId()][0];  //red - green
                 }
-
-                tld[i][j].setGain(gain);
+                float q = gain;
+            } else {
+                gain = random.nextFloat();
             }
+
+            tld[i][j].setGain(gain);
         }
-        return tld;
     }
 
     @Override
@@ -20,7 +20,6 @@ import com.github.cc007.trafficlights.algo.tlc.*;
 import com.github.cc007.trafficlights.infra.*;
 import com.github.cc007.trafficlights.xml.*;
 import com.github.cc007.trafficlights.utils.*;
-import com.github.cc007.trafficlights.GLDSim;
 
 import java.io.IOException;
 import java.util.Random;
@@ -60,7 +59,7 @@ public class SignController implements XMLSerializable
 		tlcontroller = t;
 		infra = i;
 		num_nodes = i.getNumNodes();
-		generator = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+		generator = new Random(i.getContext().getSeed());
 		/*chosenConfigs = new int[i.getAllNodes().length];
 		for (int j=0; j<chosenConfigs.length; j++) chosenConfigs[j]=-1; // This should be done, otherwise all chosenConfigs are 0. This leads to problems, when config 0 is the first time the best config.*/
 		currentSC = new Sign[num_nodes][0];
@@ -136,7 +135,7 @@ public class SignController implements XMLSerializable
 			}
 		}
 
-		Random random = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]) ;
+		Random random = new Random(infra.getContext().getSeed()) ;
 		boolean deadlock = true ;//All roads are waiting for eachother
 		int choosenRoad = -1 ;
 		//length is always 4
@@ -0,0 +1,148 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.tlc;
+
+import com.github.cc007.trafficlights.infra.DriveLane;
+import com.github.cc007.trafficlights.infra.InfraException;
+import com.github.cc007.trafficlights.infra.Infrastructure;
+import com.github.cc007.trafficlights.infra.Node;
+import java.util.Arrays;
+
+/**
+ *
+ * Numbers the situations a roaduser can be in for the learning traffic light
+ * controllers. A slot is a position on the lane of a sign, a situation is a
+ * slot together with a destination and, for controllers that need it, an
+ * extra state like the congestion of the lane. The slots of every sign follow
+ * each other, with as many slots as the complete length of its lane.
+ *
+ * @author Group Algorithms
+ * @version 1.0
+ */
+public class SituationLayout {
+
+    protected int[] offsets;	// The first slot of every sign, and the number of slots at the end
+    protected int numDestinations, numStates, numSituations;
+
+    /**
+     * Creates the layout of the given infrastructure with one state per
+     * situation
+     */
+    public SituationLayout(Infrastructure infra) throws InfraException {
+        this(infra, 1);
+    }
+
+    /**
+     * Creates the layout of the given infrastructure
+     *
+     * @param infra The infrastructure
+     * @param numStates The number of extra states every (sign, position,
+     * destination) can be in
+     * @throws ArithmeticException if there are more situations than fit in an
+     * int
+     */
+    public SituationLayout(Infrastructure infra, int numStates) throws InfraException {
+        int numSigns = infra.getAllInboundLanes().size();
+        int[] lengths = new int[numSigns];
+        for (Node node : infra.getAllNodes()) {
+            for (DriveLane lane : node.getInboundLanes()) {
+                lengths[lane.getSign().getId()] = lane.getCompleteLength();
+            }
+        }
+        offsets = new int[numSigns + 1];
+        for (int i = 0; i < numSigns; i++) {
+            offsets[i + 1] = Math.addExact(offsets[i], lengths[i]);
+        }
+        this.numDestinations = infra.getNumSpecialNodes();
+        this.numStates = numStates;
+        numSituations = Math.multiplyExact(Math.multiplyExact(offsets[numSigns], numDestinations), numStates);
+    }
+
+    public int getNumSigns() {
+        return offsets.length - 1;
+    }
+
+    public int getNumPositions(int sign) {
+        return offsets[sign + 1] - offsets[sign];
+    }
+
+    public int getNumDestinations() {
+        return numDestinations;
+    }
+
+    public int getNumStates() {
+        return numStates;
+    }
+
+    /**
+     * Returns the number of positions on all signs together
+     */
+    public int getNumSlots() {
+        return offsets[offsets.length - 1];
+    }
+
+    public int getNumSituations() {
+        return numSituations;
+    }
+
+    /**
+     * Returns the slot of a position on the lane of a sign
+     */
+    public int getSlot(int sign, int pos) {
+        return offsets[sign] + pos;
+    }
+
+    /**
+     * Returns the sign a slot belongs to
+     */
+    public int getSignOfSlot(int slot) {
+        int sign = Arrays.binarySearch(offsets, slot);
+        if (sign < 0) {
+            return -sign - 2;
+        }
+        // Skip the signs without positions that start at the same slot
+        while (offsets[sign + 1] == slot) {
+            sign++;
+        }
+        return sign;
+    }
+
+    /**
+     * Returns the position of a slot on the lane of its sign
+     */
+    public int getPositionOfSlot(int slot) {
+        return slot - offsets[getSignOfSlot(slot)];
+    }
+
+    public int getSituation(int sign, int pos, int des) {
+        return getSituation(sign, pos, des, 0);
+    }
+
+    public int getSituation(int sign, int pos, int des, int state) {
+        return ((offsets[sign] + pos) * numDestinations + des) * numStates + state;
+    }
+
+    public int getSlotOfSituation(int situation) {
+        return situation / numStates / numDestinations;
+    }
+
+    public int getDestinationOfSituation(int situation) {
+        return situation / numStates % numDestinations;
+    }
+
+    public int getStateOfSituation(int situation) {
+        return situation % numStates;
+    }
+}
@@ -0,0 +1,199 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.tlc;
+
+import java.lang.reflect.Array;
+
+/**
+ *
+ * A table of float values for every situation of a SituationLayout, like the
+ * Q and V values of the learning traffic light controllers. All values are
+ * kept in one float array, with the values of a situation next to each other.
+ *
+ * For saving, the table can be turned into the nested arrays the controllers
+ * used to keep, indexed by sign, position, destination, state (if there is
+ * more than one) and value (if there is more than one).
+ *
+ * @author Group Algorithms
+ * @version 1.0
+ */
+public class SituationTable {
+
+    protected SituationLayout layout;
+    protected int stride;		// The number of values per situation
+    protected float[] values;
+
+    /**
+     * Creates a table with one value per situation, all 0
+     */
+    public SituationTable(SituationLayout layout) {
+        this(layout, 1);
+    }
+
+    /**
+     * Creates a table with the given number of values per situation, all 0
+     *
+     * @throws ArithmeticException if the values do not fit in one array
+     */
+    public SituationTable(SituationLayout layout, int stride) {
+        this(layout, stride, true);
+    }
+
+    /**
+     * Creates a table, with or without the array that keeps the values, for
+     * subclasses that keep their values in another way
+     */
+    protected SituationTable(SituationLayout layout, int stride, boolean allocate) {
+        this.layout = layout;
+        this.stride = stride;
+        if (allocate) {
+            values = new float[Math.multiplyExact(layout.getNumSituations(), stride)];
+        }
+    }
+
+    public SituationLayout getLayout() {
+        return layout;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    public float get(int situation) {
+        return values[situation * stride];
+    }
+
+    public float get(int situation, int index) {
+        return values[situation * stride + index];
+    }
+
+    public void set(int situation, float value) {
+        values[situation * stride] = value;
+    }
+
+    public void set(int situation, int index, float value) {
+        values[situation * stride + index] = value;
+    }
+
+    /**
+     * Returns an estimate of the number of bytes the values take up
+     */
+    public long getFootprint() {
+        return 16 + 4L * values.length;
+    }
+
+    /**
+     * Returns the values as nested arrays, the way they are saved
+     */
+    public Object toArray() {
+        Class<?> desType = getValuesType();
+        Class<?> posType = Array.newInstance(desType, 0).getClass();
+        Class<?> signType = Array.newInstance(posType, 0).getClass();
+        Object signs = Array.newInstance(signType, layout.getNumSigns());
+        for (int sign = 0; sign < layout.getNumSigns(); sign++) {
+            Object positions = Array.newInstance(posType, layout.getNumPositions(sign));
+            for (int pos = 0; pos < layout.getNumPositions(sign); pos++) {
+                Object destinations = Array.newInstance(desType, layout.getNumDestinations());
+                for (int des = 0; des < layout.getNumDestinations(); des++) {
+                    Array.set(destinations, des, toArray(layout.getSituation(sign, pos, des)));
+                }
+                Array.set(positions, pos, destinations);
+            }
+            Array.set(signs, sign, positions);
+        }
+        return signs;
+    }
+
+    /**
+     * Copies the values from nested arrays, the way they are saved
+     */
+    public void fromArray(Object array) {
+        for (int sign = 0; sign < layout.getNumSigns(); sign++) {
+            Object positions = Array.get(array, sign);
+            for (int pos = 0; pos < layout.getNumPositions(sign); pos++) {
+                Object destinations = Array.get(positions, pos);
+                for (int des = 0; des < layout.getNumDestinations(); des++) {
+                    fromArray(layout.getSituation(sign, pos, des), Array.get(destinations, des));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the values of the states of a (sign, position, destination)
+     */
+    protected Object toArray(int situation) {
+        int numStates = layout.getNumStates();
+        if (numStates == 1) {
+            return stride == 1 ? (Object) get(situation) : getValues(situation);
+        }
+        if (stride == 1) {
+            float[] states = new float[numStates];
+            for (int state = 0; state < numStates; state++) {
+                states[state] = get(situation + state);
+            }
+            return states;
+        }
+        float[][] states = new float[numStates][];
+        for (int state = 0; state < numStates; state++) {
+            states[state] = getValues(situation + state);
+        }
+        return states;
+    }
+
+    protected void fromArray(int situation, Object array) {
+        int numStates = layout.getNumStates();
+        if (numStates == 1) {
+            if (stride == 1) {
+                set(situation, (Float) array);
+            } else {
+                setValues(situation, (float[]) array);
+            }
+        } else if (stride == 1) {
+            for (int state = 0; state < numStates; state++) {
+                set(situation + state, ((float[]) array)[state]);
+            }
+        } else {
+            for (int state = 0; state < numStates; state++) {
+                setValues(situation + state, ((float[][]) array)[state]);
+            }
+        }
+    }
+
+    protected float[] getValues(int situation) {
+        float[] result = new float[stride];
+        for (int i = 0; i < stride; i++) {
+            result[i] = get(situation, i);
+        }
+        return result;
+    }
+
+    protected void setValues(int situation, float[] array) {
+        for (int i = 0; i < stride; i++) {
+            set(situation, i, array[i]);
+        }
+    }
+
+    /**
+     * Returns the type of the values of one (sign, position, destination) in
+     * the nested arrays
+     */
+    protected Class<?> getValuesType() {
+        if (layout.getNumStates() == 1) {
+            return stride == 1 ? float.class : float[].class;
+        }
+        return stride == 1 ? float[].class : float[][].class;
+    }
+}
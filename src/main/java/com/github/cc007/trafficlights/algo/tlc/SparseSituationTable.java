@@ -0,0 +1,123 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.tlc;
+
+/**
+ *
+ * A SituationTable that only keeps the values of the situations that were
+ * written to. The situations are split into pages, and a page is only
+ * allocated when one of its values is set to something other than 0. The
+ * values of the other pages are 0, just like in a new SituationTable.
+ *
+ * For every page the table remembers when it was last written to, so the
+ * pages that were not used for the longest time can be evicted when the
+ * tables take up too much memory (see TableMemory).
+ *
+ * @author Group Algorithms
+ * @version 1.0
+ */
+public class SparseSituationTable extends SituationTable {
+
+    public static final int PAGE_BITS = 8;
+    public static final int PAGE_SIZE = 1 << PAGE_BITS;	// The number of situations per page
+    protected static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    protected float[][] pages;
+    protected int[] lastUse;		// The clock at the last write to every page
+    protected int numAllocated, clock;
+
+    public SparseSituationTable(SituationLayout layout) {
+        this(layout, 1);
+    }
+
+    public SparseSituationTable(SituationLayout layout, int stride) {
+        super(layout, stride, false);
+        int numPages = (int) (((long) layout.getNumSituations() + PAGE_MASK) >> PAGE_BITS);
+        pages = new float[numPages][];
+        lastUse = new int[numPages];
+    }
+
+    @Override
+    public float get(int situation) {
+        return get(situation, 0);
+    }
+
+    @Override
+    public float get(int situation, int index) {
+        float[] page = pages[situation >>> PAGE_BITS];
+        return page == null ? 0 : page[(situation & PAGE_MASK) * stride + index];
+    }
+
+    @Override
+    public void set(int situation, float value) {
+        set(situation, 0, value);
+    }
+
+    @Override
+    public void set(int situation, int index, float value) {
+        int p = situation >>> PAGE_BITS;
+        float[] page = pages[p];
+        if (page == null) {
+            if (Float.floatToRawIntBits(value) == 0) {
+                return;		// Already 0
+            }
+            page = pages[p] = new float[PAGE_SIZE * stride];
+            numAllocated++;
+        }
+        lastUse[p] = clock;
+        page[(situation & PAGE_MASK) * stride + index] = value;
+    }
+
+    @Override
+    public long getFootprint() {
+        return 32 + 8L * pages.length + (16 + 4L * PAGE_SIZE * stride) * numAllocated;
+    }
+
+    /**
+     * Sets the time that is remembered for the pages written to from now on
+     */
+    public void setClock(int clock) {
+        this.clock = clock;
+    }
+
+    public int getNumPages() {
+        return pages.length;
+    }
+
+    public int getNumAllocatedPages() {
+        return numAllocated;
+    }
+
+    public boolean isAllocated(int page) {
+        return pages[page] != null;
+    }
+
+    /**
+     * Returns the clock at the last write to the page
+     */
+    public int getLastUse(int page) {
+        return lastUse[page];
+    }
+
+    /**
+     * Sets all values of the page back to 0 and frees its memory
+     */
+    public void evict(int page) {
+        if (pages[page] != null) {
+            pages[page] = null;
+            numAllocated--;
+        }
+    }
+}
@@ -123,7 +123,7 @@ public class TC1B1 extends TCRL implements Colearning, InstantiationAssistant {
                 Logger.getLogger(TC1B1.class.getName()).log(Level.SEVERE, null, e);
         }
         System.out.println("TC1TLCOpt2 datastructure created");
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
@@ -233,6 +233,11 @@ public class TC1B1 extends TCRL implements Colearning, InstantiationAssistant {
         }
     }
 
+    @Override
+    public boolean readsLanesOnMove() {
+        return true;
+    }
+
     /**
      * Empties the 'gain-value' bucket partly, which is being filled when
      * Roadusers are waiting/voting for their TrafficLight to be set to green.
@@ -114,7 +114,7 @@ public class TC1TLCDestless extends TCRL implements Colearning, InstantiationAss
         } catch (Exception e) {
             Logger.getLogger(TC1TLCDestless.class.getName()).log(Level.SEVERE, null, e);
         }
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
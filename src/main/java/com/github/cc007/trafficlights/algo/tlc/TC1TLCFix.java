@@ -111,7 +111,7 @@ public class TC1TLCFix extends TCRL implements Colearning, InstantiationAssistan
         } catch (Exception e) {
             Logger.getLogger(TC1TLCFix.class.getName()).log(Level.SEVERE, null, e);
         }
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
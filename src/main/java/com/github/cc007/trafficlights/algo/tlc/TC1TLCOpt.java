@@ -37,7 +37,7 @@ import java.util.logging.Logger;
  * @author Arne K, Jilles V
  * @version 2.0
  */
-public class TC1TLCOpt extends TCRL implements Colearning, InstantiationAssistant, HECinterface {
+public class TC1TLCOpt extends TCRL implements Colearning, InstantiationAssistant, HECinterface, PerNodeTLC {
     // TLC vars
 
     protected Infrastructure infrastructure;
@@ -47,15 +47,18 @@ public class TC1TLCOpt extends TCRL implements Colearning, InstantiationAssistan
     protected boolean hecAddon;
 
     // TC1 vars
-    protected ArrayList count[][][], pTable[][][];
-    protected float[][][][] qTable; //sign, pos, des, color (red=0, green=1)
-    protected float[][][] vTable;
+    protected SituationLayout layout;
+    protected TransitionCounts counts;	// How often every transition ([tl,pos,des],L) -> [tl',pos'] has occurred
+    protected SituationTable qTable; //[sign, pos, des], color (green=0, red=1)
+    protected SituationTable vTable; //[sign, pos, des]
     protected static float gamma = 0.90f;				//Discount Factor; used to decrease the influence of previous V values, that's why: 0 < gamma < 1
     protected final static boolean red = false, green = true;
     protected final static int green_index = 0, red_index = 1;
     protected final static String shortXMLName = "tlc-tc1o1";
     protected static float random_chance = 0.01f;				//A random gain setting is chosen instead of the on the TLC dictates with this chance
     private Random random_number;
+    protected boolean randomrun;		// Whether the gains are set randomly in this cycle
+    protected final NodeDecider nodeDecider = new NodeDecider(this);
 
     /**
      * The constructor for TL controllers
@@ -73,48 +76,15 @@ public class TC1TLCOpt extends TCRL implements Colearning, InstantiationAssistan
             Node[] nodes = infra.getAllNodes();
             num_nodes = nodes.length;
 
-            int numSigns = infra.getAllInboundLanes().size();
-            qTable = new float[numSigns][][][];
-            vTable = new float[numSigns][][];
-            count = new ArrayList[numSigns][][];
-            pTable = new ArrayList[numSigns][][];
-
-            int num_specialnodes = infra.getNumSpecialNodes();
-            for (int i = 0; i < num_nodes; i++) {
-                Node n = nodes[i];
-                DriveLane[] dls = n.getInboundLanes();
-                for (int j = 0; j < dls.length; j++) {
-                    DriveLane d = dls[j];
-                    Sign s = d.getSign();
-                    int id = s.getId();
-                    int num_pos_on_dl = d.getCompleteLength();
-
-                    qTable[id] = new float[num_pos_on_dl][][];
-                    vTable[id] = new float[num_pos_on_dl][];
-                    count[id] = new ArrayList[num_pos_on_dl][];
-                    pTable[id] = new ArrayList[num_pos_on_dl][];
-
-                    for (int k = 0; k < num_pos_on_dl; k++) {
-                        qTable[id][k] = new float[num_specialnodes][];
-                        vTable[id][k] = new float[num_specialnodes];
-                        count[id][k] = new ArrayList[num_specialnodes];
-                        pTable[id][k] = new ArrayList[num_specialnodes];
-
-                        for (int l = 0; l < num_specialnodes; l++) {
-                            qTable[id][k][l] = new float[2];
-                            qTable[id][k][l][0] = 0.0f;
-                            qTable[id][k][l][1] = 0.0f;
-                            vTable[id][k][l] = 0.0f;
-                            count[id][k][l] = new ArrayList();
-                            pTable[id][k][l] = new ArrayList();
-                        }
-                    }
-                }
-            }
+            layout = new SituationLayout(infra);
+            qTable = tableMemory.createTable(layout, 2);
+            vTable = tableMemory.createTable(layout);
+            counts = tableMemory.createCounts(layout);
+            tableMemory.bindTables();
         } catch (Exception e) {
             Logger.getLogger(TC1TLCOpt.class.getName()).log(Level.SEVERE, null, e);
         }
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
@@ -133,69 +103,77 @@ public class TC1TLCOpt extends TCRL implements Colearning, InstantiationAssistan
 		 *  For each Roaduser waiting
 		 *   gain = gain + pf*(Q([tl,pos,des],red) - Q([tl,pos,des],green))
          */
-        int num_dec, waitingsize, pos, tlId, desId;
-        float gain, passenger_factor;
-        Sign tl;
-        DriveLane lane;
-        Roaduser ru;
-        ListIterator queue;
-        Node destination;
+        tableMemory.tick();
 
         //Determine wheter it should be random or not
-        boolean randomrun = false;
+        randomrun = false;
         if (random_number.nextFloat() < random_chance) {
             randomrun = true;
         }
 
-        // For all Nodes
-        for (int i = 0; i < num_nodes; i++) {
-            num_dec = tld[i].length;
-            // For all Trafficlights
-            for (int j = 0; j < num_dec; j++) {
-                tl = tld[i][j].getTL();
-                tlId = tl.getId();
-                lane = tld[i][j].getTL().getLane();
-
-                waitingsize = lane.getNumRoadusersWaiting();
-                queue = lane.getQueue().listIterator();
-                gain = 0;
-
-                // For each waiting Roaduser
-                for (int k = 0; k < waitingsize; k++) {
-                    ru = (Roaduser) queue.next();
-                    pos = ru.getPosition();
-                    desId = ru.getDestNode().getId();
-                    passenger_factor = ru.getNumPassengers();
-
-                    //HEC Addon: Congestion weight factor used in calculation of the gain.
-                    float congestion = (float) 1.0;
-                    if (hecAddon == true) {
-                        congestion = HEC.getCongestion(ru, lane, tl.getNode());
-                    }
+        if (hecAddon && decisionThreads > 0) {
+            nodeDecider.askDirections();
+        }
+        nodeDecider.decideNodes(random_number);
+        return tld;
+    }
 
-                    // Add the pf*(Q([tl,pos,des],red)-Q([tl,pos,des],green))
-                    gain += congestion * passenger_factor * (qTable[tlId][pos][desId][red_index] - qTable[tlId][pos][desId][green_index]);  //red - green
-                }
 
-                // Debug info generator
-                if (trackNode != -1 && i == trackNode) {
-                    DriveLane currentlane2 = tld[i][j].getTL().getLane();
-                    boolean[] targets = currentlane2.getTargets();
-                    System.out.println("node: " + i + " light: " + j + " gain: " + gain + " " + targets[0] + " " + targets[1] + " " + targets[2] + " " + currentlane2.getNumRoadusersWaiting());
-                }
+    @Override
+    public void decideNode(int i, Random random) {
+        int num_dec, waitingsize, pos, tlId, desId, situation;
+        float gain, passenger_factor;
+        Sign tl;
+        DriveLane lane;
+        Roaduser ru;
+        ListIterator queue;
 
-                // If this is a random run, set all gains randomly
-                if (randomrun) {
-                    gain = random_number.nextFloat();
+        num_dec = tld[i].length;
+        // For all Trafficlights
+        for (int j = 0; j < num_dec; j++) {
+            tl = tld[i][j].getTL();
+            tlId = tl.getId();
+            lane = tld[i][j].getTL().getLane();
+
+            waitingsize = lane.getNumRoadusersWaiting();
+            queue = lane.getQueue().listIterator();
+            gain = 0;
+
+            // For each waiting Roaduser
+            for (int k = 0; k < waitingsize; k++) {
+                ru = (Roaduser) queue.next();
+                pos = ru.getPosition();
+                desId = ru.getDestNode().getId();
+                situation = layout.getSituation(tlId, pos, desId);
+                passenger_factor = ru.getNumPassengers();
+
+                //HEC Addon: Congestion weight factor used in calculation of the gain.
+                float congestion = (float) 1.0;
+                if (hecAddon == true) {
+                    congestion = HEC.getCongestion(infra.getContext().getDrivingPolicy(), ru, lane, tl.getNode());
                 }
 
-                if (gain > 1000.0 || gain < -1000.0f) {
-                    System.out.println("Gain might be too high? : " + gain);
-                }
-                tld[i][j].setGain(gain);
+                // Add the pf*(Q([tl,pos,des],red)-Q([tl,pos,des],green))
+                gain += congestion * passenger_factor * (qTable.get(situation, red_index) - qTable.get(situation, green_index));  //red - green
+            }
+
+            // Debug info generator
+            if (trackNode != -1 && i == trackNode) {
+                DriveLane currentlane2 = tld[i][j].getTL().getLane();
+                boolean[] targets = currentlane2.getTargets();
+                System.out.println("node: " + i + " light: " + j + " gain: " + gain + " " + targets[0] + " " + targets[1] + " " + targets[2] + " " + currentlane2.getNumRoadusersWaiting());
+            }
+
+            // If this is a random run, set all gains randomly
+            if (randomrun) {
+                gain = random.nextFloat();
+            }
+
+            if (gain > 1000.0 || gain < -1000.0f) {
+                System.out.println("Gain might be too high? : " + gain);
             }
+            tld[i][j].setGain(gain);
         }
-        return tld;
     }
 
     @Override
@@ -216,58 +194,9 @@ public class TC1TLCOpt extends TCRL implements Colearning, InstantiationAssistan
     }
 
     protected void recalcP(int tlId, int pos, int desId, boolean light, int tlNewId, int posNew) {
-        // - First create a CountEntry, find if it exists, and if not add it.
-        CountEntry thisSituation = new CountEntry(tlId, pos, desId, light, tlNewId, posNew);
-        int c_index = count[tlId][pos][desId].indexOf(thisSituation);
-        if (c_index >= 0) {
-            // Entry found
-            thisSituation = (CountEntry) count[tlId][pos][desId].get(c_index);
-            thisSituation.incrementValue();
-        } else {
-            // Entry not found
-            count[tlId][pos][desId].add(thisSituation);
-        }
-
-        // We now know how often this exact situation has occurred
-        // - Calculate the chance
-        long sameSituation = thisSituation.getValue();
-        long sameStartSituation = 0;
-
-        CountEntry curC;
-        int num_c = count[tlId][pos][desId].size();
-        for (int i = 0; i < num_c; i++) {
-            curC = (CountEntry) count[tlId][pos][desId].get(i);
-            sameStartSituation += curC.sameStartSituation(thisSituation);
-        }
-
-        // - Update this chance
-        // Calculate the new P(L|(tl,pos,des))
-        // P(L|(tl,pos,des))	= P([tl,pos,des],L)/P([tl,pos,des])
-        //						= #([tl,pos,des],L)/#([tl,pos,des])
-        // Niet duidelijk of dit P([tl,p,d],L,[*,*]) of P([tl,p,d],L,[tl,d]) moet zijn
-        // Oftewel, kans op deze transitie of kans om te wachten!
-        PEntry thisChance = new PEntry(tlId, pos, desId, light, tlNewId, posNew);
-        int p_index = pTable[tlId][pos][desId].indexOf(thisChance);
-
-        if (p_index >= 0) {
-            thisChance = (PEntry) pTable[tlId][pos][desId].get(p_index);
-        } else {
-            pTable[tlId][pos][desId].add(thisChance);
-            p_index = pTable[tlId][pos][desId].indexOf(thisChance);
-        }
-
-        thisChance.setSameSituation(sameSituation);
-        thisChance.setSameStartSituation(sameStartSituation);
-
-        // - Update rest of the Chance Table
-        int num_p = pTable[tlId][pos][desId].size();
-        PEntry curP;
-        for (int i = 0; i < num_p; i++) {
-            curP = (PEntry) pTable[tlId][pos][desId].get(i);
-            if (curP.sameStartSituation(thisSituation) && i != p_index) {
-                curP.addSameStartSituation();
-            }
-        }
+        // Count this transition. The store keeps the total of its start situation as well,
+        // so P(L|(tl,pos,des)) = #([tl,pos,des],L)/#([tl,pos,des]) can be looked up directly.
+        counts.add(layout.getSituation(tlId, pos, desId), light, layout.getSlot(tlNewId, posNew));
     }
 
     protected void recalcQ(int tlId, int pos, int desId, boolean light, int tlNewId, int posNew, PosMov[] posMovs, int penalty) {	// Meneer Kaktus zegt: OK!
@@ -279,34 +208,34 @@ public class TC1TLCOpt extends TCRL implements Colearning, InstantiationAssistan
         PosMov curPosMov;
         int curPMTlId, curPMPos;
         float R = 0, V = 0, Q = penalty;
+        int situation = layout.getSituation(tlId, pos, desId);
+        double sameStartSituation = counts.getTotal(situation, light);
 
         for (int t = 0; t < num_posmovs; t++) {		// For All tl', pos'
             curPosMov = posMovs[t];
             curPMTlId = curPosMov.tlId;
             curPMPos = curPosMov.pos;
 
-            PEntry P = new PEntry(tlId, pos, desId, light, curPMTlId, curPMPos);
-            int p_index = pTable[tlId][pos][desId].indexOf(P);
-
-            if (p_index >= 0) {
-                P = (PEntry) pTable[tlId][pos][desId].get(p_index);
+            long sameSituation = counts.getCount(situation, light, layout.getSlot(curPMTlId, curPMPos));
+            if (sameSituation > 0) {
                 R = rewardFunction(tlId, pos, curPMTlId, curPMPos);
-                V = vTable[curPMTlId][curPMPos][desId];
-                Q += P.getChance() * (R + (gamma * V));
+                V = vTable.get(layout.getSituation(curPMTlId, curPMPos, desId));
+                Q += (sameSituation / sameStartSituation) * (R + (gamma * V));
             }
             // Else P(..)=0, thus will not add anything in the summation
         }
-        qTable[tlId][pos][desId][light ? green_index : red_index] = Q;
+        qTable.set(situation, light ? green_index : red_index, Q);
     }
 
     protected void recalcV(int tlId, int pos, int desId) {	//  V([tl,p,d]) = Sum (L) [P(L|(tl,p,d))Q([tl,p,d],L)]
-        float qRed = qTable[tlId][pos][desId][red_index];
-        float qGreen = qTable[tlId][pos][desId][green_index];
+        int situation = layout.getSituation(tlId, pos, desId);
+        float qRed = qTable.get(situation, red_index);
+        float qGreen = qTable.get(situation, green_index);
         float[] pGR = calcPGR(tlId, pos, desId);
         float pGreen = pGR[green_index];
         float pRed = pGR[red_index];
 
-        vTable[tlId][pos][desId] = (pGreen * qGreen) + (pRed * qRed);
+        vTable.set(situation, (pGreen * qGreen) + (pRed * qRed));
     }
 
     /*
@@ -316,17 +245,9 @@ public class TC1TLCOpt extends TCRL implements Colearning, InstantiationAssistan
      */
     protected float[] calcPGR(int tlId, int pos, int desId) {
         float[] counters = new float[2];
-        double countR = 0, countG = 0;
+        int situation = layout.getSituation(tlId, pos, desId);
+        double countR = counts.getTotal(situation, red), countG = counts.getTotal(situation, green);
 
-        int psize = pTable[tlId][pos][desId].size() - 1;
-        for (; psize >= 0; psize--) {
-            PEntry cur = (PEntry) pTable[tlId][pos][desId].get(psize);
-            if (cur.light == green) {
-                countG += cur.getSameSituation();
-            } else {
-                countR += cur.getSameSituation();
-            }
-        }
         counters[green_index] = (float) (countG / (countG + countR));
         counters[red_index] = (float) (countR / (countG + countR));
         return counters;
@@ -340,7 +261,7 @@ public class TC1TLCOpt extends TCRL implements Colearning, InstantiationAssistan
     }
 
     public float getVValue(Sign sign, Node des, int pos) {
-        return vTable[sign.getId()][pos][des.getId()];
+        return vTable.get(layout.getSituation(sign.getId(), pos, des.getId()));
     }
 
     @Override
@@ -350,10 +271,12 @@ public class TC1TLCOpt extends TCRL implements Colearning, InstantiationAssistan
 
     @Override
     public void setHecAddon(boolean b, Controller c) {
-        if (b) {
-            c.setStatus("Using HEC on TC1TLCOpt");
-        } else {
-            c.setStatus("Using TC1TLCOpt without HEC");
+        if (c != null) {
+            if (b) {
+                c.setStatus("Using HEC on TC1TLCOpt");
+            } else {
+                c.setStatus("Using TC1TLCOpt without HEC");
+            }
         }
         hecAddon = b;
     }
@@ -577,8 +500,8 @@ public class TC1TLCOpt extends TCRL implements Colearning, InstantiationAssistan
             light = myElement.getAttribute("light").getBoolValue();
             tlNewId = myElement.getAttribute("new-tl-id").getIntValue();
             posNew = myElement.getAttribute("new-pos").getIntValue();
-            sameStartSituation = myElement.getAttribute("same-startsituation").getLongValue();
-            sameSituation = myElement.getAttribute("same-situation").getLongValue();
+            sameStartSituation = myElement.getAttribute("same-startsituation").getDoubleValue();
+            sameSituation = myElement.getAttribute("same-situation").getDoubleValue();
         }
 
         @Override
@@ -627,19 +550,69 @@ public class TC1TLCOpt extends TCRL implements Colearning, InstantiationAssistan
         super.load(myElement, loader);
         gamma = myElement.getAttribute("gamma").getFloatValue();
         random_chance = myElement.getAttribute("random-chance").getFloatValue();
-        qTable = (float[][][][]) XMLArray.loadArray(this, loader);
-        vTable = (float[][][]) XMLArray.loadArray(this, loader);
-        count = (ArrayList[][][]) XMLArray.loadArray(this, loader, this);
-        pTable = (ArrayList[][][]) XMLArray.loadArray(this, loader, this);
+        qTable.fromArray(XMLArray.loadArray(this, loader));
+        vTable.fromArray(XMLArray.loadArray(this, loader));
+        ArrayList[][][] count = (ArrayList[][][]) XMLArray.loadArray(this, loader, this);
+        XMLArray.loadArray(this, loader, this);	// The p-table follows from the counts
+        counts.clear();
+        for (ArrayList[][] signCounts : count) {
+            for (ArrayList[] posCounts : signCounts) {
+                for (ArrayList desCounts : posCounts) {
+                    for (Object o : desCounts) {
+                        CountEntry c = (CountEntry) o;
+                        counts.add(layout.getSituation(c.tlId, c.pos, c.desId), c.light, layout.getSlot(c.tlNewId, c.posNew), c.value);
+                    }
+                }
+            }
+        }
     }
 
     @Override
     public void saveChilds(XMLSaver saver) throws XMLTreeException, IOException, XMLCannotSaveException {
         super.saveChilds(saver);
-        XMLArray.saveArray(qTable, this, saver, "q-table");
-        XMLArray.saveArray(vTable, this, saver, "v-table");
-        XMLArray.saveArray(count, this, saver, "counts");
-        XMLArray.saveArray(pTable, this, saver, "p-table");
+        XMLArray.saveArray(qTable.toArray(), this, saver, "q-table");
+        XMLArray.saveArray(vTable.toArray(), this, saver, "v-table");
+        XMLArray.saveArray(getEntryTable(false), this, saver, "counts");
+        XMLArray.saveArray(getEntryTable(true), this, saver, "p-table");
+    }
+
+    /**
+     * Returns the counted transitions as CountEntries or PEntries per
+     * [tl,pos,des], the way they are saved
+     */
+    protected ArrayList[][][] getEntryTable(boolean chances) {
+        int num_specialnodes = layout.getNumDestinations();
+        ArrayList[][][] table = new ArrayList[layout.getNumSigns()][][];
+        for (int id = 0; id < table.length; id++) {
+            table[id] = new ArrayList[layout.getNumPositions(id)][num_specialnodes];
+            for (ArrayList[] posTable : table[id]) {
+                for (int l = 0; l < num_specialnodes; l++) {
+                    posTable[l] = new ArrayList();
+                }
+            }
+        }
+        for (int i = 0; i < counts.getNumEntries(); i++) {
+            if (counts.isTotal(i)) {
+                continue;
+            }
+            int situation = counts.getSituation(i);
+            int slot = layout.getSlotOfSituation(situation);
+            int tlId = layout.getSignOfSlot(slot), pos = layout.getPositionOfSlot(slot);
+            int desId = layout.getDestinationOfSituation(situation);
+            boolean light = counts.getLight(i);
+            int tlNewId = layout.getSignOfSlot(counts.getNewSlot(i)), posNew = layout.getPositionOfSlot(counts.getNewSlot(i));
+            if (chances) {
+                PEntry P = new PEntry(tlId, pos, desId, light, tlNewId, posNew);
+                P.setSameSituation(counts.getCount(i));
+                P.setSameStartSituation(counts.getTotal(situation, light));
+                table[tlId][pos][desId].add(P);
+            } else {
+                CountEntry C = new CountEntry(tlId, pos, desId, light, tlNewId, posNew);
+                C.value = counts.getCount(i);
+                table[tlId][pos][desId].add(C);
+            }
+        }
+        return table;
     }
 
     @Override
@@ -22,7 +22,6 @@ import com.github.cc007.trafficlights.*;
 import com.github.cc007.trafficlights.algo.dp.DrivingPolicy;
 import com.github.cc007.trafficlights.algo.tlc.*;
 import com.github.cc007.trafficlights.infra.*;
-import com.github.cc007.trafficlights.sim.SimModel;
 import com.github.cc007.trafficlights.xml.*;
 
 import java.io.IOException;
@@ -164,7 +163,7 @@ public class TC2B extends TCRL implements Colearning, InstantiationAssistant {
         } catch (Exception e) {
             Logger.getLogger(TC2B.class.getName()).log(Level.SEVERE, null, e);
         }
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
         System.out.println("selected right one");
     }
 
@@ -245,8 +244,8 @@ public class TC2B extends TCRL implements Colearning, InstantiationAssistant {
             return tld;
         }
         // now get where it is stuck
-        SignController s = SimModel.getSignController();
-        DrivingPolicy dp = SimModel.getDrivingPolicy();
+        SignController s = infra.getContext().getSignController();
+        DrivingPolicy dp = infra.getContext().getDrivingPolicy();
 
         for (int i = 0; i < num_nodes; i++) {
             num_dec = tld[i].length;
@@ -408,6 +407,11 @@ public class TC2B extends TCRL implements Colearning, InstantiationAssistant {
         }
     }
 
+    @Override
+    public boolean readsLanesOnMove() {
+        return true;
+    }
+
     protected void recalcP(int tlId, int pos, int desId, boolean light, int tlNewId, int posNew, int Ktl) {	// Meneer Kaktus zegt: OK!
         // Meneer Kaktus zegt: PEntries nu ook updated
         // Recalc the chances
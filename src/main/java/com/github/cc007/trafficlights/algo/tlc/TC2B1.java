@@ -125,7 +125,7 @@ public class TC2B1 extends TCRL implements Colearning, InstantiationAssistant {
             Logger.getLogger(TC2B1.class.getName()).log(Level.SEVERE, null, e);
         }
         System.out.println("TC2B1 datastructure created");
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
@@ -237,6 +237,11 @@ public class TC2B1 extends TCRL implements Colearning, InstantiationAssistant {
         }
     }
 
+    @Override
+    public boolean readsLanesOnMove() {
+        return true;
+    }
+
     /**
      * Empties the 'gain-value' bucket partly, which is being filled when
      * Roadusers are waiting/voting for their TrafficLight to be set to green.
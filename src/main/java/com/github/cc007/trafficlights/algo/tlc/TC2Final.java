@@ -124,7 +124,7 @@ public class TC2Final extends TCRL implements Colearning, InstantiationAssistant
         } catch (Exception e) {
             Logger.getLogger(TC2Final.class.getName()).log(Level.SEVERE, null, e);
         }
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
@@ -221,6 +221,11 @@ public class TC2Final extends TCRL implements Colearning, InstantiationAssistant
         }
     }
 
+    @Override
+    public boolean readsLanesOnMove() {
+        return true;
+    }
+
     protected void recalcP(int tlId, int pos, int desId, boolean light, int tlNewId, int posNew, int Ktl) {	// Meneer Kaktus zegt: OK!
         // Meneer Kaktus zegt: PEntries nu ook updated
         // Recalc the chances
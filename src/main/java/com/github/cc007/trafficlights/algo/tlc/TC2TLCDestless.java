@@ -120,7 +120,7 @@ public class TC2TLCDestless extends TCRL implements Colearning, InstantiationAss
         } catch (Exception e) {
             Logger.getLogger(TC2TLCDestless.class.getName()).log(Level.SEVERE, null, e);
         }
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
@@ -214,6 +214,11 @@ public class TC2TLCDestless extends TCRL implements Colearning, InstantiationAss
         }
     }
 
+    @Override
+    public boolean readsLanesOnMove() {
+        return true;
+    }
+
     protected void recalcP(int tlId, int pos, int desId, boolean light, int tlNewId, int posNew, int Ktl) {	// Meneer Kaktus zegt: OK!
         // Meneer Kaktus zegt: PEntries nu ook updated
         // Recalc the chances
@@ -50,8 +50,9 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
     protected ArrayList<PEntry>[][][] pTable;
     protected ArrayList<PKtlEntry>[][][] pKtlTable;
 // SituationCount, Chance for situtation for SignId, Position, DestinationNodeId
-    protected float[][][][] qTable;						// Punishment for SignId, Position, DestinationNodeId, LightColor
-    protected float[][][] vTable;						// Average wait for SignId, Position, DestinationNodeId
+    protected SituationLayout layout;
+    protected SituationTable qTable;					// Punishment for [SignId, Position, DestinationNodeId], LightColor
+    protected SituationTable vTable;					// Average wait for [SignId, Position, DestinationNodeId]
     protected static float gamma = 0.95f;						// Discount Factor; used to decrease the influence of previous V values, that's why: 0 < gamma < 1
     protected final static boolean red = false, green = true;
     protected final static int green_index = 0, red_index = 1;
@@ -76,8 +77,9 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
             num_nodes = nodes.length;
 
             int numSigns = infra.getAllInboundLanes().size();
-            qTable = new float[numSigns][][][];
-            vTable = new float[numSigns][][];
+            layout = new SituationLayout(infra);
+            qTable = tableMemory.createTable(layout, 2);
+            vTable = tableMemory.createTable(layout);
             count = new ArrayList[numSigns][][];
             pTable = new ArrayList[numSigns][][];
             pKtlTable = new ArrayList[numSigns][][];
@@ -92,24 +94,16 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
                     int id = s.getId();
                     int num_pos_on_dl = d.getCompleteLength();
 
-                    qTable[id] = new float[num_pos_on_dl][][];
-                    vTable[id] = new float[num_pos_on_dl][];
                     count[id] = new ArrayList[num_pos_on_dl][];
                     pTable[id] = new ArrayList[num_pos_on_dl][];
                     pKtlTable[id] = new ArrayList[num_pos_on_dl][];
 
                     for (int k = 0; k < num_pos_on_dl; k++) {
-                        qTable[id][k] = new float[num_specialnodes][];
-                        vTable[id][k] = new float[num_specialnodes];
                         count[id][k] = new ArrayList[num_specialnodes];
                         pTable[id][k] = new ArrayList[num_specialnodes];
                         pKtlTable[id][k] = new ArrayList[num_specialnodes];
 
                         for (int l = 0; l < num_specialnodes; l++) {
-                            qTable[id][k][l] = new float[2];
-                            qTable[id][k][l][0] = 0.0f;
-                            qTable[id][k][l][1] = 0.0f;
-                            vTable[id][k][l] = 0.0f;
                             count[id][k][l] = new ArrayList();
                             pTable[id][k][l] = new ArrayList();
                             pKtlTable[id][k][l] = new ArrayList();
@@ -120,7 +114,7 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
         } catch (Exception e) {
             Logger.getLogger(TC2TLCOpt.class.getName()).log(Level.SEVERE, null, e);
         }
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
@@ -139,6 +133,7 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
 		 *  For each Roaduser waiting
 		 *   gain = gain + pf*(Q([tl,pos,des],red) - Q([tl,pos,des],green))
          */
+        tableMemory.tick();
 
         int num_dec, waitingsize, pos, tlId, desId;
         float gain, passenger_factor;
@@ -171,8 +166,10 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
                     desId = ru.getDestNode().getId();
                     passenger_factor = ru.getNumPassengers();
 
+                    int situation = layout.getSituation(tlId, pos, desId);
+
                     // Add the pf*(Q([tl,pos,des],red)-Q([tl,pos,des],green))
-                    gain += passenger_factor * (qTable[tlId][pos][desId][red_index] - qTable[tlId][pos][desId][green_index]);  //red - green
+                    gain += passenger_factor * (qTable.get(situation, red_index) - qTable.get(situation, green_index));  //red - green
                 }
 
                 // Debug info generator
@@ -214,6 +211,19 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
         }
     }
 
+    @Override
+    public boolean readsLanesOnMove() {
+        return true;
+    }
+
+    /**
+     * The counts and chances are kept in lists, outside the table memory
+     */
+    @Override
+    public boolean canMapTables() {
+        return false;
+    }
+
     protected void recalcP(int tlId, int pos, int desId, boolean light, int tlNewId, int posNew, int Ktl) {	// Meneer Kaktus zegt: OK!
         // Meneer Kaktus zegt: PEntries nu ook updated
         // Recalc the chances
@@ -300,7 +310,7 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
                 if (p_index >= 0) {
                     P = (PKtlEntry) pKtlTable[tlId][pos][desId].get(p_index);
                     R = calcReward(tlId, pos, curPMTlId, curPMPos);
-                    V = vTable[curPMTlId][curPMPos][desId];
+                    V = vTable.get(layout.getSituation(curPMTlId, curPMPos, desId));
                     //System.out.println("TC2: Q =: "+Q+" += "+P.getChance()+ " * ("+R+"+("+gamma+"*"+V+"))");
                     Q += P.getChance() * (R + (gamma * V));
                 }
@@ -331,13 +341,13 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
                 PKtl.setSameStartSituation(deel);
 
                 R = calcReward(tlId, pos, curPMTlId, curPMPos);
-                V = vTable[curPMTlId][curPMPos][desId];
+                V = vTable.get(layout.getSituation(curPMTlId, curPMPos, desId));
                 //System.out.println("TC1: Q:"+Q+" += "+PKtl.getChance()+ " * ("+R+"+("+gamma+"*"+V+"))");
                 Q += PKtl.getChance() * (R + (gamma * V));
             }
         }
 
-        qTable[tlId][pos][desId][light ? green_index : red_index] = Q;
+        qTable.set(layout.getSituation(tlId, pos, desId), light ? green_index : red_index, Q);
     }
 
     protected void recalcV(int tlId, int pos, int desId) {	// Meneer Kaktus is tevree!
@@ -349,11 +359,12 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
         //	pRed	= P([tl,p,d],red,*,[*,*])
         //	qGreen	= Q([tl,p,d],green)
         //	qRed	= Q([tl,p,d],red)
-        float qRed = qTable[tlId][pos][desId][red_index];
-        float qGreen = qTable[tlId][pos][desId][green_index];
+        int situation = layout.getSituation(tlId, pos, desId);
+        float qRed = qTable.get(situation, red_index);
+        float qGreen = qTable.get(situation, green_index);
         float[] pGR = calcPGR(tlId, pos, desId);
 
-        vTable[tlId][pos][desId] = (pGR[green_index] * qGreen) + (pGR[red_index] * qRed);
+        vTable.set(situation, (pGR[green_index] * qGreen) + (pGR[red_index] * qRed));
     }
 
     /*
@@ -399,7 +410,7 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
     }
 
     public float getVValue(Sign sign, Node des, int pos) {
-        return vTable[sign.getId()][pos][des.getId()];
+        return vTable.get(layout.getSituation(sign.getId(), pos, des.getId()));
     }
 
     @Override
@@ -417,7 +428,7 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
 
             if (p_index >= 0) {
                 P = (PKtlEntry) pKtlTable[sign.getId()][0][destination.getId()].get(p_index);
-                V = vTable[sign.getId()][size][destination.getId()];
+                V = vTable.get(layout.getSituation(sign.getId(), size, destination.getId()));
                 newCovalue += P.getChance() * V;
             }
         }
@@ -761,8 +772,8 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
     @Override
     public void load(XMLElement myElement, XMLLoader loader) throws XMLTreeException, IOException, XMLInvalidInputException {
         super.load(myElement, loader);
-        qTable = (float[][][][]) XMLArray.loadArray(this, loader);
-        vTable = (float[][][]) XMLArray.loadArray(this, loader);
+        qTable.fromArray(XMLArray.loadArray(this, loader));
+        vTable.fromArray(XMLArray.loadArray(this, loader));
         gamma = myElement.getAttribute("gamma").getFloatValue();
         random_chance = myElement.getAttribute("random-chance").getFloatValue();
         count = (ArrayList[][][]) XMLArray.loadArray(this, loader, this);
@@ -781,8 +792,8 @@ public class TC2TLCOpt extends TCRL implements Colearning, InstantiationAssistan
     @Override
     public void saveChilds(XMLSaver saver) throws XMLTreeException, IOException, XMLCannotSaveException {
         super.saveChilds(saver);
-        XMLArray.saveArray(qTable, this, saver, "q-table");
-        XMLArray.saveArray(vTable, this, saver, "v-table");
+        XMLArray.saveArray(qTable.toArray(), this, saver, "q-table");
+        XMLArray.saveArray(vTable.toArray(), this, saver, "v-table");
         XMLArray.saveArray(count, this, saver, "count");
         XMLArray.saveArray(pKtlTable, this, saver, "pKtlTable");
     }
@@ -145,7 +145,7 @@ public class TC3B1 extends TCRL implements Colearning, InstantiationAssistant {
                     bucket[id][WAIT] = d.getNumRoadusersWaiting();
                 }
             }
-            random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+            random_number = new Random(infra.getContext().getSeed());
         } catch (Exception e) {
             System.out.println("Error.");
         }
@@ -250,6 +250,11 @@ public class TC3B1 extends TCRL implements Colearning, InstantiationAssistant {
         }
     }
 
+    @Override
+    public boolean readsLanesOnMove() {
+        return true;
+    }
+
     /**
      * Empties the 'gain-value' bucket partly, which is being filled when
      * Roadusers are waiting/voting for their TrafficLight to be set to green.
@@ -138,7 +138,7 @@ public class TC3Opt extends TCRL implements Colearning, InstantiationAssistant {
                     }
                 }
             }
-            random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+            random_number = new Random(infra.getContext().getSeed());
         } catch (Exception e) {
             System.out.println("Error.");
         }
@@ -224,6 +224,11 @@ public class TC3Opt extends TCRL implements Colearning, InstantiationAssistant {
         }
     }
 
+    @Override
+    public boolean readsLanesOnMove() {
+        return true;
+    }
+
     protected void recalcP(Sign tl, int pos, Node destination, boolean light, Sign tl_new, int pos_new, int Ktl) {
         int tlId = tl.getId();
         int desId = destination.getId();
@@ -138,7 +138,7 @@ public class TC3TLCWorkInProgress extends TCRL implements Colearning, Instantiat
             Logger.getLogger(TC3TLCWorkInProgress.class.getName()).log(Level.SEVERE, null, e);
         }
         System.out.println("TC3TLCOpt2 datastructure created");
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
@@ -234,6 +234,11 @@ public class TC3TLCWorkInProgress extends TCRL implements Colearning, Instantiat
         }
     }
 
+    @Override
+    public boolean readsLanesOnMove() {
+        return true;
+    }
+
     protected void recalcP(int tlId, int pos, int desId, boolean light, int tlNewId, int posNew, int Ktl) {	// Meneer Kaktus is tevree!
         // Is OK.
         // - First create a CountEntry, find if it exists, and if not add it.
@@ -112,7 +112,7 @@ public class TCA1 extends TCRL implements Colearning, InstantiationAssistant {
         } catch (Exception e) {
             Logger.getLogger(TCA1.class.getName()).log(Level.SEVERE, null, e);
         }
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
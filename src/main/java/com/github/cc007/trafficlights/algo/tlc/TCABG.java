@@ -144,7 +144,7 @@ public class TCABG extends TCRL implements Colearning,
         } catch (Exception e) {
             Logger.getLogger(TCABG.class.getName()).log(Level.SEVERE, null, e);
         }
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
@@ -200,7 +200,7 @@ public class TCABG extends TCRL implements Colearning,
                     //HEC Addon: Congestion weight factor used in calculation of the gain.
                     float congestion = (float) 1.0;
                     if (hecAddon == true) {
-                        congestion = HEC.getCongestion(ru, lane, tl.getNode());
+                        congestion = HEC.getCongestion(infra.getContext().getDrivingPolicy(), ru, lane, tl.getNode());
                     }
 
                     int isAccidentInt = infra.leadsToAccidentArea(ru, lane) ? 1 : 0;
@@ -460,10 +460,12 @@ public class TCABG extends TCRL implements Colearning,
 
     @Override
     public void setHecAddon(boolean b, Controller c) {
-        if (b) {
-            c.setStatus("Using HEC on ABG");
-        } else {
-            c.setStatus("Using ABG without HEC");
+        if (c != null) {
+            if (b) {
+                c.setStatus("Using HEC on ABG");
+            } else {
+                c.setStatus("Using ABG without HEC");
+            }
         }
         hecAddon = b;
     }
@@ -474,7 +476,7 @@ public class TCABG extends TCRL implements Colearning,
      ==========================================================================
      */
     public DriveLane getNextDrivelaneByRu(Roaduser ru, DriveLane currentLane) {
-        DrivingPolicy dp = SimModel.getDrivingPolicy();
+        DrivingPolicy dp = infra.getContext().getDrivingPolicy();
         DriveLane destLane;
         try {
             destLane = dp.getDirection(ru, currentLane,
@@ -149,7 +149,7 @@ public class TCACBsG extends TCRL implements Colearning,
         } catch (Exception e) {
             Logger.getLogger(TCACBsG.class.getName()).log(Level.SEVERE, null, e);
         }
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
@@ -207,7 +207,7 @@ public class TCACBsG extends TCRL implements Colearning,
                     //HEC Addon: Congestion weight factor used in calculation of the gain.
                     float congestion = (float) 1.0;
                     if (hecAddon == true) {
-                        congestion = HEC.getCongestion(ru, lane, tl.getNode());
+                        congestion = HEC.getCongestion(infra.getContext().getDrivingPolicy(), ru, lane, tl.getNode());
                     }
 
                     int isCongestedInt = isCongested(ru, lane);
@@ -280,6 +280,11 @@ public class TCACBsG extends TCRL implements Colearning,
         }
     }
 
+    @Override
+    public boolean readsLanesOnMove() {
+        return true;
+    }
+
     protected void recalcP(int tlId, int pos, int desId, boolean light,
             int tlNewId, int posNew, int isAccident, int isCongested) {
         // - First create a CountEntry, find if it exists, and if not add it.
@@ -462,10 +467,12 @@ public class TCACBsG extends TCRL implements Colearning,
 
     @Override
     public void setHecAddon(boolean b, Controller c) {
-        if (b) {
-            c.setStatus("Using HEC on ACBsG");
-        } else {
-            c.setStatus("Using ACBsG without HEC");
+        if (c != null) {
+            if (b) {
+                c.setStatus("Using HEC on ACBsG");
+            } else {
+                c.setStatus("Using ACBsG without HEC");
+            }
         }
         hecAddon = b;
     }
@@ -495,7 +502,7 @@ public class TCACBsG extends TCRL implements Colearning,
     }
 
     public DriveLane getNextDrivelaneByRu(Roaduser ru, DriveLane currentLane) {
-        DrivingPolicy dp = SimModel.getDrivingPolicy();
+        DrivingPolicy dp = infra.getContext().getDrivingPolicy();
         DriveLane destLane;
         try {
             destLane = dp.getDirection(ru, currentLane,
@@ -45,7 +45,7 @@ import java.util.logging.Logger;
  * @version 1.0
  */
 public class TCCBG extends TCRL implements Colearning,
-        InstantiationAssistant, HECinterface {
+        InstantiationAssistant, HECinterface, PerNodeTLC {
 
     // TLC vars
     protected Infrastructure infrastructure;
@@ -57,15 +57,18 @@ public class TCCBG extends TCRL implements Colearning,
     protected boolean hecAddon = false;
 
     // TC1 vars
-    protected ArrayList count[][][][], pTable[][][][];
-    protected float[][][][][] qTable; //sign, pos, des, isCongested(no=0, yes=1), color (red=0, green=1)
-    protected float[][][][] vTable;
+    protected SituationLayout layout;	// With a state for isCongested
+    protected TransitionCounts counts;	// How often every transition ([tl,pos,des,isCongested],L) -> [tl',pos'] has occurred
+    protected SituationTable qTable; //[sign, pos, des, isCongested(no=0, yes=1)], color (green=0, red=1)
+    protected SituationTable vTable; //[sign, pos, des, isCongested]
     protected static float gamma = 0.90f; //Discount Factor; used to decrease the influence of previous V values, that's why: 0 < gamma < 1
     protected final static boolean red = false, green = true;
     protected final static int green_index = 0, red_index = 1;
     protected final static String shortXMLName = "tlc-cbg";
     protected static float random_chance = 0.01f; //A random gain setting is chosen instead of the on the TLC dictates with this chance
     private Random random_number;
+    protected boolean randomrun;		// Whether the gains are set randomly in this cycle
+    protected final NodeDecider nodeDecider = new NodeDecider(this);
 
     /**
      * The constructor for TL controllers
@@ -95,59 +98,15 @@ public class TCCBG extends TCRL implements Colearning,
                 }
             }
 
-            qTable = new float[numSigns][][][][];
-            vTable = new float[numSigns][][][];
-            count = new ArrayList[numSigns][][][];
-            pTable = new ArrayList[numSigns][][][];
-
-            int num_specialnodes = infra.getNumSpecialNodes();
-
-            for (int i = 0; i < num_nodes; i++) {
-                Node n = nodes[i];
-                DriveLane[] dls = n.getInboundLanes();
-                for (int j = 0; j < dls.length; j++) {
-                    DriveLane d = dls[j];
-                    Sign s = d.getSign();
-                    int id = s.getId();
-                    int num_pos_on_dl = d.getCompleteLength();
-
-                    qTable[id] = new float[num_pos_on_dl][][][];
-                    vTable[id] = new float[num_pos_on_dl][][];
-                    count[id] = new ArrayList[num_pos_on_dl][][];
-                    pTable[id] = new ArrayList[num_pos_on_dl][][];
-
-                    for (int k = 0; k < num_pos_on_dl; k++) {
-                        qTable[id][k] = new float[num_specialnodes][][];
-                        vTable[id][k] = new float[num_specialnodes][];
-                        count[id][k] = new ArrayList[num_specialnodes][];
-                        pTable[id][k] = new ArrayList[num_specialnodes][];
-
-                        for (int m = 0; m < num_specialnodes; m++) {
-
-                            int isCongested = 2;
-                            qTable[id][k][m] = new float[isCongested][];
-                            vTable[id][k][m] = new float[isCongested];
-                            count[id][k][m] = new ArrayList[isCongested];
-                            pTable[id][k][m] = new ArrayList[isCongested];
-
-                            for (int congest = 0; congest < isCongested;
-                                    congest++) {
-                                qTable[id][k][m][congest] = new float[2];
-                                qTable[id][k][m][congest][0] = 0.0f;
-                                qTable[id][k][m][congest][1] = 0.0f;
-                                vTable[id][k][m][congest] = 0.0f;
-                                count[id][k][m][congest] = new ArrayList();
-                                pTable[id][k][m][congest] = new ArrayList();
-                            }
-
-                        }
-                    }
-                }
-            }
+            layout = new SituationLayout(infra, 2);
+            qTable = tableMemory.createTable(layout, 2);
+            vTable = tableMemory.createTable(layout);
+            counts = tableMemory.createCounts(layout);
+            tableMemory.bindTables();
         } catch (Exception e) {
             Logger.getLogger(TCCBG.class.getName()).log(Level.SEVERE, null, e);
         }
-        random_number = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random_number = new Random(infra.getContext().getSeed());
     }
 
     /**
@@ -166,78 +125,88 @@ public class TCCBG extends TCRL implements Colearning,
          *  For each Roaduser waiting
          *   gain = gain + pf*(Q([tl,pos,des,isCongested],red) - Q([tl,pos,des,isCongested],green))
          */
-        int num_dec, waitingsize, pos, tlId, desId;
-        float gain, passenger_factor;
-        Sign tl;
-        DriveLane lane;
-        Roaduser ru;
-        ListIterator queue;
-        Node destination;
+        tableMemory.tick();
 
         //Determine wheter it should be random or not
-        boolean randomrun = false;
+        randomrun = false;
         if (random_number.nextFloat() < random_chance) {
             randomrun = true;
         }
 
-        // For all Nodes
-        for (int i = 0; i < num_nodes; i++) {
-            num_dec = tld[i].length;
-            // For all Trafficlights
-            for (int j = 0; j < num_dec; j++) {
-                tl = tld[i][j].getTL();
-                tlId = tl.getId();
-                lane = tld[i][j].getTL().getLane();
-
-                waitingsize = lane.getNumRoadusersWaiting();
-                queue = lane.getQueue().listIterator();
-                gain = 0;
-
-                // For each waiting Roaduser
-                for (int k = 0; k < waitingsize; k++) {
-                    ru = (Roaduser) queue.next();
-                    pos = ru.getPosition();
-                    desId = ru.getDestNode().getId();
-                    passenger_factor = ru.getNumPassengers();
-
-                    //HEC Addon: Congestion weight factor used in calculation of the gain.
-                    float congestion = (float) 1.0;
-                    if (hecAddon == true) {
-                        congestion = HEC.getCongestion(ru, lane, tl.getNode());
-                    }
+        // isCongested asks the driving policy where the roadusers go
+        if (decisionThreads > 0) {
+            nodeDecider.askDirections();
+        }
+        nodeDecider.decideNodes(random_number);
+        return tld;
+    }
 
-                    int isCongestedInt = isCongested(ru, lane);
 
-                    // Add the pf*(Q([tl,pos,des,isCongested],red)-Q([tl,pos,des,isCongested],green))
-                    gain += passenger_factor * congestion
-                            * (qTable[tlId][pos][desId][isCongestedInt][red_index]
-                            - qTable[tlId][pos][desId][isCongestedInt][green_index]); //red - green
-                }
+    @Override
+    public void decideNode(int i, Random random) {
+        int num_dec, waitingsize, pos, tlId, desId;
+        float gain, passenger_factor;
+        Sign tl;
+        DriveLane lane;
+        Roaduser ru;
+        ListIterator queue;
 
-                // Debug info generator
-                if (trackNode != -1 && i == trackNode) {
-                    DriveLane currentlane2 = tld[i][j].getTL().getLane();
-                    boolean[] targets = currentlane2.getTargets();
-                    System.out.println("node: " + i + " light: " + j
-                            + " gain: " + gain
-                            + " " + targets[0] + " " + targets[1]
-                            + " "
-                            + targets[2] + " "
-                            + currentlane2.getNumRoadusersWaiting());
+        num_dec = tld[i].length;
+        // For all Trafficlights
+        for (int j = 0; j < num_dec; j++) {
+            tl = tld[i][j].getTL();
+            tlId = tl.getId();
+            lane = tld[i][j].getTL().getLane();
+
+            waitingsize = lane.getNumRoadusersWaiting();
+            queue = lane.getQueue().listIterator();
+            gain = 0;
+
+            // For each waiting Roaduser
+            for (int k = 0; k < waitingsize; k++) {
+                ru = (Roaduser) queue.next();
+                pos = ru.getPosition();
+                desId = ru.getDestNode().getId();
+                passenger_factor = ru.getNumPassengers();
+
+                //HEC Addon: Congestion weight factor used in calculation of the gain.
+                float congestion = (float) 1.0;
+                if (hecAddon == true) {
+                    congestion = HEC.getCongestion(infra.getContext().getDrivingPolicy(), ru, lane, tl.getNode());
                 }
 
-                // If this is a random run, set all gains randomly
-                if (randomrun) {
-                    gain = random_number.nextFloat();
-                }
+                int isCongestedInt = isCongested(ru, lane);
 
-                if (gain > 1000.0 || gain < -1000.0f) {
-                    System.out.println("Gain might be too high? : " + gain);
-                }
-                tld[i][j].setGain(gain);
+                // Add the pf*(Q([tl,pos,des,isCongested],red)-Q([tl,pos,des,isCongested],green))
+                int situation = layout.getSituation(tlId, pos, desId,
+                        isCongestedInt);
+                gain += passenger_factor * congestion
+                        * (qTable.get(situation, red_index)
+                        - qTable.get(situation, green_index)); //red - green
             }
+
+            // Debug info generator
+            if (trackNode != -1 && i == trackNode) {
+                DriveLane currentlane2 = tld[i][j].getTL().getLane();
+                boolean[] targets = currentlane2.getTargets();
+                System.out.println("node: " + i + " light: " + j
+                        + " gain: " + gain
+                        + " " + targets[0] + " " + targets[1]
+                        + " "
+                        + targets[2] + " "
+                        + currentlane2.getNumRoadusersWaiting());
+            }
+
+            // If this is a random run, set all gains randomly
+            if (randomrun) {
+                gain = random.nextFloat();
+            }
+
+            if (gain > 1000.0 || gain < -1000.0f) {
+                System.out.println("Gain might be too high? : " + gain);
+            }
+            tld[i][j].setGain(gain);
         }
-        return tld;
     }
 
     @Override
@@ -275,68 +244,18 @@ public class TCCBG extends TCRL implements Colearning,
         }
     }
 
+    @Override
+    public boolean readsLanesOnMove() {
+        return true;
+    }
+
     protected void recalcP(int tlId, int pos, int desId, boolean light,
             int tlNewId, int posNew, int isCongested) {
-        // - First create a CountEntry, find if it exists, and if not add it.
-        CountEntry thisSituation = new CountEntry(tlId, pos, desId, light,
-                tlNewId,
-                posNew, isCongested);
-        int c_index = count[tlId][pos][desId][isCongested].indexOf(
-                thisSituation);
-        if (c_index >= 0) {
-            // Entry found
-            thisSituation = (CountEntry) count[tlId][pos][desId][isCongested].
-                    get(c_index);
-            thisSituation.incrementValue();
-        } else {
-            // Entry not found
-            count[tlId][pos][desId][isCongested].add(thisSituation);
-        }
-
-        // We now know how often this exact situation has occurred
-        // - Calculate the chance
-        long sameSituation = thisSituation.getValue();
-        long sameStartSituation = 0;
-
-        CountEntry curC;
-        int num_c = count[tlId][pos][desId][isCongested].size();
-        for (int i = 0; i < num_c; i++) {
-            curC = (CountEntry) count[tlId][pos][desId][isCongested].get(
-                    i);
-            sameStartSituation += curC.sameStartSituation(thisSituation);
-        }
-
-        // - Update this chance
-        // Calculate the new P(L|(tl,pos,des,isCongested))
-        // P(L|(tl,pos,des,isCongested))	= P([tl,pos,des,isCongested],L)/P([tl,pos,des,isCongested])
-        //						= #([tl,pos,des,isCongested],L)/#([tl,pos,des,isCongested])
-        // Niet duidelijk of dit P([tl,p,d,isCongested],L,[*,*]) of P([tl,p,d,isCongested],L,[tl,d]) moet zijn
-        // Oftewel, kans op deze transitie of kans om te wachten!
-        PEntry thisChance = new PEntry(tlId, pos, desId, light, tlNewId, posNew,
-                isCongested);
-        int p_index = pTable[tlId][pos][desId][isCongested].indexOf(thisChance);
-
-        if (p_index >= 0) {
-            thisChance = (PEntry) pTable[tlId][pos][desId][isCongested].
-                    get(
-                            p_index);
-        } else {
-            pTable[tlId][pos][desId][isCongested].add(thisChance);
-            p_index = pTable[tlId][pos][desId][isCongested].indexOf(thisChance);
-        }
-
-        thisChance.setSameSituation(sameSituation);
-        thisChance.setSameStartSituation(sameStartSituation);
-
-        // - Update rest of the Chance Table
-        int num_p = pTable[tlId][pos][desId][isCongested].size();
-        PEntry curP;
-        for (int i = 0; i < num_p; i++) {
-            curP = (PEntry) pTable[tlId][pos][desId][isCongested].get(i);
-            if (curP.sameStartSituation(thisSituation) && i != p_index) {
-                curP.addSameStartSituation();
-            }
-        }
+        // Count this transition. The store keeps the total of its start situation as well,
+        // so P(L|(tl,pos,des,isCongested)) = #([tl,pos,des,isCongested],L)/#([tl,pos,des,isCongested])
+        // can be looked up directly.
+        counts.add(layout.getSituation(tlId, pos, desId, isCongested), light,
+                layout.getSlot(tlNewId, posNew));
     }
 
     protected void recalcQ(int tlId, int pos, int desId, boolean light,
@@ -352,6 +271,8 @@ public class TCCBG extends TCRL implements Colearning,
         int curPMTlId, curPMPos, curNextIsCongested = isCongested;
         Sign curNextSign = dlnow.getSign();
         float R = 0, V = 0, Q = penalty;
+        int situation = layout.getSituation(tlId, pos, desId, isCongested);
+        double sameStartSituation = counts.getTotal(situation, light);
 
         for (int t = 0; t < num_posmovs; t++) { // For All tl', pos'
             curPosMov = posMovs[t];
@@ -371,33 +292,29 @@ public class TCCBG extends TCRL implements Colearning,
                 curNextIsCongested = isCongested;
             }
 
-            PEntry P = new PEntry(tlId, pos, desId, light, curPMTlId, curPMPos,
-                    isCongested);
-            int p_index = pTable[tlId][pos][desId][isCongested].indexOf(P);
-
-            if (p_index >= 0) {
-                P = (PEntry) pTable[tlId][pos][desId][isCongested].get(
-                        p_index);
+            long sameSituation = counts.getCount(situation, light,
+                    layout.getSlot(curPMTlId, curPMPos));
+            if (sameSituation > 0) {
                 R = rewardFunction(tlId, pos, curPMTlId, curPMPos, isCongested);
-                V = vTable[curPMTlId][curPMPos][desId][curNextIsCongested];
+                V = vTable.get(layout.getSituation(curPMTlId, curPMPos, desId,
+                        curNextIsCongested));
 
-                Q += P.getChance() * (R + (gamma * V));
+                Q += (sameSituation / sameStartSituation) * (R + (gamma * V));
             }
             // Else P(..)=0, thus will not add anything in the summation
         }
-        qTable[tlId][pos][desId][isCongested][light ? green_index
-                : red_index] = Q;
+        qTable.set(situation, light ? green_index : red_index, Q);
     }
 
     protected void recalcV(int tlId, int pos, int desId, int isCongested) { //  V([tl,p,d,isCongested]) = Sum (L) [P(L|(tl,p,d,isCongested))Q([tl,p,d,isCongested],L)] ??
-        float qRed = qTable[tlId][pos][desId][isCongested][red_index];
-        float qGreen = qTable[tlId][pos][desId][isCongested][green_index];
+        int situation = layout.getSituation(tlId, pos, desId, isCongested);
+        float qRed = qTable.get(situation, red_index);
+        float qGreen = qTable.get(situation, green_index);
         float[] pGR = calcPGR(tlId, pos, desId, isCongested);
         float pGreen = pGR[green_index];
         float pRed = pGR[red_index];
 
-        vTable[tlId][pos][desId][isCongested] = (pGreen * qGreen)
-                + (pRed * qRed);
+        vTable.set(situation, (pGreen * qGreen) + (pRed * qRed));
     }
 
     /*
@@ -407,19 +324,10 @@ public class TCCBG extends TCRL implements Colearning,
      */
     protected float[] calcPGR(int tlId, int pos, int desId, int isCongested) {
         float[] counters = new float[2];
-        double countR = 0, countG = 0;
-
-        int psize = pTable[tlId][pos][desId][isCongested].size() - 1;
-        for (; psize >= 0; psize--) {
-            PEntry cur = (PEntry) pTable[tlId][pos][desId][isCongested].
-                    get(
-                            psize);
-            if (cur.light == green) {
-                countG += cur.getSameSituation();
-            } else {
-                countR += cur.getSameSituation();
-            }
-        }
+        int situation = layout.getSituation(tlId, pos, desId, isCongested);
+        double countR = counts.getTotal(situation, red), countG = counts.
+                getTotal(situation, green);
+
         counters[green_index] = (float) (countG / (countG + countR));
         counters[red_index] = (float) (countR / (countG + countR));
         return counters;
@@ -439,7 +347,8 @@ public class TCCBG extends TCRL implements Colearning,
 
     public float getVValue(Sign sign, Node des, int pos) {
         int isCongested = 0; //hier moet nog iets zinnigs voor isCongested worden bedacht
-        return vTable[sign.getId()][pos][des.getId()][isCongested];
+        return vTable.get(layout.getSituation(sign.getId(), pos, des.getId(),
+                isCongested));
     }
 
     @Override
@@ -449,10 +358,12 @@ public class TCCBG extends TCRL implements Colearning,
 
     @Override
     public void setHecAddon(boolean b, Controller c) {
-        if (b) {
-            c.setStatus("Using HEC on CBG");
-        } else {
-            c.setStatus("Using CBG without HEC");
+        if (c != null) {
+            if (b) {
+                c.setStatus("Using HEC on CBG");
+            } else {
+                c.setStatus("Using CBG without HEC");
+            }
         }
         hecAddon = b;
     }
@@ -478,7 +389,7 @@ public class TCCBG extends TCRL implements Colearning,
     }
 
     public DriveLane getNextDrivelaneByRu(Roaduser ru, DriveLane currentLane) {
-        DrivingPolicy dp = SimModel.getDrivingPolicy();
+        DrivingPolicy dp = infra.getContext().getDrivingPolicy();
         DriveLane destLane;
         try {
             destLane = dp.getDirection(ru, currentLane,
@@ -725,9 +636,9 @@ public class TCCBG extends TCRL implements Colearning,
             posNew = myElement.getAttribute("new-pos").getIntValue();
             isCongested = myElement.getAttribute("next-sign-id").getIntValue();
             sameStartSituation = myElement.getAttribute("same-startsituation").
-                    getLongValue();
+                    getDoubleValue();
             sameSituation = myElement.getAttribute("same-situation").
-                    getLongValue();
+                    getDoubleValue();
         }
 
         @Override
@@ -787,20 +698,84 @@ public class TCCBG extends TCRL implements Colearning,
         super.load(myElement, loader);
         gamma = myElement.getAttribute("gamma").getFloatValue();
         random_chance = myElement.getAttribute("random-chance").getFloatValue();
-        qTable = (float[][][][][]) XMLArray.loadArray(this, loader);
-        vTable = (float[][][][]) XMLArray.loadArray(this, loader);
-        count = (ArrayList[][][][]) XMLArray.loadArray(this, loader, this);
-        pTable = (ArrayList[][][][]) XMLArray.loadArray(this, loader, this);
+        qTable.fromArray(XMLArray.loadArray(this, loader));
+        vTable.fromArray(XMLArray.loadArray(this, loader));
+        ArrayList[][][][] count = (ArrayList[][][][]) XMLArray.loadArray(this,
+                loader, this);
+        XMLArray.loadArray(this, loader, this); // The p-table follows from the counts
+        counts.clear();
+        for (ArrayList[][][] signCounts : count) {
+            for (ArrayList[][] posCounts : signCounts) {
+                for (ArrayList[] desCounts : posCounts) {
+                    for (ArrayList congestCounts : desCounts) {
+                        for (Object o : congestCounts) {
+                            CountEntry c = (CountEntry) o;
+                            counts.add(layout.getSituation(c.tlId, c.pos,
+                                    c.desId, c.isCongested), c.light,
+                                    layout.getSlot(c.tlNewId, c.posNew),
+                                    c.value);
+                        }
+                    }
+                }
+            }
+        }
     }
 
     @Override
     public void saveChilds(XMLSaver saver) throws XMLTreeException, IOException,
             XMLCannotSaveException {
         super.saveChilds(saver);
-        XMLArray.saveArray(qTable, this, saver, "q-table");
-        XMLArray.saveArray(vTable, this, saver, "v-table");
-        XMLArray.saveArray(count, this, saver, "counts");
-        XMLArray.saveArray(pTable, this, saver, "p-table");
+        XMLArray.saveArray(qTable.toArray(), this, saver, "q-table");
+        XMLArray.saveArray(vTable.toArray(), this, saver, "v-table");
+        XMLArray.saveArray(getEntryTable(false), this, saver, "counts");
+        XMLArray.saveArray(getEntryTable(true), this, saver, "p-table");
+    }
+
+    /**
+     * Returns the counted transitions as CountEntries or PEntries per
+     * [tl,pos,des,isCongested], the way they are saved
+     */
+    protected ArrayList[][][][] getEntryTable(boolean chances) {
+        int num_specialnodes = layout.getNumDestinations();
+        int num_states = layout.getNumStates();
+        ArrayList[][][][] table = new ArrayList[layout.getNumSigns()][][][];
+        for (int id = 0; id < table.length; id++) {
+            table[id] = new ArrayList[layout.getNumPositions(id)][num_specialnodes][num_states];
+            for (ArrayList[][] posTable : table[id]) {
+                for (ArrayList[] desTable : posTable) {
+                    for (int congest = 0; congest < num_states; congest++) {
+                        desTable[congest] = new ArrayList();
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < counts.getNumEntries(); i++) {
+            if (counts.isTotal(i)) {
+                continue;
+            }
+            int situation = counts.getSituation(i);
+            int slot = layout.getSlotOfSituation(situation);
+            int tlId = layout.getSignOfSlot(slot);
+            int pos = layout.getPositionOfSlot(slot);
+            int desId = layout.getDestinationOfSituation(situation);
+            int isCongested = layout.getStateOfSituation(situation);
+            boolean light = counts.getLight(i);
+            int tlNewId = layout.getSignOfSlot(counts.getNewSlot(i));
+            int posNew = layout.getPositionOfSlot(counts.getNewSlot(i));
+            if (chances) {
+                PEntry P = new PEntry(tlId, pos, desId, light, tlNewId, posNew,
+                        isCongested);
+                P.setSameSituation(counts.getCount(i));
+                P.setSameStartSituation(counts.getTotal(situation, light));
+                table[tlId][pos][desId][isCongested].add(P);
+            } else {
+                CountEntry C = new CountEntry(tlId, pos, desId, light, tlNewId,
+                        posNew, isCongested);
+                C.value = counts.getCount(i);
+                table[tlId][pos][desId][isCongested].add(C);
+            }
+        }
+        return table;
     }
 
     @Override
@@ -11,6 +11,10 @@ import com.github.cc007.trafficlights.infra.DriveLane;
 import com.github.cc007.trafficlights.infra.Infrastructure;
 import com.github.cc007.trafficlights.infra.Roaduser;
 import com.github.cc007.trafficlights.infra.Sign;
+import java.io.File;
+import java.util.HashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  *  This is a base class for reinforcement learners.
@@ -18,11 +22,73 @@ import com.github.cc007.trafficlights.infra.Sign;
  */
 public abstract class TCRL extends TLController{
     
+    protected TableMemory tableMemory;
+    
     /** Creates a new instance of TCRL */
     public TCRL(Infrastructure infra) {
         super(infra);
     }
     
+    @Override
+    public void setInfrastructure(Infrastructure infra) {
+        // This is called by the constructor of TLController, before the fields of TCRL are initialized
+        if (tableMemory == null) {
+            tableMemory = new TableMemory();
+        }
+        tableMemory.clear();
+        super.setInfrastructure(infra);
+    }
+    
+    /**
+     * Returns the memory that keeps track of the learning tables, if the
+     * learner creates its tables through it
+     */
+    public TableMemory getTableMemory() {
+        return tableMemory;
+    }
+    
+    /**
+     * Returns whether all learning tables, the transition counts included, are
+     * created through the table memory, so they can be kept in table files
+     */
+    public boolean canMapTables() {
+        return true;
+    }
+    
+    /**
+     * Recognizes sparse_tables=on|off, table_budget=megabytes and
+     * table_file=prefix for learners that create their tables through the
+     * table memory. The tables are created again in the new mode. A table file
+     * is ignored by learners that cannot map all their tables.
+     */
+    @Override
+    public void loadArgs(HashMap args) throws Exception {
+        super.loadArgs(args);
+        if (!tableMemory.isUsed()) {
+            return;
+        }
+        String sparse = (String) args.remove("sparse_tables");
+        String budget = (String) args.remove("table_budget");
+        String file = (String) args.remove("table_file");
+        if (sparse != null) {
+            tableMemory.setSparse(sparse.equals("on") || sparse.equals("true"));
+        }
+        if (budget != null) {
+            tableMemory.setBudget(Long.parseLong(budget) << 20);
+        }
+        if (file != null && !canMapTables()) {
+            Logger.getLogger(TCRL.class.getName()).log(Level.WARNING,
+                    "{0} cannot keep its transition counts in table files, table_file is ignored", getClass().getSimpleName());
+            file = null;
+        }
+        if (file != null) {
+            tableMemory.setFile(new File(file));
+        }
+        if (sparse != null || budget != null || file != null) {
+            setInfrastructure(infra);
+        }
+    }
+    
     @Override
     public void updateRoaduserMove(Roaduser ru, DriveLane prevlane, Sign prevsign, int prevpos, DriveLane dlanenow, Sign signnow, int posnow, PosMov[] posMovs, DriveLane desired){
         updateRoaduserMove(ru, prevlane, prevsign, prevpos, dlanenow, signnow, posnow, posMovs, desired, 0);
@@ -21,7 +21,6 @@ package com.github.cc007.trafficlights.algo.tlc;
  */
 
 import com.github.cc007.trafficlights.infra.InfraException;
-import com.github.cc007.trafficlights.GLDSim;
 import com.github.cc007.trafficlights.infra.Infrastructure;
 import com.github.cc007.trafficlights.utils.StringUtils;
 import java.util.Random;
@@ -170,7 +169,7 @@ public class TLCFactory {
      */
     public TLCFactory(Infrastructure infra) {
         this.infra = infra;
-        random = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        random = new Random(infra.getContext().getSeed());
     }
 
     /**
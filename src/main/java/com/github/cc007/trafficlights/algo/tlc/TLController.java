@@ -27,6 +27,8 @@ import java.awt.event.*;
 import java.io.IOException;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  *
@@ -34,6 +36,10 @@ import java.util.HashMap;
  * every movement made by road users. In this way not every road user has to be
  * iterated. By using this information it provides a table containing
  * Q-values(reward values) for each trafficlight in it's 'Green' setting.
+ * <p>
+ * Controllers that decide for every node on its own implement PerNodeTLC,
+ * and let a NodeDecider call decideNode from decideTLs. With decision
+ * threads, the nodes are then decided concurrently.
  *
  * @author Group Algorithms
  * @version 1.0
@@ -44,6 +50,7 @@ public abstract class TLController implements XMLSerializable, TwoStageLoader {
     protected TLDecision[][] tld;
     public int trackNode = -1;
     protected int num_tls = 0;
+    protected int decisionThreads = 0;	// 0 to decide the nodes one after the other, with the generator of the controller
 
     /**
      * The constructor for TL controllers
@@ -75,6 +82,32 @@ public abstract class TLController implements XMLSerializable, TwoStageLoader {
      */
     public abstract TLDecision[][] decideTLs();
 
+    /**
+     * Returns true when the controller decides for every node on its own, so
+     * the nodes can be decided concurrently
+     */
+    public final boolean decidesPerNode() {
+        return this instanceof PerNodeTLC;
+    }
+
+    /**
+     * Returns the number of threads the nodes are decided on, 0 if they are
+     * decided one after the other as they always were
+     */
+    public int getDecisionThreads() {
+        return decisionThreads;
+    }
+
+    /**
+     * Sets the number of threads the nodes are decided on, for controllers
+     * that decide per node. With 1 or more threads every node draws from a
+     * random number generator of its own, so the decisions are the same for
+     * any number of threads, but differ from those made with 0 threads.
+     */
+    public void setDecisionThreads(int threads) {
+        decisionThreads = threads;
+    }
+
     /**
      * Creates a TLDecision[][] for the given infrastructure. All Q values are
      * set to 0
@@ -168,11 +201,35 @@ public abstract class TLController implements XMLSerializable, TwoStageLoader {
         return num_tls;
     }
 
+    /**
+     * Tells the TLC a roaduser moved. The posMovs array and its PosMovs are
+     * reused by the SimModel for the next roaduser, so they should not be kept
+     * after this call.
+     */
     public abstract void updateRoaduserMove(
             Roaduser _ru, DriveLane _prevlane, Sign _prevsign, int _prevpos, DriveLane _dlanenow,
             Sign _signnow, int _posnow, PosMov[] _posMovs,
             DriveLane _desiredLane);
 
+    /**
+     * Returns true when updateRoaduserMove looks at the roadusers on the lanes,
+     * like the number of roadusers waiting. The SimModel then moves all lanes
+     * one after the other, so this TLC sees every lane halfway a cycle exactly
+     * as it is in a sequential step.
+     */
+    public boolean readsLanesOnMove() {
+        return false;
+    }
+
+    /**
+     * Returns true when updateRoaduserMove uses the possible moves of the
+     * roaduser. When it does not, the SimModel does not calculate them and
+     * passes an empty array.
+     */
+    public boolean usesPosMovs() {
+        return true;
+    }
+
     /**
      * Loads arguments provided on command line (DOAS 06). This function should
      * be overloaded and the overloading function should call
@@ -184,6 +241,15 @@ public abstract class TLController implements XMLSerializable, TwoStageLoader {
         if (track != null) {
             trackNode = Integer.parseInt(track);
         }
+        String threads = (String) args.remove("decision_threads");
+        if (threads != null) {
+            if (decidesPerNode()) {
+                setDecisionThreads(Integer.parseInt(threads));
+            } else {
+                Logger.getLogger(TLController.class.getName()).log(Level.INFO,
+                        "{0} decides all nodes at once, decision_threads is ignored", getClass().getSimpleName());
+            }
+        }
     }
 
     // XMLSerializable implementation
@@ -0,0 +1,312 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.tlc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ *
+ * Creates and keeps track of the learning tables of a traffic light
+ * controller. By default the tables are allocated in full. In sparse mode
+ * only the parts of the tables that are used are allocated. With a memory
+ * budget, the situations that were not learned about for the longest time are
+ * forgotten when the tables take up more than the budget: their values go
+ * back to 0 and their transition counts are removed.
+ *
+ * With a table file, the tables are kept in files that are mapped into
+ * memory (see MappedTableFile) instead of on the heap. The files are named
+ * after the table file, followed by the number of the table. When the files
+ * of an earlier run with the same infrastructure are found together, the
+ * controller goes on with what it learned then. Mapped tables are never
+ * sparse and have no budget.
+ *
+ * @author Group Algorithms
+ * @version 1.0
+ */
+public class TableMemory {
+
+    protected boolean sparse;
+    protected long budget;			// In bytes, 0 for no budget
+    protected int clock;
+    protected ArrayList<SituationTable> tables = new ArrayList<>();
+    protected ArrayList<SparseSituationTable> sparseTables = new ArrayList<>();
+    protected ArrayList<TransitionCounts> counts = new ArrayList<>();
+    protected File file;			// The prefix of the table files, null to keep the tables on the heap
+    protected ArrayList<MappedTableFile> mappedFiles = new ArrayList<>();
+    protected boolean bound;		// Whether the set of mapped tables was checked, see bindTables
+    protected boolean fellBack;		// Whether a table that should be mapped is kept on the heap
+
+    /**
+     * Returns whether only the used parts of the tables are allocated
+     */
+    public boolean isSparse() {
+        return sparse;
+    }
+
+    public void setSparse(boolean sparse) {
+        this.sparse = sparse;
+    }
+
+    /**
+     * Returns the number of bytes the tables may take up, or 0 if there is no
+     * limit
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Sets the number of bytes the tables may take up. A budget only works for
+     * sparse tables, so it makes the tables sparse.
+     *
+     * @param budget The budget in bytes, or 0 for no limit
+     */
+    public void setBudget(long budget) {
+        this.budget = budget;
+        if (budget > 0) {
+            sparse = true;
+        }
+    }
+
+    /**
+     * Returns the prefix of the files the tables are kept in, or null if they
+     * are kept on the heap
+     */
+    public File getFile() {
+        return file;
+    }
+
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Forgets the tables that were created, for when the controller creates
+     * new ones, and releases the files of the mapped tables
+     */
+    public void clear() {
+        for (MappedTableFile mapped : mappedFiles) {
+            try {
+                mapped.close();
+            } catch (IOException e) {
+                Logger.getLogger(TableMemory.class.getName()).log(Level.WARNING, "Could not close " + mapped.getFile(), e);
+            }
+        }
+        mappedFiles.clear();
+        bound = false;
+        fellBack = false;
+        tables.clear();
+        sparseTables.clear();
+        counts.clear();
+        clock = 0;
+    }
+
+    /**
+     * Creates a table with one value per situation
+     */
+    public SituationTable createTable(SituationLayout layout) {
+        return createTable(layout, 1);
+    }
+
+    /**
+     * Creates a table with the given number of values per situation
+     */
+    public SituationTable createTable(SituationLayout layout, int stride) {
+        if (file != null) {
+            File tableFile = new File(file.getPath() + "." + tables.size() + ".table");
+            try {
+                MappedSituationTable table = new MappedSituationTable(layout, stride, tableFile);
+                opened(table.getFile());
+                tables.add(table);
+                return table;
+            } catch (IOException e) {
+                Logger.getLogger(TableMemory.class.getName()).log(Level.WARNING, "Could not map " + tableFile + ", the table is kept on the heap", e);
+                fellBack = true;
+            }
+        } else if (sparse) {
+            SparseSituationTable table = new SparseSituationTable(layout, stride);
+            tables.add(table);
+            sparseTables.add(table);
+            return table;
+        }
+        SituationTable table = new SituationTable(layout, stride);
+        tables.add(table);
+        return table;
+    }
+
+    public TransitionCounts createCounts(SituationLayout layout) {
+        if (file != null) {
+            File countsFile = new File(file.getPath() + "." + counts.size() + ".counts");
+            try {
+                MappedTransitionCounts result = new MappedTransitionCounts(layout, countsFile);
+                opened(result.getFile());
+                counts.add(result);
+                return result;
+            } catch (IOException e) {
+                Logger.getLogger(TableMemory.class.getName()).log(Level.WARNING, "Could not map " + countsFile + ", the counts are kept on the heap", e);
+                fellBack = true;
+            }
+        }
+        TransitionCounts result = new TransitionCounts();
+        counts.add(result);
+        return result;
+    }
+
+    protected void opened(MappedTableFile mapped) {
+        mappedFiles.add(mapped);
+    }
+
+    /**
+     * Checks whether the mapped tables that were created belong together. The
+     * controller only goes on with them when every table was found, with the
+     * same generation. Otherwise all of them are set to 0 and get a new
+     * generation, so the Q and V values are never used without the counts
+     * they were learned with, or the other way around. Controllers call this
+     * after creating their tables.
+     */
+    public void bindTables() {
+        if (bound) {
+            return;
+        }
+        bound = true;
+        if (mappedFiles.isEmpty()) {
+            return;
+        }
+        Logger logger = Logger.getLogger(TableMemory.class.getName());
+        long generation = mappedFiles.get(0).getGeneration();
+        boolean warm = !fellBack && generation != 0;
+        for (MappedTableFile mapped : mappedFiles) {
+            warm &= mapped.isMatching() && mapped.getGeneration() == generation;
+        }
+        if (warm) {
+            logger.log(Level.INFO, "Going on with the {0} tables in {1}.*", new Object[]{mappedFiles.size(), file});
+            return;
+        }
+
+        Random random = new Random();
+        do {
+            generation = random.nextLong();
+        } while (generation == 0);
+        try {
+            for (MappedTableFile mapped : mappedFiles) {
+                mapped.reset(generation);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not start new tables in " + file + ".*", e);
+        }
+        for (TransitionCounts c : counts) {
+            c.clear();
+        }
+        logger.log(Level.INFO, "Started {0} new tables in {1}.*", new Object[]{mappedFiles.size(), file});
+    }
+
+    /**
+     * Writes the mapped tables to their files
+     */
+    public void force() {
+        for (MappedTableFile mapped : mappedFiles) {
+            mapped.force();
+        }
+    }
+
+    /**
+     * Returns whether any tables were created
+     */
+    public boolean isUsed() {
+        return !tables.isEmpty() || !counts.isEmpty();
+    }
+
+    /**
+     * Returns an estimate of the number of bytes all tables take up on the
+     * heap
+     */
+    public long getFootprint() {
+        long result = 0;
+        for (SituationTable table : tables) {
+            result += table.getFootprint();
+        }
+        for (TransitionCounts c : counts) {
+            result += c.getFootprint();
+        }
+        return result;
+    }
+
+    /**
+     * Moves on to the next cycle, and forgets the situations that were not
+     * written to for the longest time if the tables take up more than the
+     * budget. Then they are brought back to 7/8 of the budget, so this does
+     * not have to happen every cycle. Situations are forgotten a page of
+     * SparseSituationTable at a time.
+     */
+    public void tick() {
+        bindTables();
+        clock++;
+        for (SparseSituationTable table : sparseTables) {
+            table.setClock(clock);
+        }
+        if (budget <= 0 || getFootprint() <= budget) {
+            return;
+        }
+
+        // Sort the pages that are in use by the last time any table wrote to them
+        int numPages = 0;
+        for (SparseSituationTable table : sparseTables) {
+            numPages = Math.max(numPages, table.getNumPages());
+        }
+        long[] uses = new long[numPages];
+        int numUsed = 0;
+        for (int page = 0; page < numPages; page++) {
+            int lastUse = -1;
+            for (SparseSituationTable table : sparseTables) {
+                if (page < table.getNumPages() && table.isAllocated(page)) {
+                    lastUse = Math.max(lastUse, table.getLastUse(page));
+                }
+            }
+            if (lastUse >= 0) {
+                uses[numUsed++] = ((long) lastUse << 32) | page;
+            }
+        }
+        Arrays.sort(uses, 0, numUsed);
+
+        // Forget the oldest pages in rounds, as the counts only shrink after each round
+        long before = getFootprint();
+        long target = budget - budget / 8;
+        int numEvicted = 0;
+        while (numEvicted < numUsed && getFootprint() > target) {
+            int end = Math.min(numUsed, numEvicted + Math.max(1, numUsed / 8));
+            BitSet evicted = new BitSet(numPages);
+            for (; numEvicted < end; numEvicted++) {
+                int page = (int) uses[numEvicted];
+                evicted.set(page);
+                for (SparseSituationTable table : sparseTables) {
+                    table.evict(page);
+                }
+            }
+            for (TransitionCounts c : counts) {
+                c.removeSituations(evicted, SparseSituationTable.PAGE_BITS);
+            }
+        }
+        Logger.getLogger(TableMemory.class.getName()).log(Level.FINE,
+                "Forgot {0} pages of learning tables at cycle {1}, from {2} to {3} kB",
+                new Object[]{numEvicted, clock, before >> 10, getFootprint() >> 10});
+    }
+}
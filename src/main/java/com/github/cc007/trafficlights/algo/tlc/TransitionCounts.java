@@ -0,0 +1,287 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.algo.tlc;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ *
+ * Counts how often the roadusers made every transition, for the learning
+ * traffic light controllers. A transition starts in a situation (see
+ * SituationLayout) with the light red or green, and ends in a slot. Next to
+ * the transitions, the total of every start situation and light is kept, so
+ * the chance of a transition is its count divided by that total.
+ *
+ * The counts are kept in flat arrays in the order the transitions first
+ * occurred, and are found through an open addressing hash table on the packed
+ * keys. Counting a transition does not create any objects, other than when
+ * the arrays have to grow. Subclasses can keep the entries in another way by
+ * overriding the methods that get and set them.
+ *
+ * @author Group Algorithms
+ * @version 1.0
+ */
+public class TransitionCounts {
+
+    protected static final long LIGHT_BIT = 1L << 31;
+    protected static final int TOTAL = 0x7fffffff;		// The slot used for the totals of a start situation
+    protected static final int DEFAULT_CAPACITY = 64;
+
+    protected long[] keys, counts;	// The entries, in the order they first occurred
+    protected int size;
+    protected int[] index;			// Entry index + 1 for every hash slot, 0 if empty
+    protected int shift;
+
+    public TransitionCounts() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty store with room for the given number of entries
+     */
+    public TransitionCounts(int capacity) {
+        this(capacity, true);
+    }
+
+    /**
+     * Creates an empty store, with or without the arrays that keep the
+     * entries, for subclasses that keep their entries in another way. These
+     * have to call rehash themselves.
+     */
+    protected TransitionCounts(int capacity, boolean allocate) {
+        if (allocate) {
+            capacity = Math.max(capacity, 2);
+            keys = new long[capacity];
+            counts = new long[capacity];
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * Counts the transition once
+     *
+     * @return How often the transition has occurred now
+     */
+    public long add(int situation, boolean light, int newSlot) {
+        return add(situation, light, newSlot, 1);
+    }
+
+    /**
+     * Counts the transition the given number of times
+     *
+     * @return How often the transition has occurred now
+     */
+    public long add(int situation, boolean light, int newSlot, long amount) {
+        int total = entry(key(situation, light, TOTAL));
+        setCount(total, getCount(total) + amount);
+        int i = entry(key(situation, light, newSlot));
+        long count = getCount(i) + amount;
+        setCount(i, count);
+        return count;
+    }
+
+    /**
+     * Returns how often the transition has occurred
+     */
+    public long getCount(int situation, boolean light, int newSlot) {
+        int i = find(key(situation, light, newSlot));
+        return i < 0 ? 0 : getCount(i);
+    }
+
+    /**
+     * Returns how often a transition started in the situation with the light
+     */
+    public long getTotal(int situation, boolean light) {
+        return getCount(situation, light, TOTAL);
+    }
+
+    /**
+     * Returns the chance of the transition, given its start situation and
+     * light
+     */
+    public double getChance(int situation, boolean light, int newSlot) {
+        long count = getCount(situation, light, newSlot);
+        return count == 0 ? 0 : count / (double) getTotal(situation, light);
+    }
+
+    /**
+     * Returns the number of entries, the totals of the start situations
+     * included
+     */
+    public int getNumEntries() {
+        return size;
+    }
+
+    /**
+     * Returns whether the entry is the total of a start situation instead of
+     * a transition
+     */
+    public boolean isTotal(int entry) {
+        return getNewSlot(entry) == TOTAL;
+    }
+
+    public int getSituation(int entry) {
+        return (int) (getKey(entry) >>> 32);
+    }
+
+    public boolean getLight(int entry) {
+        return (getKey(entry) & LIGHT_BIT) != 0;
+    }
+
+    public int getNewSlot(int entry) {
+        return (int) (getKey(entry) & TOTAL);
+    }
+
+    public long getCount(int entry) {
+        return counts[entry];
+    }
+
+    protected long getKey(int entry) {
+        return keys[entry];
+    }
+
+    protected void setCount(int entry, long count) {
+        counts[entry] = count;
+    }
+
+    protected void setEntry(int entry, long key, long count) {
+        keys[entry] = key;
+        counts[entry] = count;
+    }
+
+    /**
+     * Returns the number of entries there is room for
+     */
+    protected int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Makes room for the given number of entries, which is at least the
+     * number of entries there are
+     */
+    protected void setCapacity(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+    }
+
+    protected void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Returns an estimate of the number of bytes the counts take up
+     */
+    public long getFootprint() {
+        return 64 + 16L * getCapacity() + 4L * index.length;
+    }
+
+    /**
+     * Removes the counts of the transitions that start in the given pages of
+     * situations, and shrinks the arrays to the counts that are left
+     *
+     * @param pages The pages to remove
+     * @param pageBits The number of situations per page is 1 << pageBits
+     */
+    public void removeSituations(BitSet pages, int pageBits) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!pages.get(getSituation(i) >>> pageBits)) {
+                setEntry(kept, getKey(i), getCount(i));
+                kept++;
+            }
+        }
+        int capacity = Math.max(kept + (kept >> 1), DEFAULT_CAPACITY);
+        setSize(kept);
+        setCapacity(capacity);
+        rehash(capacity);
+    }
+
+    /**
+     * Removes all counts
+     */
+    public void clear() {
+        Arrays.fill(index, 0);
+        setSize(0);
+    }
+
+    protected static long key(int situation, boolean light, int newSlot) {
+        return ((long) situation << 32) | (light ? LIGHT_BIT : 0) | newSlot;
+    }
+
+    protected int hash(long key) {
+        return (int) ((key * 0x9e3779b97f4a7c15L) >>> shift);
+    }
+
+    /**
+     * Returns the entry of the key, or -1 if there is none
+     */
+    protected int find(long key) {
+        int mask = index.length - 1;
+        for (int h = hash(key);; h = (h + 1) & mask) {
+            int i = index[h] - 1;
+            if (i < 0 || getKey(i) == key) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Returns the entry of the key, and adds it with a count of 0 if there is
+     * none
+     */
+    protected int entry(long key) {
+        int mask = index.length - 1;
+        int h = hash(key);
+        for (;; h = (h + 1) & mask) {
+            int i = index[h] - 1;
+            if (i < 0) {
+                break;
+            }
+            if (getKey(i) == key) {
+                return i;
+            }
+        }
+        if (size == getCapacity()) {
+            setCapacity(size * 2);
+        }
+        setEntry(size, key, 0);
+        setSize(size + 1);
+        index[h] = size;
+        if (size * 2 > index.length) {
+            rehash(size * 2);
+        }
+        return size - 1;
+    }
+
+    /**
+     * Makes a new hash table with room for the given number of entries, and
+     * puts the entries in it
+     */
+    protected void rehash(int capacity) {
+        int bits = 32 - Integer.numberOfLeadingZeros(capacity * 2 - 1);
+        index = new int[1 << bits];
+        shift = 64 - bits;
+        int mask = index.length - 1;
+        for (int i = 0; i < size; i++) {
+            int h = hash(getKey(i));
+            while (index[h] != 0) {
+                h = (h + 1) & mask;
+            }
+            index[h] = i + 1;
+        }
+    }
+}
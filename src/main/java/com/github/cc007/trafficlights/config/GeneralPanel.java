@@ -157,7 +157,9 @@ public class GeneralPanel extends ConfigPanel implements ActionListener
 	}
 
         public void getMaxWait() {
-                SimController.setMaxRuWaitingQueue(Integer.parseInt(maxWait.getText()));
+                if (getConfigDialog().getController() instanceof SimController) {
+                        ((SimController) getConfigDialog().getController()).setMaxRuWaitingQueue(Integer.parseInt(maxWait.getText()));
+                }
         }
         
         //(DOAS 06)
@@ -166,7 +168,9 @@ public class GeneralPanel extends ConfigPanel implements ActionListener
         }
 
         public void setMaxWait() {
-                maxWait.setText(new String(Integer.toString(SimController.getMaxRuWaitingQueue())));
+                if (getConfigDialog().getController() instanceof SimController) {
+                        maxWait.setText(new String(Integer.toString(((SimController) getConfigDialog().getController()).getMaxRuWaitingQueue())));
+                }
         }
 
         //(DOAS 06)
@@ -18,6 +18,8 @@ import com.github.cc007.trafficlights.algo.edit.*;
 import com.github.cc007.trafficlights.infra.*;
 import com.github.cc007.trafficlights.utils.*;
 import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /* TO DO:
  in checkConnected moet de 2 vervangen worden door een constante die aangeeft hoeveel typen Roadusers er zijn
@@ -38,6 +40,24 @@ import java.util.*;
 public class Validation {
 
     Infrastructure infra;
+    /**
+     * Check every validation after a lane change against a full validation
+     */
+    public static boolean CROSS_CHECK = Boolean.getBoolean("gld.validation.crossCheck");
+    /**
+     * The errors found by the last full validation that a lane change cannot
+     * cause or take away, null if there was no full validation yet
+     */
+    protected ArrayList<String> unchangedErrors = null;
+    /**
+     * The connection errors for every roaduser type and special node, see
+     * getConnectedKey
+     */
+    protected TreeMap<Integer, ArrayList<String>> connectedErrors = new TreeMap<>();
+    /**
+     * The number of nodes and special nodes at the last full validation
+     */
+    protected int validatedNodes = -1, validatedSpecialNodes = -1;
 
     public Validation(Infrastructure i) {
         infra = i;
@@ -57,6 +77,30 @@ public class Validation {
     }
 
     public ArrayList<String> validate() throws InfraException {
+        return validate(null, ShortestPathCalculator.DEFAULT_DERIVATION_FACTOR);
+    }
+
+    /**
+     * Validates the infrastructure after the lanes of a road were disabled or
+     * enabled. Instead of calculating all shortest paths again, only the paths
+     * that could have changed are repaired. When this infrastructure was fully
+     * validated before, only the junction of the change and the connections
+     * to the exits of the repaired paths are checked again.
+     *
+     * @param change The finished description of the change, null to calculate
+     * all shortest paths again
+     * @param derivationFactor The derivation factor for the shortest paths
+     */
+    public ArrayList<String> validate(LaneChange change, double derivationFactor) throws InfraException {
+        if (change != null && unchangedErrors != null
+                && infra.getAllNodes().length == validatedNodes
+                && infra.getNumSpecialNodes() == validatedSpecialNodes) {
+            ArrayList<String> errors = validateChange(change, derivationFactor);
+            if (CROSS_CHECK) {
+                crossCheck(errors, derivationFactor);
+            }
+            return errors;
+        }
         ArrayList<String> errors = new ArrayList<>();
 
         SpecialNode[] specialNodes = infra.getSpecialNodes();
@@ -173,6 +217,7 @@ public class Validation {
             errors.add("ERROR(S) found in spawn frequency-checking:");
             errors.addAll(spFreqErrors);
         }
+        unchangedErrors = new ArrayList<>(errors);
 
         ArrayList<String> turnJustErrors = turnJustification();
         if (turnJustErrors.size() > 0) {
@@ -184,14 +229,16 @@ public class Validation {
         addSCData();
 
         // Add ShortestPathdata
-        addSPData();
+        if (change == null) {
+            addSPData(derivationFactor);
+        } else {
+            ShortestPathCalculator sp = new ShortestPathCalculator();
+            sp.updateShortestPaths(infra, change, derivationFactor);
+        }
 
         // check connectedness of the graph, this should be done after the shortestpathdata is added.
-        ArrayList<String> checkConnectedErrors = checkConnected();
-        if (checkConnectedErrors.size() > 0) {
-            errors.add("ERROR(S) found in Connected-checking:");
-            errors.addAll(checkConnectedErrors);
-        }
+        checkConnected();
+        addConnectedErrors(errors);
 
         // Now combining with addFreqs
         ArrayList<String> connectedAndFreqErrors = addFrequencies();
@@ -199,9 +246,63 @@ public class Validation {
             errors.add("ERROR(S) found in Connected and or Frequency checking/setting:");
             errors.addAll(connectedAndFreqErrors);
         }
+        validatedNodes = num_nodes;
+        validatedSpecialNodes = num_special;
         return errors;
     }
 
+    /**
+     * Validates only what the lanes of the change can have changed: the turns
+     * and sign configurations of its junction and the connections to the
+     * exits of which the shortest paths were repaired. The other errors are
+     * the ones the last full validation found.
+     */
+    protected ArrayList<String> validateChange(LaneChange change, double derivationFactor) throws InfraException {
+        ArrayList<String> errors = new ArrayList<>(unchangedErrors);
+
+        Junction junction = change.getJunction();
+        DriveLane[] lanes = junction.getInboundLanes();
+        for (int i = 0; i < lanes.length; i++) {
+            justifyTurns(lanes[i]);
+        }
+        junction.setSignConfigs(new SignConfigCalculator().calcSC(junction));
+
+        ShortestPathCalculator sp = new ShortestPathCalculator();
+        int[][] repaired = sp.updateShortestPaths(infra, change, derivationFactor);
+
+        SpecialNode[] specialNodes = infra.getSpecialNodes();
+        int[] ruTypes = getRUTypes(specialNodes);
+        for (int i = 0; i < repaired.length; i++) {
+            if (Integer.numberOfTrailingZeros(repaired[i][1]) >= RoaduserFactory.getNumConcreteTypes()) {
+                continue; // checkConnected does not check this type either
+            }
+            for (int j = 0; j < specialNodes.length; j++) {
+                if (specialNodes[j].getId() == repaired[i][0]) {
+                    checkConnectedTo(specialNodes, ruTypes, j, repaired[i][1]);
+                }
+            }
+        }
+        addConnectedErrors(errors);
+        return errors;
+    }
+
+    /**
+     * Validates everything again and logs it when the result differs from the
+     * result of validateChange
+     */
+    protected void crossCheck(ArrayList<String> errors, double derivationFactor) throws InfraException {
+        ArrayList<String> full = validate(null, derivationFactor);
+        ArrayList<String> sortedErrors = new ArrayList<>(errors);
+        ArrayList<String> sortedFull = new ArrayList<>(full);
+        Collections.sort(sortedErrors);
+        Collections.sort(sortedFull);
+        if (!sortedErrors.equals(sortedFull)) {
+            Logger.getLogger(Validation.class.getName()).log(Level.SEVERE,
+                    "Validating the lane change found {0}, validating everything found {1}",
+                    new Object[]{errors, full});
+        }
+    }
+
     /**
      * Add default spawning and destination frequencies to all EdgeNodes.
      */
@@ -361,95 +462,103 @@ public class Validation {
                 int num_lanes = dlanes.length;
 
                 for (int k = 0; k < num_lanes; k++) {
-                    Node danode = dlanes[k].getNodeLeadsTo();
-                    Road droad = dlanes[k].getRoad();
-                    Road[] dnroads = danode.getAllRoads();
-                    int road_index = -1;
-                    for (int r = 0; r < dnroads.length; r++) {
-                        if (dnroads[r] == droad) {
-                            road_index = r;
-                        }
-                    }
-
-                    boolean[] targets = dlanes[k].getTargets();
-                    boolean[] dtargets = new boolean[3];
-                    dtargets[0] = targets[0];
-                    dtargets[1] = targets[1];
-                    dtargets[2] = targets[2];
-                    int check_index;
-                    int num_turns = 0;
-
-                    if (danode instanceof Junction) {
-                        String tg1 = dtargets[0]
-                                ? danode.getAllRoads()[(road_index + 1) % 4]
-                                + "" : "-";
-                        String tg2 = dtargets[1]
-                                ? danode.getAllRoads()[(road_index + 2) % 4]
-                                + "" : "-";
-                        String tg3 = dtargets[2]
-                                ? danode.getAllRoads()[(road_index + 3) % 4]
-                                + "" : "-";
-
-                        //System.out.println("DriveLane towards Node:"+danode.getId()+" at pos "+road_index+" orig targets ("+dtargets[0]+","+dtargets[1]+","+dtargets[2]+") ("+tg1+","+tg2+","+tg3+")");
-                        if (dtargets[0]) {
-                            num_turns++;
-                            check_index = (road_index + 1) % 4;
-                            //System.out.println("Checking turn to nodepos:"+check_index);
-                            if (dnroads[check_index] == null) {
-                                dtargets[0] = false;
-                                num_turns--;
-                            }
-                        }
-                        if (dtargets[1]) {
-                            num_turns++;
-                            check_index = (road_index + 2) % 4;
-                            //System.out.println("Checking turn to nodepos:"+check_index);
-                            if (dnroads[check_index] == null) {
-                                dtargets[1] = false;
-                                num_turns--;
-                            }
-                        }
-                        if (targets[2]) {
-                            num_turns++;
-                            check_index = (road_index + 3) % 4;
-                            //System.out.println("Checking turn to nodepos:"+check_index);
-                            if (dnroads[check_index] == null) {
-                                dtargets[2] = false;
-                                num_turns--;
-                            }
-                        }
-
-                        //System.out.println("DriveLane towards Node:"+danode.getId()+" at pos "+road_index+"  new targets ("+dtargets[0]+","+dtargets[1]+","+dtargets[2]+") "+num_turns);
-                        if (num_turns == 0) {
-                            //System.out.println("No turns left, trying to find at least one possible turn for this lane.");
-                            int check_left = (road_index + 1) % 4;
-                            int check_straight = (road_index + 2) % 4;
-                            int check_right = (road_index + 3) % 4;
-                            if (dnroads[check_left] != null) {
-                                //System.out.println("Possible left turn");
-                                dtargets[0] = true;
-                            } else if (dnroads[check_straight] != null) {
-                                //System.out.println("Possible straight");
-                                dtargets[1] = true;
-                            } else if (dnroads[check_right] != null) {
-                                //System.out.println("Possible right turn");
-                                dtargets[2] = true;
-                            }
-                        }
-                    } else {
-                        //System.out.println("DriveLane towards EdgeNode:"+danode.getId()+" at pos "+road_index+" orig targets ("+dtargets[0]+","+dtargets[1]+","+dtargets[2]+")");
-                        dtargets[0] = false;
-                        dtargets[1] = true;
-                        dtargets[2] = false;
-                        //System.out.println("DriveLane towards EdgeNode:"+danode.getId()+" at pos "+road_index+"  new targets ("+dtargets[0]+","+dtargets[1]+","+dtargets[2]+")");
-                    }
-                    dlanes[k].setTargets(dtargets);
+                    justifyTurns(dlanes[k]);
                 }
             }
         }
         return errors;
     }
 
+    /**
+     * Makes sure the targets of the lane only point to roads of the node it
+     * leads to, and that it has at least one target left
+     */
+    private void justifyTurns(DriveLane lane) throws InfraException {
+        Node danode = lane.getNodeLeadsTo();
+        Road droad = lane.getRoad();
+        Road[] dnroads = danode.getAllRoads();
+        int road_index = -1;
+        for (int r = 0; r < dnroads.length; r++) {
+            if (dnroads[r] == droad) {
+                road_index = r;
+            }
+        }
+
+        boolean[] targets = lane.getTargets();
+        boolean[] dtargets = new boolean[3];
+        dtargets[0] = targets[0];
+        dtargets[1] = targets[1];
+        dtargets[2] = targets[2];
+        int check_index;
+        int num_turns = 0;
+
+        if (danode instanceof Junction) {
+            String tg1 = dtargets[0]
+                    ? danode.getAllRoads()[(road_index + 1) % 4]
+                    + "" : "-";
+            String tg2 = dtargets[1]
+                    ? danode.getAllRoads()[(road_index + 2) % 4]
+                    + "" : "-";
+            String tg3 = dtargets[2]
+                    ? danode.getAllRoads()[(road_index + 3) % 4]
+                    + "" : "-";
+
+            //System.out.println("DriveLane towards Node:"+danode.getId()+" at pos "+road_index+" orig targets ("+dtargets[0]+","+dtargets[1]+","+dtargets[2]+") ("+tg1+","+tg2+","+tg3+")");
+            if (dtargets[0]) {
+                num_turns++;
+                check_index = (road_index + 1) % 4;
+                //System.out.println("Checking turn to nodepos:"+check_index);
+                if (dnroads[check_index] == null) {
+                    dtargets[0] = false;
+                    num_turns--;
+                }
+            }
+            if (dtargets[1]) {
+                num_turns++;
+                check_index = (road_index + 2) % 4;
+                //System.out.println("Checking turn to nodepos:"+check_index);
+                if (dnroads[check_index] == null) {
+                    dtargets[1] = false;
+                    num_turns--;
+                }
+            }
+            if (targets[2]) {
+                num_turns++;
+                check_index = (road_index + 3) % 4;
+                //System.out.println("Checking turn to nodepos:"+check_index);
+                if (dnroads[check_index] == null) {
+                    dtargets[2] = false;
+                    num_turns--;
+                }
+            }
+
+            //System.out.println("DriveLane towards Node:"+danode.getId()+" at pos "+road_index+"  new targets ("+dtargets[0]+","+dtargets[1]+","+dtargets[2]+") "+num_turns);
+            if (num_turns == 0) {
+                //System.out.println("No turns left, trying to find at least one possible turn for this lane.");
+                int check_left = (road_index + 1) % 4;
+                int check_straight = (road_index + 2) % 4;
+                int check_right = (road_index + 3) % 4;
+                if (dnroads[check_left] != null) {
+                    //System.out.println("Possible left turn");
+                    dtargets[0] = true;
+                } else if (dnroads[check_straight] != null) {
+                    //System.out.println("Possible straight");
+                    dtargets[1] = true;
+                } else if (dnroads[check_right] != null) {
+                    //System.out.println("Possible right turn");
+                    dtargets[2] = true;
+                }
+            }
+        } else {
+            //System.out.println("DriveLane towards EdgeNode:"+danode.getId()+" at pos "+road_index+" orig targets ("+dtargets[0]+","+dtargets[1]+","+dtargets[2]+")");
+            dtargets[0] = false;
+            dtargets[1] = true;
+            dtargets[2] = false;
+            //System.out.println("DriveLane towards EdgeNode:"+danode.getId()+" at pos "+road_index+"  new targets ("+dtargets[0]+","+dtargets[1]+","+dtargets[2]+")");
+        }
+        lane.setTargets(dtargets);
+    }
+
     private int getRUTypes(SpecialNode mn) throws InfraException {
         int type = 0;
         DriveLane[] dls = mn.getOutboundLanes();
@@ -459,36 +568,66 @@ public class Validation {
         return type;
     }
 
-    private ArrayList<String> checkConnectedType(int type) throws InfraException {
-        ArrayList<String> errors = new ArrayList<>();
-
-        SpecialNode en1, en2;
-        SpecialNode[] specialNodes = infra.getSpecialNodes();
+    /**
+     * Returns the types of the roadusers that can leave each special node
+     */
+    private int[] getRUTypes(SpecialNode[] specialNodes) throws InfraException {
+        int[] types = new int[specialNodes.length];
         for (int i = 0; i < specialNodes.length; i++) {
-            en1 = specialNodes[i];
-
-            if ((getRUTypes(en1) & type) != 0) {
-                for (int j = i + 1; j < specialNodes.length; j++) {
-                    en2 = specialNodes[j];
-                    if ((getRUTypes(en2) & type) != 0) {
-                        DriveLane[] dl = en1.getShortestPaths(en2.getId(), type);
-                        if (dl.length == 0) {
-                            errors.add("ERROR: specialNode " + en1.getId()
-                                    + " is not connected to specialNode "
-                                    + en2.getId() + " in type "
-                                    + RoaduserFactory.getDescByType(
-                                            type));
-                        }
+            types[i] = getRUTypes(specialNodes[i]);
+        }
+        return types;
+    }
+
+    /**
+     * Returns where the connection errors for the given roaduser type and
+     * special node are kept in connectedErrors
+     */
+    private int getConnectedKey(int type, int specialIndex) {
+        return Integer.numberOfTrailingZeros(type) * validatedSpecialNodes + specialIndex;
+    }
+
+    /**
+     * Checks whether the special nodes before the given one in specialNodes
+     * are connected to it, and keeps the errors in connectedErrors
+     *
+     * @param specialNodes The special nodes
+     * @param ruTypes The types of the roadusers that can leave each special
+     * node
+     * @param j The index of the special node to check the connections to
+     * @param type The type of roaduser
+     */
+    private void checkConnectedTo(SpecialNode[] specialNodes, int[] ruTypes, int j, int type) throws InfraException {
+        ArrayList<String> errors = new ArrayList<>();
+        SpecialNode en2 = specialNodes[j];
+        if ((ruTypes[j] & type) != 0) {
+            for (int i = 0; i < j; i++) {
+                SpecialNode en1 = specialNodes[i];
+                if ((ruTypes[i] & type) != 0) {
+                    DriveLane[] dl = en1.getShortestPaths(en2.getId(), type);
+                    if (dl.length == 0) {
+                        errors.add("ERROR: specialNode " + en1.getId()
+                                + " is not connected to specialNode "
+                                + en2.getId() + " in type "
+                                + RoaduserFactory.getDescByType(
+                                        type));
                     }
                 }
             }
-
         }
-        return errors;
+        int key = getConnectedKey(type, j);
+        if (errors.isEmpty()) {
+            connectedErrors.remove(key);
+        } else {
+            connectedErrors.put(key, errors);
+        }
     }
 
-    private ArrayList<String> checkConnected() throws InfraException {
-        ArrayList<String> errors = new ArrayList<>();
+    private void checkConnected() throws InfraException {
+        connectedErrors.clear();
+        validatedSpecialNodes = infra.getNumSpecialNodes();
+        SpecialNode[] specialNodes = infra.getSpecialNodes();
+        int[] ruTypes = getRUTypes(specialNodes);
 
         // Check for every type wheter it is connected or not.
         int type = 1;
@@ -496,11 +635,23 @@ public class Validation {
 
         // Should be way different than this.. not sure how.
         for (int i = 0; i < concreteTypes.length; i++) {
-            errors.addAll(checkConnectedType(type));
+            for (int j = 0; j < specialNodes.length; j++) {
+                checkConnectedTo(specialNodes, ruTypes, j, type);
+            }
             type *= 2;
         }
+    }
 
-        return errors;
+    /**
+     * Adds the connection errors found to the given errors
+     */
+    private void addConnectedErrors(ArrayList<String> errors) {
+        if (!connectedErrors.isEmpty()) {
+            errors.add("ERROR(S) found in Connected-checking:");
+            for (ArrayList<String> typeErrors : connectedErrors.values()) {
+                errors.addAll(typeErrors);
+            }
+        }
     }
 
     private ArrayList<String> checkInfra() throws InfraException {
@@ -541,14 +692,14 @@ public class Validation {
         }
     }
 
-    private void addSPData() throws InfraException {
+    private void addSPData(double derivationFactor) throws InfraException {
         Node[] nodes = infra.getAllNodes();
         int num_nodes = nodes.length;
         for (int i = 0; i < num_nodes; i++) {
             nodes[i].zapShortestPaths();
         }
         ShortestPathCalculator sp = new ShortestPathCalculator();
-        sp.calcAllShortestPaths(infra);
+        sp.calcAllShortestPaths(infra, derivationFactor);
     }
 
     protected SpawnFrequency[] spawnFreq
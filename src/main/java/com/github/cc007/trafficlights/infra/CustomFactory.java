@@ -17,7 +17,7 @@ package com.github.cc007.trafficlights.infra;
 
 import java.awt.*;
 import java.util.*;
-import com.github.cc007.trafficlights.GLDSim;
+import com.github.cc007.trafficlights.sim.SimContext;
 
 /**
  *
@@ -95,7 +95,8 @@ public class CustomFactory {
     protected static final int PROP_ROADUSER_TYPE = 8;
     protected static final boolean useOnlyNormalCars = true;
 
-    protected static Random rnd;
+    protected SimContext context;
+    protected Random rnd;
 
     protected static final int[] SupportedTypes = {
         RoaduserFactory.CAR,
@@ -253,30 +254,43 @@ public class CustomFactory {
         {getRGB(0, 255, 0)},};
 
     // Used by functions to cache chances
-    protected static float[] VehicleChances = new float[VehicleProperties.length];
-    protected static float[] PersonChances = new float[PersonProperties.length];
+    protected float[] VehicleChances = new float[VehicleProperties.length];
+    protected float[] PersonChances = new float[PersonProperties.length];
+    // Number of these vehicles and people currently in the simulation
+    protected int[] VehicleCount = new int[VehicleProperties.length];
+    protected int[] PersonCount = new int[PersonProperties.length];
 
-    public static void reset() {
+    /**
+     * Creates the custom roaduser generator of a simulation
+     *
+     * @param c The context of the simulation, it provides the seed
+     */
+    public CustomFactory(SimContext c) {
+        context = c;
+        reset();
+    }
+
+    public void reset() {
         for (int i = 0; i < VehicleChances.length; i++) {
             VehicleChances[i] = 1.0f;
-            VehicleProperties[i][PROP_NR_CURRENT] = 0;
+            VehicleCount[i] = 0;
         }
         for (int i = 0; i < PersonChances.length; i++) {
             PersonChances[i] = 1.0f;
-            PersonProperties[i][PROP_NR_CURRENT] = 0;
+            PersonCount[i] = 0;
         }
-        rnd = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        rnd = new Random(context.getSeed());
     }
 
-    public static void removeCustom(CustomRoaduser ru) {
+    public void removeCustom(CustomRoaduser ru) {
         int vehicle = ru.getVehicle();
         int driver = ru.getDriver();
-        VehicleProperties[vehicle][PROP_NR_CURRENT]--;
-        PersonProperties[driver][PROP_NR_CURRENT]--;
+        VehicleCount[vehicle]--;
+        PersonCount[driver]--;
         if (VehicleProperties[vehicle][PROP_NR_MAX] != 0) {
             VehicleChances[vehicle]
                     = (VehicleProperties[vehicle][PROP_NR_MAX]
-                    - VehicleProperties[vehicle][PROP_NR_CURRENT])
+                    - VehicleCount[vehicle])
                     / VehicleProperties[vehicle][PROP_NR_MAX];
         } else {
             VehicleChances[vehicle] = 1.0f;
@@ -285,14 +299,14 @@ public class CustomFactory {
         if (PersonProperties[driver][PROP_NR_MAX] != 0) {
             PersonChances[driver]
                     = (PersonProperties[driver][PROP_NR_MAX]
-                    - PersonProperties[driver][PROP_NR_CURRENT])
+                    - PersonCount[driver])
                     / PersonProperties[driver][PROP_NR_MAX];
         } else {
             PersonChances[driver] = 1.0f;
         }
     }
 
-    public static Roaduser genRoaduser(int type, Node start, Node dest, int pos) throws InfraException {
+    public Roaduser genRoaduser(int type, Node start, Node dest, int pos) throws InfraException {
         if (useOnlyNormalCars) {
             return new Car(start, dest, pos);
         }
@@ -306,6 +320,7 @@ public class CustomFactory {
             return null; // unsupported roaduser type
         }
         CustomRoaduser ru = new CustomRoaduser(start, dest, pos);
+        ru.setFactory(this);
         int[] vehicles = TypeVehicle[ti];
         float chance = 0;
         float vc = 0;
@@ -320,11 +335,11 @@ public class CustomFactory {
             vehicle = vehicles[i];
             vc = VehicleProperties[vehicle][PROP_CHANCE] * VehicleChances[vehicle];
             if (pick >= chance && pick <= chance + vc) {
-                VehicleProperties[vehicle][PROP_NR_CURRENT]++;
+                VehicleCount[vehicle]++;
                 if (VehicleProperties[vehicle][PROP_NR_MAX] != 0) {
                     VehicleChances[vehicle]
                             = (VehicleProperties[vehicle][PROP_NR_MAX]
-                            - VehicleProperties[vehicle][PROP_NR_CURRENT])
+                            - VehicleCount[vehicle])
                             / VehicleProperties[vehicle][PROP_NR_MAX];
                 } else {
                     VehicleChances[vehicle] = 1.0f;
@@ -357,11 +372,11 @@ public class CustomFactory {
             driver = drivers[i];
             dc = PersonProperties[driver][PROP_CHANCE] * PersonChances[driver];
             if (pick >= chance && pick <= chance + dc) { // equal too happens never anyway
-                PersonProperties[driver][PROP_NR_CURRENT]++;
+                PersonCount[driver]++;
                 if (PersonProperties[driver][PROP_NR_MAX] != 0) {
                     PersonChances[driver]
                             = (PersonProperties[driver][PROP_NR_MAX]
-                            - PersonProperties[driver][PROP_NR_CURRENT])
+                            - PersonCount[driver])
                             / PersonProperties[driver][PROP_NR_MAX];
                 } else {
                     PersonChances[driver] = 1.0f;
@@ -382,7 +397,7 @@ public class CustomFactory {
         return ru;
     }
 
-    public static Roaduser genRoaduser(int type) throws InfraException {
+    public Roaduser genRoaduser(int type) throws InfraException {
         return genRoaduser(type, null, null, 0);
     }
 
@@ -34,6 +34,8 @@ public class CustomRoaduser extends Roaduser
   protected int vehicle;
   protected int driver;
   protected int[] passengers = { 1 };
+  /** The factory that generated this custom, it keeps count of the customs in its simulation. */
+  protected CustomFactory factory;
 
 
 	public CustomRoaduser(Node start, Node dest, int pos) {
@@ -43,6 +45,11 @@ public class CustomRoaduser extends Roaduser
 	/** Empty constructor for loading */
 	public CustomRoaduser() { }
 
+	/** Returns the factory that generated this custom, null if it was loaded. */
+	public CustomFactory getFactory() { return factory; }
+	/** Sets the factory that generated this custom. */
+	public void setFactory(CustomFactory f) { factory = f; }
+
 	/** Returns the ID of the vehicle. */	
 	public int getVehicle() { return vehicle; }
 	/** Returns the name of thevehicle. */
@@ -23,6 +23,8 @@ import java.awt.geom.*;
 import java.io.IOException;
 import java.util.*;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  *
@@ -52,9 +54,9 @@ public class DriveLane
      */
     protected Road road;
     /**
-     * The roadusers currently on this DriveLane
+     * The roadusers currently on this DriveLane, ordered by position
      */
-    protected LinkedList<Roaduser> queue;
+    protected LaneQueue queue;
     /**
      * The Sign at the end of this DriveLane
      */
@@ -68,6 +70,10 @@ public class DriveLane
      * The directions that were before lane was disabled (DOAS 05)
      */
     protected int[] targetsOriginal = {-1, -1, -1};
+    /**
+     * Whether this lane is disabled by an accident (DOAS 06)
+     */
+    protected boolean disabled = false;
 
     /**
      * The last cycle this DriveLane was asked if it had moved its Roadusers yet
@@ -86,6 +92,18 @@ public class DriveLane
      * A Shape array holding this drivelane's boundaries
      */
     protected Shape[] bounds = null;
+    /**
+     * The number of Roadusers, passengers and blocks waiting for the Sign, as
+     * counted at queue version waitingVersion. The version is volatile, so a
+     * thread that sees it also sees the counts, when the traffic light
+     * controller decides the nodes concurrently.
+     */
+    protected int numRoadusersWaiting, numPassengersWaiting, numBlocksWaiting;
+    protected volatile int waitingVersion = -1;
+    /**
+     * Check every cached waiting count against a full scan of the queue
+     */
+    public static boolean CHECK_WAITING_COUNTS = Boolean.getBoolean("gld.checkWaitingCounts");
 
     public DriveLane(Road _road) {
         road = _road;
@@ -94,7 +112,7 @@ public class DriveLane
         cycleMoved = -1;
         Id = -1;
         type = RoaduserFactory.getTypeByDesc("Automobiles");
-        queue = new LinkedList<>();
+        queue = new LaneQueue();
     }
 
     /**
@@ -123,15 +141,19 @@ public class DriveLane
     /**
      * Returns the queue of this DriveLane
      */
-    public LinkedList<Roaduser> getQueue() {
+    public LaneQueue getQueue() {
         return queue;
     }
 
     /**
      * Sets the queue of this DriveLane
+     *
+     * @param q The roadusers on this DriveLane, ordered by position
      */
-    public void setQueue(LinkedList<Roaduser> q) {
-        queue = q;
+    public void setQueue(List<Roaduser> q) {
+        queue = new LaneQueue();
+        waitingVersion = -1;	// The version of the new queue starts at 0 again
+        queue.addAll(q);
     }
 
     /**
@@ -146,6 +168,7 @@ public class DriveLane
      */
     public void setType(int t) {
         type = t;
+        turnsChanged();
     }
 
     /**
@@ -159,7 +182,9 @@ public class DriveLane
      * Sets the Road that this DriveLane belongs to
      */
     public void setRoad(Road r) {
+        turnsChanged();
         road = r;
+        turnsChanged();
     }
 
     /**
@@ -176,6 +201,20 @@ public class DriveLane
         sign = s;
     }
 
+    /**
+     * Returns true if this DriveLane is disabled by an accident
+     */
+    public boolean isDisabled() {
+        return disabled;
+    }
+
+    /**
+     * Sets whether this DriveLane is disabled by an accident
+     */
+    public void setDisabled(boolean b) {
+        disabled = b;
+    }
+
     /**
      * Returns the roads users can move to when crossing the Node this lane
      * leads to
@@ -190,6 +229,7 @@ public class DriveLane
      */
     public void setTargets(boolean[] r) {
         targets = r;
+        turnsChanged();
     }
 
     /**
@@ -248,18 +288,15 @@ public class DriveLane
         return getLength() + getTailLength();
     }
 
+    /**
+     * Returns the number of free blocks in front of the given Roaduser
+     */
     public int getFreeUnitsInFront(Roaduser ru) {
-        int posroom = ru.getPosition();
-        ListIterator li = queue.listIterator();
-        Roaduser r = null;
-        while (li.hasNext()) {
-            r = (Roaduser) li.next();
-            if (r == ru) {
-                break;
-            }
-            posroom -= r.getLength();
+        int index = queue.indexOfRoaduser(ru);
+        if (index < 0) {
+            return ru.getPosition() - queue.getBlocksTaken();
         }
-        return posroom;
+        return ru.getPosition() - queue.getBlocksBefore(index);
     }
 
     /*============================================*/
@@ -343,7 +380,7 @@ public class DriveLane
         }
         loader.load(this, sign);
         sign.setLane(this);
-        queue = (LinkedList<Roaduser>) XMLArray.loadArray(this, loader);
+        setQueue((List<Roaduser>) XMLArray.loadArray(this, loader));
     }
 
     @Override
@@ -363,7 +400,7 @@ public class DriveLane
         XMLArray.saveArray(targets, this, saver, "targets");
         saver.saveObject(sign);
         XMLUtils.setParentName(queue.iterator(), getXMLName());
-        XMLArray.saveArray(queue, this, saver, "queue");
+        XMLArray.saveArray(new LinkedList<>(queue), this, saver, "queue");
     }
 
     @Override
@@ -405,7 +442,8 @@ public class DriveLane
     public void reset() {
         //System.out.println("Resetting lane " + Id);
         resetTargets();
-        queue = new LinkedList<>();
+        queue = new LaneQueue();
+        waitingVersion = -1;
         cycleMoved = -1;
         cycleAsked = -1;
         sign.reset();
@@ -417,10 +455,21 @@ public class DriveLane
             if (targetsOriginal[i] > -1) {
                 targets[i] = (targetsOriginal[i] == 0) ? false : true;
                 targetsOriginal[i] = -1;
+                turnsChanged();
             }
         }
     }
 
+    /**
+     * Tells the nodes of the road of this lane that the lanes leading to and
+     * from this lane may have changed
+     */
+    private void turnsChanged() {
+        if (road != null) {
+            road.turnsChanged();
+        }
+    }
+
     /**
      * Adds a Roaduser at the end of this lane
      *
@@ -441,7 +490,7 @@ public class DriveLane
      */
     public void addRoaduserAtEnd(Roaduser ru, int pos) throws InfraException {
         if (!queue.isEmpty()) {
-            Roaduser last = (Roaduser) queue.getLast();
+            Roaduser last = queue.getLast();
             if (last.getPosition() + last.getLength() <= pos) {
                 ru.setPosition(pos);
                 queue.addLast(ru);
@@ -497,7 +546,7 @@ public class DriveLane
         if (queue.isEmpty()) {
             throw new InfraException("No roaduser to remove");
         }
-        Roaduser ru = (Roaduser) queue.removeFirst();
+        Roaduser ru = queue.removeFirst();
         //if (ru.getPosition() != 0) throw new InfraException("First Roaduser not at start of lane");
         ru.setPosition(-1);
         return ru;
@@ -531,7 +580,7 @@ public class DriveLane
      * Returns the first Roaduser on this DriveLane
      */
     public Roaduser getFirstRoaduser() {
-        return (Roaduser) queue.getFirst();
+        return queue.getFirst();
     }
 
     /**
@@ -539,6 +588,32 @@ public class DriveLane
      * DriveLane
      */
     public int getNumRoadusersWaiting() {
+        updateWaitingCounts();
+        return numRoadusersWaiting;
+    }
+
+    /**
+     * Counts the Roadusers, passengers and blocks waiting for the Sign again
+     * when the queue changed since they were last counted. The queue changes
+     * when roadusers are added, removed or moved by SimModel.moveLane.
+     */
+    protected void updateWaitingCounts() {
+        int version = queue.getVersion();
+        if (version == waitingVersion) {
+            if (CHECK_WAITING_COUNTS) {
+                checkWaitingCounts();
+            }
+            return;
+        }
+        scanWaiting();
+        waitingVersion = version;
+    }
+
+    /**
+     * Scans the queue for the Roadusers that are waiting for the Sign, and
+     * sets the number of Roadusers, passengers and blocks waiting
+     */
+    protected void scanWaiting() {
         /* old
        ListIterator li = queue.listIterator();
        Roaduser ru = null;
@@ -559,7 +634,7 @@ public class DriveLane
         Roaduser ru = null;
         int pos = 0;
         int ru_pos;
-        int count = 0, cnt_step = 0;
+        int count = 0, passengers = 0, blocks = 0, cnt_step = 0;
         while (li.hasNext()) {
             ru = (Roaduser) li.next();
             ru_pos = ru.getPosition();
@@ -568,15 +643,34 @@ public class DriveLane
             // if(ru_pos > pos) return count;
             // nu: waar ru terecht kan komen, moet nog rekening worden gehouden met inloop vakjes
             if (ru_pos - ru.getSpeed() > pos - cnt_step) {
-                return count; // Wont be able to wait.
+                break; // Wont be able to wait.
             } else if (ru_pos - ru.getSpeed() <= pos - cnt_step) {
                 cnt_step += ru_pos - pos; // The free blocks ahead of ru, if everyone moves on.
                 pos = ru_pos + ru.getLength();
                 count++;
+                passengers += ru.getNumPassengers();
+                blocks += ru.getLength();
             }
         }
 
-        return count;
+        numRoadusersWaiting = count;
+        numPassengersWaiting = passengers;
+        numBlocksWaiting = blocks;
+    }
+
+    /**
+     * Compares the cached waiting counts with a full scan of the queue
+     */
+    protected void checkWaitingCounts() {
+        int roadusers = numRoadusersWaiting, passengers = numPassengersWaiting, blocks = numBlocksWaiting;
+        scanWaiting();
+        if (roadusers != numRoadusersWaiting || passengers != numPassengersWaiting
+                || blocks != numBlocksWaiting) {
+            Logger.getLogger(DriveLane.class.getName()).log(Level.SEVERE,
+                    "Waiting counts of {0} are out of date: {1}, {2}, {3} instead of {4}, {5}, {6}",
+                    new Object[]{getName(), roadusers, passengers, blocks,
+                        numRoadusersWaiting, numPassengersWaiting, numBlocksWaiting});
+        }
     }
 
     /* !! Klopt geen fuck van -alert !! */
@@ -616,23 +710,8 @@ public class DriveLane
      * the Sign of this DriveLane
      */
     public int getNumPassengersWaiting() {
-        ListIterator li = queue.listIterator();
-        Roaduser ru = null;
-        int pos = 0;
-        int ru_pos;
-        int count = 0, cnt_step = 0;
-        while (li.hasNext()) {
-            ru = (Roaduser) li.next();
-            ru_pos = ru.getPosition();
-            if (ru_pos - ru.getSpeed() > pos - cnt_step) {
-                return count; // Wont be able to wait.
-            } else if (ru_pos - ru.getSpeed() <= pos - cnt_step) {
-                cnt_step += ru_pos - pos; // The free blocks ahead of ru, if everyone moves on.
-                pos = ru_pos + ru.getLength();
-                count += ru.getNumPassengers();
-            }
-        }
-        return count;
+        updateWaitingCounts();
+        return numPassengersWaiting;
     }
 
     /**
@@ -640,39 +719,15 @@ public class DriveLane
      * Sign of this DriveLane
      */
     public int getNumBlocksWaiting() {
-        ListIterator li = queue.listIterator();
-        Roaduser ru = null;
-        int pos = 0;
-        int ru_pos;
-        int count = 0, cnt_step = 0;
-        while (li.hasNext()) {
-            ru = (Roaduser) li.next();
-            ru_pos = ru.getPosition();
-            if (ru_pos - ru.getSpeed() > pos - cnt_step) {
-                return count; // Wont be able to wait.
-            } else if (ru_pos - ru.getSpeed() <= pos - cnt_step) {
-                cnt_step += ru_pos - pos; // The free blocks ahead of ru, if everyone moves on.
-                pos = ru_pos + ru.getLength();
-                count += ru.getLength();
-            }
-        }
-        return count;
+        updateWaitingCounts();
+        return numBlocksWaiting;
     }
 
     /**
      * Returns the number of blocks taken by Roadusers on this DriveLane
      */
     public int getNumBlocksTaken() {
-        ListIterator li = queue.listIterator();
-        Roaduser ru = null;
-        int pos = 0;
-        int ru_pos;
-        int count = 0;
-        while (li.hasNext()) {
-            ru = (Roaduser) li.next();
-            count += ru.getLength();
-        }
-        return count;
+        return queue.getBlocksTaken();
     }
 
     /**
@@ -711,6 +766,7 @@ public class DriveLane
             throw new InfraException("Target out of range");
         }
         targets[target] = state;
+        turnsChanged();
     }
 
     /**
@@ -739,23 +795,12 @@ public class DriveLane
      * @param length The amount of blocks that need to be free.
      */
     public boolean isPosFree(int position, int length) {
-        ListIterator li = queue.listIterator();
-        Roaduser ru = null;
-        int rupos;
-        int rulen;
-
-        while (li.hasNext()) {
-            ru = (Roaduser) li.next();
-            rupos = ru.getPosition();
-            rulen = ru.getLength();
-
-            if (rupos > position + length) {
-                return true;
-            } else if (rupos + rulen >= position) {
-                return false;
-            }
+        // The first roaduser that reaches the position decides
+        int index = queue.indexOfFirstEndingAfter(position - 1);
+        if (index == queue.size()) {
+            return true;
         }
-        return true;
+        return queue.get(index).getPosition() > position + length;
     }
 
     /**
@@ -769,27 +814,13 @@ public class DriveLane
      * blocks are free for the supplied RU
      */
     public boolean isPosFree(int position, int length, Roaduser me) {
-        ListIterator li = queue.listIterator();
-        Roaduser ru = null;
-        int rupos;
-        int rulen;
-
-        while (li.hasNext()) {
-            ru = (Roaduser) li.next();
-            if (ru != me) {
-                rupos = ru.getPosition();
-                rulen = ru.getLength();
-
-                if (rupos + rulen > position) {
-                    return false;
-                } else if (rupos > position + length) {
-                    return true;
-                }
-            } else {
-                return true;
-            }
+        // Free unless a roaduser in front of me reaches past the position
+        int index = queue.indexOfFirstEndingAfter(position);
+        if (index == queue.size()) {
+            return true;
         }
-        return true;
+        int myIndex = queue.indexOfRoaduser(me);
+        return myIndex >= 0 && myIndex <= index;
     }
 
     /**
@@ -798,7 +829,7 @@ public class DriveLane
      */
     public boolean isTailFree() {
         if (!queue.isEmpty()) {
-            Roaduser ru = (Roaduser) queue.getLast();
+            Roaduser ru = queue.getLast();
             if (ru.getPosition() < getLength()) {
                 return true;
             } else {
@@ -809,29 +840,19 @@ public class DriveLane
     }
 
     public boolean isLastPosFree(int length) {
-        int qSize = queue.size();
-        int dLength = getLength();
-
-        if (qSize > 0) {
-            ListIterator li = queue.listIterator();
-            Roaduser ru = null;
-            int desired_position = getLength() - length;
+        if (!queue.isEmpty()) {
+            // The roadusers are ordered by position, so the last one reaches furthest
+            Roaduser ru = queue.getLast();
             int real_pos = getCompleteLength() - length;
-            int dlSize = 0;
-
-            while (li.hasNext()) {
-                ru = (Roaduser) li.next();
-                dlSize += ru.getLength();
-                if (ru.getPosition() + ru.getLength() > real_pos) {
-                    return false;
-                }
+            if (ru.getPosition() + ru.getLength() > real_pos) {
+                return false;
             }
-            if (dlSize + length > getLength()) {
+            if (queue.getBlocksTaken() + length > getLength()) {
                 // See if the current inhabitants already fill up the DriveLane
                 return false;
             } else {
                 // The current inhabitants and length fit on the drivelane
-                // Furthermore, there is space on the tail (see return false in while{})
+                // Furthermore, there is space on the tail (see the check on the last roaduser)
                 return true;
             }
         }
@@ -844,29 +865,13 @@ public class DriveLane
      * @ author Chaim Z
      */
     public boolean isFull() {
-        ListIterator li = queue.listIterator();
-        Roaduser ru = null;
-        int position = 0;
-        int rupos;
-        int rulen;
-
         // if empty return false
-        if (!li.hasNext()) {
+        if (queue.isEmpty()) {
             return false;
         }
-
-        while (li.hasNext()) {
-            ru = (Roaduser) li.next();
-            rupos = ru.getPosition();
-
-            if (rupos > position) {
-                return false;
-            }
-
-            rulen = ru.getLength();
-            position += rulen;
-        }
-        return true;
+        // Full when there are no free blocks between the roadusers
+        Roaduser ru = queue.getLast();
+        return ru.getPosition() + ru.getLength() <= queue.getBlocksTaken();
     }
 
     /**
@@ -913,7 +918,7 @@ public class DriveLane
         }
     }
 
-    public LinkedList getCompleteQueue() {
+    public LaneQueue getCompleteQueue() {
         return queue;
     }
 
@@ -0,0 +1,151 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.infra;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ *
+ * Generated infrastructure used for testing: a square grid of junctions with
+ * an edge node at both ends of every row and column. Every road has one lane
+ * in each direction from which roadusers can go left, straight on and right.
+ * The road lengths are drawn from a random generator with the given seed, so
+ * the same size and seed always give the same infrastructure.
+ *
+ * @author Group Datastructures
+ * @version 1.0
+ */
+public class GridInfra extends Infrastructure {
+
+    protected static final int SPACING = 100;
+    protected static final int MIN_LENGTH = 5, MAX_LENGTH = 20;
+
+    /**
+     * The inbound signs of every node, indexed by node id
+     */
+    protected ArrayList<ArrayList<Sign>> signs;
+    protected Random lengths;
+
+    /**
+     * Creates a grid of size x size junctions, with 4 * size edge nodes.
+     * The edge nodes get the ids 0 up to 4 * size, then the junctions follow
+     * row by row.
+     *
+     * @param size The number of junctions in every row and column
+     * @param seed The seed for the road lengths
+     */
+    public GridInfra(int size, long seed) {
+        super(new Dimension((size + 2) * SPACING, (size + 2) * SPACING));
+        lengths = new Random(seed);
+
+        int numEdges = 4 * size;
+        allNodes = new Node[numEdges + size * size];
+        specialNodes = new SpecialNode[numEdges];
+        junctions = new Junction[size * size];
+        signs = new ArrayList<>(allNodes.length);
+        for (int i = 0; i < allNodes.length; i++) {
+            signs.add(new ArrayList<Sign>());
+        }
+
+        // Edge nodes: north, east, south and west of every row and column
+        EdgeNode[] north = new EdgeNode[size], east = new EdgeNode[size],
+                south = new EdgeNode[size], west = new EdgeNode[size];
+        for (int i = 0; i < size; i++) {
+            north[i] = addEdgeNode(i, new Point(position(i), position(-1)));
+            east[i] = addEdgeNode(size + i, new Point(position(size), position(i)));
+            south[i] = addEdgeNode(2 * size + i, new Point(position(i), position(size)));
+            west[i] = addEdgeNode(3 * size + i, new Point(position(-1), position(i)));
+        }
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                Junction junction = new Junction(new Point(position(col), position(row)));
+                junction.setId(numEdges + row * size + col);
+                allNodes[junction.getId()] = junction;
+                junctions[row * size + col] = junction;
+            }
+        }
+
+        try {
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    Node junction = getJunction(size, row, col);
+                    Node up = (row == 0) ? north[col] : getJunction(size, row - 1, col);
+                    connect(junction, 0, up, 2);
+                    Node left = (col == 0) ? west[row] : getJunction(size, row, col - 1);
+                    connect(junction, 3, left, 1);
+                }
+                connect(east[row], 3, getJunction(size, row, size - 1), 1);
+            }
+            for (int col = 0; col < size; col++) {
+                connect(south[col], 0, getJunction(size, size - 1, col), 2);
+            }
+            for (Junction junction : junctions) {
+                ArrayList<Sign> inbound = signs.get(junction.getId());
+                junction.setSigns(inbound.toArray(new Sign[inbound.size()]));
+            }
+        } catch (InfraException e) {
+            e.printStackTrace();
+        }
+        signs = null;
+    }
+
+    protected static int position(int i) {
+        return (i + 1) * SPACING;
+    }
+
+    protected Node getJunction(int size, int row, int col) {
+        return allNodes[4 * size + row * size + col];
+    }
+
+    protected EdgeNode addEdgeNode(int id, Point coord) {
+        EdgeNode edge = new EdgeNode(coord);
+        edge.setId(id);
+        SpawnFrequency[] sfa = {new SpawnFrequency(1, 0.1f)};
+        edge.setSpawnFrequencies(sfa);
+        allNodes[id] = edge;
+        specialNodes[id] = edge;
+        return edge;
+    }
+
+    /**
+     * Connects two nodes with a road with one lane in each direction
+     *
+     * @param alpha The alpha node of the road
+     * @param alphaPos The position of the road at the alpha node
+     * @param beta The beta node of the road
+     * @param betaPos The position of the road at the beta node
+     */
+    protected void connect(Node alpha, int alphaPos, Node beta, int betaPos) throws InfraException {
+        Road road = new Road(alpha, beta, MIN_LENGTH + lengths.nextInt(MAX_LENGTH - MIN_LENGTH + 1));
+        road.addAlphaLane(createLane(road, alpha));
+        road.addBetaLane(createLane(road, beta));
+        alpha.addRoad(road, alphaPos);
+        beta.addRoad(road, betaPos);
+    }
+
+    protected DriveLane createLane(Road road, Node leadsTo) throws InfraException {
+        DriveLane lane = new DriveLane(road);
+        lane.setType(1);
+        boolean[] targets = {true, true, true};
+        lane.setTargets(targets);
+        TrafficLight light = new TrafficLight(leadsTo, lane);
+        lane.setSign(light);
+        signs.get(leadsTo.getId()).add(light);
+        return lane;
+    }
+}
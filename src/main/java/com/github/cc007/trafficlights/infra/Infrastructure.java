@@ -15,12 +15,15 @@
 package com.github.cc007.trafficlights.infra;
 
 import java.awt.*;
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
 
 import com.github.cc007.trafficlights.*;
+import com.github.cc007.trafficlights.algo.edit.LaneChange;
 import com.github.cc007.trafficlights.algo.edit.ShortestPathCalculator;
 import com.github.cc007.trafficlights.infra.Node.NodeStatistics;
+import com.github.cc007.trafficlights.sim.SimContext;
 import com.github.cc007.trafficlights.utils.*;
 import com.github.cc007.trafficlights.xml.*;
 import com.github.cc007.trafficlights.edit.Validation;
@@ -86,16 +89,39 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
     /**
      * List of disabled Lanes
      */
-    protected static ArrayList<DriveLane> disabledLanes = new ArrayList<>();
-    protected static ArrayList<DriveLane> notYetDisabledLanes = new ArrayList<>();
+    protected IndexedSet<DriveLane> disabledLanes = new IndexedSet<>();
+    protected IndexedSet<DriveLane> notYetDisabledLanes = new IndexedSet<>();
+    /**
+     * True while lanes were disabled or enabled without repairing the shortest
+     * paths, so the next change has to calculate them all again
+     */
+    protected boolean shortestPathsOutdated = false;
+    /**
+     * The derivation factor the shortest paths were calculated with
+     */
+    protected double routeDerivationFactor = ShortestPathCalculator.DEFAULT_DERIVATION_FACTOR;
+    /**
+     * The route cache the shortest paths are saved to instead of the XML file,
+     * null to save them in the XML file
+     */
+    protected File routeCache = null;
+    /**
+     * True when the infrastructure was loaded from a file that has its
+     * shortest paths in a route cache, until they are read
+     */
+    protected boolean routesCached = false;
     /**
      * Accidents rate (DOAS 06)
      */
     protected static int accidentsRate = 200;
+    /**
+     * The context of the simulation this infrastructure is used in
+     */
+    protected SimContext context = new SimContext();
     /**
      * Random class
      */
-    protected Random rnd = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+    protected Random rnd = new Random(context.getSeed());
     public static final int blockLength = 10;
     public static final int blockWidth = 10;
 
@@ -181,7 +207,7 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
             // upper bound of the cycles count because the simulation must not be slown down by infinite cycles
             for (int tr = 0; tr < 16; tr++) {
                 int randint = rnd.nextInt(notYetDisabledLanes.size());
-                toBeDisabledLane = (DriveLane) notYetDisabledLanes.get(randint);
+                toBeDisabledLane = notYetDisabledLanes.get(randint);
                 if (rnd.nextInt(toBeDisabledLane.getLength()) < toBeDisabledLane.getNumBlocksTaken()) {
                     break;
                 }
@@ -215,10 +241,15 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
                     otherlanes = ro.getAlphaLanes();
                 }
 
+                LaneChange change = new LaneChange(kruispunt, otherlanes);
+                boolean outdated = shortestPathsOutdated;
+                shortestPathsOutdated = true;
+
                 // Disable all lanes on the road shared by the target lane to be disabled
                 for (int i = 0; i < otherlanes.length; i++) {
                     disabledLanes.add(otherlanes[i]);
                     notYetDisabledLanes.remove(otherlanes[i]);
+                    otherlanes[i].setDisabled(true);
                 }
 
                 Road[] incomingRoads = kruispunt.getAllRoads();
@@ -296,7 +327,7 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
                                         }
 
                                         //check if drivelanes are not disabled yet (DOAS 05)
-                                        if (!disabledLanes.contains(pl[0])) {
+                                        if (!pl[0].isDisabled()) {
                                             il[j].setTarget(k, true, false); //create target to destinantion lane at drivelane j.
                                         }
                                     }
@@ -310,8 +341,10 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
                 // the results of the check must be used (DOAS 06)
                 boolean infraOK = true;
                 try {
-                    //Check if everything is still okay about the Infrastructure
-                    ArrayList errors = validator.validate();
+                    //Check if everything is still okay about the Infrastructure, this also repairs the shortest paths
+                    change.finish();
+                    ArrayList errors = validator.validate(outdated ? null : change, derivationFactor);
+                    shortestPathsOutdated = false;
                     if (errors.size() > 0) {
                         infraOK = false;
                     }
@@ -380,9 +413,14 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
             otherlanes = ro.getAlphaLanes();
         }
 
+        LaneChange change = new LaneChange(junction, otherlanes);
+        boolean outdated = shortestPathsOutdated;
+        shortestPathsOutdated = true;
+
         for (int i = 0; i < otherlanes.length; i++) {
             disabledLanes.remove(otherlanes[i]);
             notYetDisabledLanes.add(otherlanes[i]);
+            otherlanes[i].setDisabled(false);
         }
         Road[] incomingRoads = junction.getAllRoads();
         int ro_num = 0;
@@ -429,7 +467,7 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
                         }
                         // If there was another disabled lane and the original points were reset
                         // It will get disabled again.
-                        if (il[j].getTarget(k) && disabledLanes.contains(pl[0])) {
+                        if (il[j].getTarget(k) && pl[0].isDisabled()) {
                             il[j].setTarget(k, false, false);
                         }
 
@@ -437,12 +475,10 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
                 }
             }
         }
-        //Check if everything is still okay about the Infrastructure
-        validator.validate();
-
-        ShortestPathCalculator calc = new ShortestPathCalculator();
-        calc.calcAllShortestPaths(this, derivationFactor);
-
+        //Check if everything is still okay about the Infrastructure, this also repairs the shortest paths
+        change.finish();
+        validator.validate(outdated ? null : change, derivationFactor);
+        shortestPathsOutdated = false;
     }
 
     /**
@@ -454,7 +490,7 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
             DriveLane[] lanes = lane.getNodeLeadsTo().getLanesLeadingFrom(lane, ru.getType());
 
             for (int i = 0; i < lanes.length; i++) {
-                if (disabledLanes.contains(lanes[i])) {
+                if (lanes[i].isDisabled()) {
                     return true;
                 }
             }
@@ -588,10 +624,54 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
         return junctions.length;
     }
 
-    public static ArrayList getDisabledLanes() {
+    public IndexedSet<DriveLane> getDisabledLanes() {
         return disabledLanes;
     }
 
+    /**
+     * Returns the derivation factor the shortest paths were calculated with
+     */
+    public double getRouteDerivationFactor() {
+        return routeDerivationFactor;
+    }
+
+    /**
+     * Sets the derivation factor the shortest paths were calculated with
+     */
+    public void setRouteDerivationFactor(double derivationFactor) {
+        routeDerivationFactor = derivationFactor;
+    }
+
+    /**
+     * Returns the route cache the shortest paths are saved to, null if they
+     * are saved in the XML file
+     */
+    public File getRouteCache() {
+        return routeCache;
+    }
+
+    /**
+     * Sets the route cache the shortest paths are saved to, null to save them
+     * in the XML file
+     */
+    public void setRouteCache(File file) {
+        routeCache = file;
+    }
+
+    /**
+     * Returns the context of the simulation this infrastructure is used in
+     */
+    public SimContext getContext() {
+        return context;
+    }
+
+    /**
+     * Sets the context of the simulation this infrastructure is used in
+     */
+    public void setContext(SimContext c) {
+        context = c;
+    }
+
     /**
      * Sets the current cycle
      */
@@ -816,7 +896,7 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
      * @see Node#reset()
      */
     public void reset(double derivationFactor) {
-        CustomFactory.reset();
+        context.getCustomFactory().reset();
         for (int i = 0; i < allNodes.length; i++) {
             allNodes[i].reset();
         }
@@ -885,7 +965,7 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
                 myElement.getAttribute("height").getIntValue());
 
         allLanes = (ArrayList<DriveLane>) XMLArray.loadArray(this, loader);
-        notYetDisabledLanes = new ArrayList<>(allLanes);
+        notYetDisabledLanes = new IndexedSet<>(allLanes);
         allNodes = (Node[]) XMLArray.loadArray(this, loader);
         specialNodes = new SpecialNode[myElement.getAttribute("num-specialnodes").getIntValue()];
         junctions = new Junction[allNodes.length - specialNodes.length];
@@ -900,6 +980,47 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
         }
         XMLUtils.loadSecondStage(allLanes, mainMap);
         XMLUtils.loadSecondStage(new ArrayList<>(Arrays.asList(allNodes)), mainMap);
+        routesCached = myElement.hasAttribute("route-cache")
+                && myElement.getAttribute("route-cache").getBoolValue();
+        if (routesCached) {
+            routeDerivationFactor = myElement.getAttribute("route-derivation-factor").getDoubleValue();
+        }
+    }
+
+    /**
+     * Reads the shortest paths from the route cache of the loaded file, if
+     * they were saved there instead of in the XML file. When the route cache is
+     * missing or belongs to another infrastructure, the shortest paths are
+     * calculated again and the route cache is written again. The route cache
+     * is also used when the infrastructure is saved again.
+     *
+     * @param file The route cache of the loaded file, null if it was not
+     * loaded from a file
+     * @see RouteCache
+     */
+    public void loadRoutes(File file) throws InfraException {
+        routeCache = file;
+        if (!routesCached) {
+            return;
+        }
+        routesCached = false;
+        if (file != null) {
+            try {
+                if (RouteCache.read(this, routeDerivationFactor, file)) {
+                    return;
+                }
+            } catch (IOException e) {
+                Logger.getLogger(Infrastructure.class.getName()).log(Level.WARNING, null, e);
+            }
+        }
+        new ShortestPathCalculator().calcAllShortestPaths(this, routeDerivationFactor);
+        if (file != null) {
+            try {
+                RouteCache.write(this, routeDerivationFactor, file);
+            } catch (IOException e) {
+                Logger.getLogger(Infrastructure.class.getName()).log(Level.WARNING, null, e);
+            }
+        }
     }
 
     @Override
@@ -912,6 +1033,10 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
         result.addAttribute(new XMLAttribute("width", size.width));
         result.addAttribute(new XMLAttribute("file-version", version));
         result.addAttribute(new XMLAttribute("num-specialnodes", specialNodes.length));
+        if (routeCache != null) {
+            result.addAttribute(new XMLAttribute("route-cache", true));
+            result.addAttribute(new XMLAttribute("route-derivation-factor", routeDerivationFactor));
+        }
         laneMap = (HashMap) (getLaneSignMap());
         return result;
     }
@@ -920,7 +1045,25 @@ public class Infrastructure implements XMLSerializable, SelectionStarter {
     public void saveChilds(XMLSaver saver) throws XMLTreeException, IOException,
             XMLCannotSaveException {
         XMLArray.saveArray(allLanes, this, saver, "lanes");
-        XMLArray.saveArray(allNodes, this, saver, "nodes");
+        if (routeCache == null) {
+            XMLArray.saveArray(allNodes, this, saver, "nodes");
+            return;
+        }
+        try {
+            RouteCache.write(this, routeDerivationFactor, routeCache);
+        } catch (InfraException e) {
+            throw new XMLCannotSaveException("Cannot write the route cache: " + e);
+        }
+        for (Node node : allNodes) {
+            node.setSaveShortestPaths(false);
+        }
+        try {
+            XMLArray.saveArray(allNodes, this, saver, "nodes");
+        } finally {
+            for (Node node : allNodes) {
+                node.setSaveShortestPaths(true);
+            }
+        }
     }
 
     @Override
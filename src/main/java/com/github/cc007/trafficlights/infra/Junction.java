@@ -72,6 +72,16 @@ public class Junction extends Node {
      * accident (DOAS 06)
      */
     protected int accidentsCount = 0;
+    /**
+     * The number of roaduser types for which the turns are remembered: every
+     * combination of the concrete roaduser types
+     */
+    protected static final int NUM_TURN_TYPES = 1 << RoaduserFactory.getNumConcreteTypes();
+    /**
+     * The lanes leading to and from the lanes of this junction, or null if
+     * they have to be looked up again
+     */
+    protected volatile TurnTable turns = null;
 
     /**
      * Creates an empty junction (for loading)
@@ -505,8 +515,97 @@ public class Junction extends Node {
     /*============================================*/
  /* LARGE GET                                  */
  /*============================================*/
+    /**
+     * The lanes leading to and from each lane of a junction, per roaduser
+     * type. Once made, a table is never changed, so it can be shared by
+     * everyone that looks up a turn.
+     */
+    protected static class TurnTable {
+
+        protected final IdentityHashMap<DriveLane, DriveLane[][]> leadingTo = new IdentityHashMap<>();
+        protected final IdentityHashMap<DriveLane, DriveLane[][]> leadingFrom = new IdentityHashMap<>();
+        protected final IdentityHashMap<DriveLane, DriveLane[]> leadingFromAll = new IdentityHashMap<>();
+    }
+
+    /**
+     * Returns the lanes leading to and from the lanes of this junction, making
+     * them first if the roads, lanes or targets changed
+     */
+    protected TurnTable getTurnTable() throws InfraException {
+        TurnTable table = turns;
+        if (table == null) {
+            table = new TurnTable();
+            for (DriveLane lane : getOutboundLanes()) {
+                DriveLane[][] leading = new DriveLane[NUM_TURN_TYPES][];
+                for (int t = 0; t < NUM_TURN_TYPES; t++) {
+                    leading[t] = calcLanesLeadingTo(lane, t);
+                }
+                table.leadingTo.put(lane, leading);
+            }
+            for (DriveLane lane : getInboundLanes()) {
+                DriveLane[][] leading = new DriveLane[NUM_TURN_TYPES][];
+                for (int t = 0; t < NUM_TURN_TYPES; t++) {
+                    leading[t] = calcLanesLeadingFrom(lane, t);
+                }
+                table.leadingFrom.put(lane, leading);
+                table.leadingFromAll.put(lane, calcLanesLeadingFrom(lane));
+            }
+            turns = table;
+        }
+        return table;
+    }
+
+    @Override
+    public void turnsChanged() {
+        turns = null;
+    }
+
+    /**
+     * {@inheritDoc} The returned array is shared and must not be changed.
+     */
     @Override
     public DriveLane[] getLanesLeadingTo(DriveLane lane, int ruType) throws InfraException {
+        if (ruType >= 0 && ruType < NUM_TURN_TYPES) {
+            DriveLane[][] leading = getTurnTable().leadingTo.get(lane);
+            if (leading != null) {
+                return leading[ruType];
+            }
+        }
+        return calcLanesLeadingTo(lane, ruType);
+    }
+
+    /**
+     * {@inheritDoc} The returned array is shared and must not be changed.
+     */
+    @Override
+    public DriveLane[] getLanesLeadingFrom(DriveLane lane, int ruType) throws InfraException {
+        if (ruType >= 0 && ruType < NUM_TURN_TYPES) {
+            DriveLane[][] leading = getTurnTable().leadingFrom.get(lane);
+            if (leading != null) {
+                return leading[ruType];
+            }
+        }
+        return calcLanesLeadingFrom(lane, ruType);
+    }
+
+    /**
+     * Returns an array of all lanes connected to the given lane, whatever
+     * roaduser type may use them. The returned array is shared and must not
+     * be changed.
+     */
+    public DriveLane[] getLanesLeadingFrom(DriveLane lane) throws InfraException {
+        DriveLane[] leading = getTurnTable().leadingFromAll.get(lane);
+        if (leading != null) {
+            return leading;
+        }
+        return calcLanesLeadingFrom(lane);
+    }
+
+    /**
+     * Looks up the lanes which lead to the given lane and may be used by the
+     * given roaduser type
+     */
+    protected DriveLane[] calcLanesLeadingTo(DriveLane lane, int ruType) throws InfraException {
         Road road = lane.getRoad();
         // Road[] which will contain the Roads of this Node in a sorted fashion:
         // [0] == the drivelanes on this Road will have to turn left to get to 'road', ..
@@ -555,8 +654,11 @@ public class Junction extends Node {
     }
 
     /* Needs Testing! */
-    @Override
-    public DriveLane[] getLanesLeadingFrom(DriveLane lane, int ruType) throws InfraException {
+    /**
+     * Looks up the lanes which can be reached from the given lane and may be
+     * used by the given roaduser type
+     */
+    protected DriveLane[] calcLanesLeadingFrom(DriveLane lane, int ruType) throws InfraException {
         Road road = lane.getRoad();
         // Road[] which will contain the Roads of this Node in a sorted fashion:
         // [0] == the drivelanes on this Road will have to turn left to get to 'road', ..
@@ -607,7 +709,10 @@ public class Junction extends Node {
     }
 
     //TODO reduce code copy
-    public DriveLane[] getLanesLeadingFrom(DriveLane lane) throws InfraException {
+    /**
+     * Looks up all lanes which can be reached from the given lane
+     */
+    protected DriveLane[] calcLanesLeadingFrom(DriveLane lane) throws InfraException {
         Road road = lane.getRoad();
         // Road[] which will contain the Roads of this Node in a sorted fashion:
         // [0] == the drivelanes on this Road will have to turn left to get to 'road', ..
@@ -0,0 +1,427 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.infra;
+
+import java.util.AbstractList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ *
+ * The roadusers on a DriveLane, ordered by position, the first one being the
+ * one closest to the Sign. The roadusers are kept in an array together with
+ * the number of blocks taken by the roadusers in front of each of them. Taking
+ * the first roaduser or adding one at the end takes constant time, so does
+ * asking the number of blocks taken. Roadusers are looked up by position with
+ * a binary search.
+ * <p>
+ * The iterators behave like the ones of a LinkedList, they throw a
+ * ConcurrentModificationException when the queue is changed by someone else.
+ *
+ * @author Group Datastructures
+ * @version 1.0
+ */
+public class LaneQueue extends AbstractList<Roaduser> implements RandomAccess {
+
+    /**
+     * The roadusers, from items[head] up to items[tail - 1]
+     */
+    protected Roaduser[] items;
+    /**
+     * blocksBefore[i] - blocksBefore[head] is the number of blocks taken by the
+     * roadusers in front of items[i]
+     */
+    protected int[] blocksBefore;
+    protected int head = 0, tail = 0;
+    /**
+     * The number of times the position of a roaduser in the queue changed
+     */
+    protected int positionChanges = 0;
+
+    public LaneQueue() {
+        items = new Roaduser[8];
+        blocksBefore = new int[9];
+    }
+
+    /*============================================*/
+ /* Basic GET                                  */
+ /*============================================*/
+    @Override
+    public int size() {
+        return tail - head;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tail == head;
+    }
+
+    @Override
+    public Roaduser get(int index) {
+        checkIndex(index, size());
+        return items[head + index];
+    }
+
+    /**
+     * Returns the first Roaduser, the one closest to the Sign
+     *
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public Roaduser getFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return items[head];
+    }
+
+    /**
+     * Returns the last Roaduser, the one furthest from the Sign
+     *
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public Roaduser getLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return items[tail - 1];
+    }
+
+    /**
+     * Returns the number of blocks taken by all roadusers in the queue
+     */
+    public int getBlocksTaken() {
+        return blocksBefore[tail] - blocksBefore[head];
+    }
+
+    /**
+     * Returns the number of blocks taken by the roadusers in front of the
+     * roaduser at the given index
+     */
+    public int getBlocksBefore(int index) {
+        checkIndex(index, size() + 1);
+        return blocksBefore[head + index] - blocksBefore[head];
+    }
+
+    /**
+     * Returns a number that changes whenever roadusers are added, removed or
+     * moved, so derived data can be cached until the next change
+     */
+    public int getVersion() {
+        return modCount + positionChanges;
+    }
+
+    /**
+     * Tells the queue that the position of one of its roadusers changed
+     */
+    public void positionChanged() {
+        positionChanges++;
+    }
+
+    /*============================================*/
+ /* Position lookups                           */
+ /*============================================*/
+    /**
+     * Returns the index of the given roaduser, or -1 if it is not in this
+     * queue.
+     */
+    public int indexOfRoaduser(Roaduser ru) {
+        int pos = ru.getPosition();
+        int lo = head, hi = tail;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (items[mid].getPosition() < pos) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        for (int i = lo; i < tail && items[i].getPosition() == pos; i++) {
+            if (items[i] == ru) {
+                return i - head;
+            }
+        }
+        // The roaduser is not where its position says it should be
+        for (int i = head; i < tail; i++) {
+            if (items[i] == ru) {
+                return i - head;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first roaduser that ends behind the given
+     * position, that is position + length > the given position, or size() if
+     * there is none.
+     */
+    public int indexOfFirstEndingAfter(int position) {
+        int lo = head, hi = tail;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (items[mid].getPosition() + items[mid].getLength() <= position) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo - head;
+    }
+
+    /*============================================*/
+ /* MODIFYING DATA                             */
+ /*============================================*/
+    /**
+     * Adds a Roaduser at the end of the queue
+     */
+    public void addLast(Roaduser ru) {
+        makeRoomAtTail();
+        items[tail] = ru;
+        blocksBefore[tail + 1] = blocksBefore[tail] + ru.getLength();
+        tail++;
+        modCount++;
+    }
+
+    /**
+     * Removes the first Roaduser of the queue
+     *
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public Roaduser removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        Roaduser ru = items[head];
+        items[head] = null;
+        head++;
+        if (head == tail) {
+            head = tail = 0;
+            blocksBefore[0] = 0;
+        }
+        modCount++;
+        return ru;
+    }
+
+    @Override
+    public boolean add(Roaduser ru) {
+        addLast(ru);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Roaduser ru) {
+        checkIndex(index, size() + 1);
+        if (index == size()) {
+            addLast(ru);
+            return;
+        }
+        makeRoomAtTail();
+        int i = head + index;
+        System.arraycopy(items, i, items, i + 1, tail - i);
+        items[i] = ru;
+        tail++;
+        updateBlocksBefore(i);
+        modCount++;
+    }
+
+    @Override
+    public Roaduser remove(int index) {
+        checkIndex(index, size());
+        if (index == 0) {
+            return removeFirst();
+        }
+        int i = head + index;
+        Roaduser ru = items[i];
+        System.arraycopy(items, i + 1, items, i, tail - i - 1);
+        tail--;
+        items[tail] = null;
+        updateBlocksBefore(i);
+        modCount++;
+        return ru;
+    }
+
+    @Override
+    public Roaduser set(int index, Roaduser ru) {
+        checkIndex(index, size());
+        int i = head + index;
+        Roaduser old = items[i];
+        items[i] = ru;
+        updateBlocksBefore(i);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = head; i < tail; i++) {
+            items[i] = null;
+        }
+        head = tail = 0;
+        blocksBefore[0] = 0;
+        modCount++;
+    }
+
+    /**
+     * Makes sure items[tail] can be used, by moving the roadusers to the start
+     * of the array or by growing the array.
+     */
+    protected void makeRoomAtTail() {
+        if (tail < items.length) {
+            return;
+        }
+        int size = size();
+        Roaduser[] newItems = (size * 2 < items.length) ? items : new Roaduser[items.length * 2];
+        int[] newBlocks = (newItems == items) ? blocksBefore : new int[newItems.length + 1];
+        int base = blocksBefore[head];
+        System.arraycopy(items, head, newItems, 0, size);
+        for (int i = 0; i <= size; i++) {
+            newBlocks[i] = blocksBefore[head + i] - base;
+        }
+        for (int i = size; i < items.length && newItems == items; i++) {
+            items[i] = null;
+        }
+        items = newItems;
+        blocksBefore = newBlocks;
+        head = 0;
+        tail = size;
+    }
+
+    /**
+     * Recalculates the blocks taken in front of the roadusers from the given
+     * array index on
+     */
+    protected void updateBlocksBefore(int from) {
+        for (int i = from; i < tail; i++) {
+            blocksBefore[i + 1] = blocksBefore[i] + items[i].getLength();
+        }
+    }
+
+    protected static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (bound - 1));
+        }
+    }
+
+    /*============================================*/
+ /* Iterators                                  */
+ /*============================================*/
+    @Override
+    public Iterator<Roaduser> iterator() {
+        return new Itr(0);
+    }
+
+    @Override
+    public ListIterator<Roaduser> listIterator() {
+        return new Itr(0);
+    }
+
+    @Override
+    public ListIterator<Roaduser> listIterator(int index) {
+        checkIndex(index, size() + 1);
+        return new Itr(index);
+    }
+
+    /**
+     * A ListIterator that behaves like the one of a LinkedList
+     */
+    protected class Itr implements ListIterator<Roaduser> {
+
+        protected int cursor;
+        protected int lastRet = -1;
+        protected int expectedModCount = modCount;
+
+        protected Itr(int index) {
+            cursor = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size();
+        }
+
+        @Override
+        public Roaduser next() {
+            checkForComodification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastRet = cursor;
+            return items[head + cursor++];
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        @Override
+        public Roaduser previous() {
+            checkForComodification();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            lastRet = --cursor;
+            return items[head + cursor];
+        }
+
+        @Override
+        public int nextIndex() {
+            return cursor;
+        }
+
+        @Override
+        public int previousIndex() {
+            return cursor - 1;
+        }
+
+        @Override
+        public void remove() {
+            checkForComodification();
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            LaneQueue.this.remove(lastRet);
+            if (lastRet < cursor) {
+                cursor--;
+            }
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void set(Roaduser ru) {
+            checkForComodification();
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            LaneQueue.this.set(lastRet, ru);
+        }
+
+        @Override
+        public void add(Roaduser ru) {
+            checkForComodification();
+            LaneQueue.this.add(cursor++, ru);
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+
+        protected void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -303,7 +303,7 @@ public class NetTunnel extends SpecialNode {
             ru = (Roaduser) (i.next());
             ru.setDestNode(model.getRandomDestination(this));
             try {
-                placeRoaduser(ru);
+                placeRoaduser(ru, model.getContext());
                 i.remove();
             } catch (InfraException e) {	// Lane was full. Wait till next turn
             }
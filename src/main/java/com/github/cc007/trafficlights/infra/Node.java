@@ -47,6 +47,11 @@ public abstract class Node implements Selectable, XMLSerializable,
      * Shortest path data
      */
     protected SPData spdata;
+    /**
+     * Whether the shortest path data is saved with this node, it is not when
+     * the infrastructure saves it to a route cache
+     */
+    protected boolean saveShortestPaths = true;
     /**
      * The coordinates of this node in pixels
      */
@@ -430,7 +435,16 @@ public abstract class Node implements Selectable, XMLSerializable,
         if (Model.SAVE_STATS) {
             XMLArray.saveArray(statistics, this, saver, "statistics");
         }
-        saver.saveObject(spdata);
+        saver.saveObject(saveShortestPaths ? spdata : new SPData());
+    }
+
+    /**
+     * Sets whether the shortest path data is saved with this node
+     *
+     * @see RouteCache
+     */
+    public void setSaveShortestPaths(boolean b) {
+        saveShortestPaths = b;
     }
 
     @Override
@@ -730,10 +744,19 @@ public abstract class Node implements Selectable, XMLSerializable,
      * Update inboundLanes,outboundLanes and outboundQueues
      */
     protected void updateLanes() throws InfraException {
+        turnsChanged();
         inboundLanes = getInboundLanes();
         outboundLanes = getOutboundLanes();
     }
 
+    /**
+     * Called when the roads, lanes, lane types or targets of this node may
+     * have changed, so the lanes leading to and from its lanes that were
+     * remembered are thrown away
+     */
+    public void turnsChanged() {
+    }
+
     /**
      * Returns whether or not all the Tails of all the outbound lanes of this
      * Node are free or not
@@ -768,6 +791,24 @@ public abstract class Node implements Selectable, XMLSerializable,
         spdata.addShortestPath(lane, nodeId, ruType, length);
     }
 
+    /**
+     * Adds the shortest paths of the given SPData, which has no paths to the
+     * exitnodes and Roaduser types this Node has paths for
+     */
+    public void addShortestPaths(SPData sp) {
+        spdata.addAll(sp);
+    }
+
+    /**
+     * Replaces the shortest paths for an exitnode and Roaduser type by the
+     * ones of the given SPData, null if there are none anymore
+     *
+     * @see SPData#replacePaths(int, int, SPData, int[])
+     */
+    public void replaceShortestPaths(int nodeId, int ruType, SPData sp, int[] exitOrder) {
+        spdata.replacePaths(nodeId, ruType, sp, exitOrder);
+    }
+
     /**
      * Returns shortest paths for exitnode and Roaduser type
      */
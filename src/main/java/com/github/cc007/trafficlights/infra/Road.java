@@ -208,7 +208,9 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
      * Sets the alpha Node of this road
      */
     public void setAlphaNode(Node n) {
+        turnsChanged();
         alphaNode = n;
+        turnsChanged();
     }
 
     /**
@@ -222,7 +224,9 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
      * Sets the beta Node of this road
      */
     public void setBetaNode(Node n) {
+        turnsChanged();
         betaNode = n;
+        turnsChanged();
     }
 
     /**
@@ -265,6 +269,7 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
      */
     public void setAlphaLanes(DriveLane[] l) {
         alphaLanes = l;
+        turnsChanged();
     }
 
     /**
@@ -279,6 +284,20 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
      */
     public void setBetaLanes(DriveLane[] l) {
         betaLanes = l;
+        turnsChanged();
+    }
+
+    /**
+     * Tells the nodes of this road that the lanes leading to and from its
+     * lanes may have changed
+     */
+    public void turnsChanged() {
+        if (alphaNode != null) {
+            alphaNode.turnsChanged();
+        }
+        if (betaNode != null) {
+            betaNode.turnsChanged();
+        }
     }
 
     /**
@@ -375,6 +394,7 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
             throw new InfraException("Parameter l is null");
         }
         alphaLanes = (DriveLane[]) Arrayutils.add(alphaLanes, l);
+        turnsChanged();
     }
 
     /**
@@ -393,6 +413,7 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
             throw new InfraException("Lane is not an alpha lane on this road");
         }
         alphaLanes = (DriveLane[]) Arrayutils.remElement(alphaLanes, i);
+        turnsChanged();
     }
 
     /**
@@ -406,6 +427,7 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
             throw new InfraException("Parameter l is null");
         }
         betaLanes = (DriveLane[]) Arrayutils.add(betaLanes, l);
+        turnsChanged();
     }
 
     /**
@@ -424,6 +446,7 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
             throw new InfraException("Lane is not an beta lane on this road");
         }
         alphaLanes = (DriveLane[]) Arrayutils.remElement(betaLanes, i);
+        turnsChanged();
     }
 
     /**
@@ -496,11 +519,13 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
         int i = Arrayutils.findElement(alphaLanes, lane);
         if (i != -1) {
             alphaLanes = (DriveLane[]) Arrayutils.remElement(alphaLanes, i);
+            turnsChanged();
             return;
         }
         i = Arrayutils.findElement(betaLanes, lane);
         if (i != -1) {
             betaLanes = (DriveLane[]) Arrayutils.remElement(betaLanes, i);
+            turnsChanged();
             return;
         }
         throw new InfraException("Lane is neither an alpha, nor a beta lane on this road");
@@ -648,7 +673,7 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
                 g.setColor(Color.white);
                 break;                 // All Roadusers
         }
-        if (com.github.cc007.trafficlights.infra.Infrastructure.disabledLanes.contains(dl)) {
+        if (dl.isDisabled()) {
             g.setColor(Color.ORANGE);
         }
         try {
@@ -1001,7 +1026,7 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
 // draw roadusers:
             for (int n = 0; n < alphaLanes.length; n++) {
                 DriveLane dl = alphaLanes[n];
-                LinkedList queue = dl.getQueue();
+                List queue = dl.getQueue();
                 if (queue.size() > 0) {
                     ListIterator li = queue.listIterator();
                     while (li.hasNext()) {
@@ -1065,7 +1090,7 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
 
             for (int n = 0; n < betaLanes.length; n++) {
                 DriveLane dl = betaLanes[n];
-                LinkedList queue = dl.getQueue();
+                List queue = dl.getQueue();
                 if (queue.size() > 0) {
                     ListIterator li = queue.listIterator();
                     while (li.hasNext()) {
@@ -1332,7 +1357,7 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
                     g.drawLine(ax1, ay1, ax1 - (signx * 3), ay1 - (signy * 3));
                 }
 
-                LinkedList queue = alphaLanes[n].getQueue();	// get roadusers
+                List queue = alphaLanes[n].getQueue();	// get roadusers
                 if (!queue.isEmpty()) {
                     int pos = -1;
                     Roaduser ru = null;
@@ -1438,7 +1463,7 @@ public class Road implements Selectable, XMLSerializable, TwoStageLoader {
                     g.drawLine(ax1, ay1, ax1 - (int) (signx * 3 * zf), ay1 - (int) (signy * 3 * zf));
                 }
 
-                LinkedList queue = betaLanes[n].getQueue();	// get roadusers
+                List queue = betaLanes[n].getQueue();	// get roadusers
                 if (!queue.isEmpty()) {
                     Roaduser ru = null;
                     int pos = -1;
@@ -16,10 +16,9 @@
 
 package com.github.cc007.trafficlights.infra;
 
-import com.github.cc007.trafficlights.GLDSim;
+import com.github.cc007.trafficlights.sim.SimContext;
 import com.github.cc007.trafficlights.infra.*;
 import java.awt.Color;
-import java.util.Random;
 
 /**
  * This class is used to generate new Roadusers
@@ -32,7 +31,6 @@ public class RoaduserFactory
 {
 	public static float PacChance = 0.0f;
 	public static boolean UseCustoms = true;
-	protected static Random rnd = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
 
 	/** All the individual types of each concrete Roaduser */
 	public static final int CAR=1,
@@ -80,7 +78,8 @@ public class RoaduserFactory
 	public static String[] getConcreteTypeDescs() { return concreteTypeDescs; }
 
 
-	/** Generate a new RoadUser
+	/** Generate a new RoadUser of one of the concrete types, without customs
+	  * or PacCars, which need the context of a simulation.
 	  * @param type The type number of the Roaduser
 	  * @param start The node where the Roadusers should start.
 	  * @param dest The destination node of the Roaduser
@@ -90,15 +89,30 @@ public class RoaduserFactory
 	 */
  	public static Roaduser genRoaduser(int type, Node start, Node dest, int pos) throws InfraException
 	{
-		if (UseCustoms)
+		return genRoaduser(null, type, start, dest, pos);
+	}
+
+	/** Generate a new RoadUser
+	  * @param context The context of the simulation the Roaduser is generated for,
+	  *        its random generator and custom factory are used. May be null.
+	  * @param type The type number of the Roaduser
+	  * @param start The node where the Roadusers should start.
+	  * @param dest The destination node of the Roaduser
+	  * @param pos The position of the Roaduser in its Drivelane
+	  * @throws InfraException If the Roaduser cannot be generated
+	  * @returns The generated Roaduser
+	 */
+ 	public static Roaduser genRoaduser(SimContext context, int type, Node start, Node dest, int pos) throws InfraException
+	{
+		if (UseCustoms && context != null)
 		{
-			Roaduser ru = CustomFactory.genRoaduser(type, start, dest, pos);
+			Roaduser ru = context.getCustomFactory().genRoaduser(type, start, dest, pos);
 			if (ru != null) {
                 return ru;
             }
 		}
 		switch (type) {
-			case CAR : return (rnd.nextFloat() < PacChance ? new PacCar(start,dest,0) : new Car(start,dest,0));
+			case CAR : return (context != null && context.getRoaduserRandom().nextFloat() < PacChance ? new PacCar(start,dest,0) : new Car(start,dest,0));
 			case BUS : return new Bus(start,dest,0);
 			case BICYCLE : return new Bicycle(start,dest,0);
 		}
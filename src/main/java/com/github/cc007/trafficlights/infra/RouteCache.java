@@ -0,0 +1,209 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.infra;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ *
+ * Saves the shortest paths of an infrastructure to a compact binary file next
+ * to the file the infrastructure is saved to, so they do not have to be read
+ * from the XML file when it is loaded. The route cache starts with a
+ * fingerprint of everything the shortest paths depend on: the nodes, the
+ * roads, the lanes and their targets, and the derivation factor. The paths are
+ * only read back when that fingerprint matches the loaded infrastructure.
+ *
+ * @author Group Datastructures
+ * @version 1.0
+ */
+public class RouteCache {
+
+    /**
+     * The extension added to the name of the infrastructure file
+     */
+    public static final String EXTENSION = ".routes";
+    protected static final int MAGIC = 0x474c4452; // "GLDR"
+    protected static final int VERSION = 1;
+
+    private RouteCache() { // cannot instantiate this
+    }
+
+    /**
+     * Returns the route cache belonging to the given .infra or .sim file
+     */
+    public static File getFile(File file) {
+        return new File(file.getPath() + EXTENSION);
+    }
+
+    /**
+     * Returns a hash of everything the shortest paths of the infrastructure
+     * depend on
+     *
+     * @param infra The infrastructure
+     * @param derivationFactor The derivation factor of the shortest paths
+     */
+    public static byte[] fingerprint(Infrastructure infra, double derivationFactor) throws InfraException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(VERSION);
+            out.writeDouble(derivationFactor);
+            Node[] nodes = infra.getAllNodes();
+            out.writeInt(nodes.length);
+            for (Node node : nodes) {
+                out.writeInt(node.getId());
+                out.writeInt(node.getType());
+                Road[] roads = node.getAllRoads();
+                out.writeInt(roads.length);
+                for (Road road : roads) {
+                    if (road == null) {
+                        out.writeInt(-1);
+                    } else {
+                        out.writeInt(road.getAlphaNode().getId());
+                        out.writeInt(road.getBetaNode().getId());
+                        out.writeInt(road.getLength());
+                    }
+                }
+                DriveLane[] lanes = node.getInboundLanes();
+                out.writeInt(lanes.length);
+                for (DriveLane lane : lanes) {
+                    out.writeInt(lane.getNodeComesFrom().getId());
+                    out.writeInt(lane.getLength());
+                    out.writeInt(lane.getType());
+                    for (boolean target : lane.getTargets()) {
+                        out.writeBoolean(target);
+                    }
+                    out.writeBoolean(lane.isDisabled());
+                }
+            }
+            SpecialNode[] exits = infra.getSpecialNodes();
+            out.writeInt(exits.length);
+            for (SpecialNode exit : exits) {
+                out.writeInt(exit.getId());
+            }
+            out.close();
+            return MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new InfraException("Cannot fingerprint the infrastructure: " + e);
+        }
+    }
+
+    /**
+     * Writes the shortest paths of all nodes to the route cache. The file is
+     * replaced at once, so others reading it never see half of it.
+     *
+     * @param infra The infrastructure to take the shortest paths from
+     * @param derivationFactor The derivation factor the shortest paths were
+     * calculated with
+     * @param file The route cache
+     */
+    public static void write(Infrastructure infra, double derivationFactor, File file) throws IOException, InfraException {
+        byte[] fingerprint = fingerprint(infra, derivationFactor);
+        Node[] nodes = infra.getAllNodes();
+        HashMap<DriveLane, Integer> laneIndices = new HashMap<>();
+        for (Node node : nodes) {
+            for (DriveLane lane : node.getInboundLanes()) {
+                laneIndices.put(lane, laneIndices.size());
+            }
+        }
+
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.write(fingerprint);
+                out.writeInt(nodes.length);
+                out.writeInt(laneIndices.size());
+                for (Node node : nodes) {
+                    node.spdata.writeRoutes(out, laneIndices);
+                }
+            } finally {
+                out.close();
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Reads the shortest paths of all nodes from the route cache, if it
+     * belongs to the infrastructure
+     *
+     * @param infra The infrastructure to give the shortest paths to
+     * @param derivationFactor The derivation factor the shortest paths should
+     * be calculated with
+     * @param file The route cache
+     * @return true if the shortest paths were read, false if the route cache
+     * is missing, damaged or belongs to another infrastructure
+     */
+    public static boolean read(Infrastructure infra, double derivationFactor, File file) throws IOException, InfraException {
+        if (!file.isFile()) {
+            return false;
+        }
+        byte[] fingerprint = fingerprint(infra, derivationFactor);
+        Node[] nodes = infra.getAllNodes();
+        ArrayList<DriveLane> lanes = new ArrayList<>();
+        for (Node node : nodes) {
+            lanes.addAll(Arrays.asList(node.getInboundLanes()));
+        }
+
+        // Read at once on the heap, as the routes are copied into SPData anyway
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        try {
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return false;
+            }
+            byte[] saved = new byte[fingerprint.length];
+            in.get(saved);
+            if (!Arrays.equals(saved, fingerprint) || in.getInt() != nodes.length || in.getInt() != lanes.size()) {
+                return false;
+            }
+            DriveLane[] laneArray = lanes.toArray(new DriveLane[lanes.size()]);
+            SPData[] spdata = new SPData[nodes.length];
+            for (int i = 0; i < nodes.length; i++) {
+                spdata[i] = new SPData();
+                spdata[i].readRoutes(in, laneArray);
+            }
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i].spdata = spdata[i];
+            }
+            return true;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+}
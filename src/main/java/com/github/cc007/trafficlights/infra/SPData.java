@@ -17,9 +17,12 @@ package com.github.cc007.trafficlights.infra;
 
 import com.github.cc007.trafficlights.utils.Arrayutils;
 import com.github.cc007.trafficlights.xml.*;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 
 /**
@@ -35,6 +38,16 @@ public class SPData implements XMLSerializable, TwoStageLoader, InstantiationAss
      * The paths known
      */
     protected ArrayList<Path> paths;
+    /**
+     * The same paths, indexed by Roaduser type index and exit node Id. Paths
+     * of types that are not a single primitive type are not in here.
+     */
+    protected Path[][] table = new Path[0][];
+    /**
+     * The exit node Ids of the paths for every Roaduser type index, null when
+     * they have to be collected again
+     */
+    protected int[][] destinations = new int[0][];
     protected String parentName = "model.infrastructure.node";
 
     public SPData() {
@@ -71,7 +84,31 @@ public class SPData implements XMLSerializable, TwoStageLoader, InstantiationAss
         }
     }
 
+    /**
+     * Returns the Ids of the exit nodes there are paths to for Roadusers with
+     * type ruType, in the order the paths were added. The array is shared, so
+     * it should not be changed.
+     *
+     * @param ruType The type of Roaduser.
+     * @return an array of exit node Ids.
+     */
     public int[] getShortestPathDestinations(int ruType) {
+        int t = typeIndex(ruType);
+        if (t < 0) {
+            return collectDestinations(ruType);
+        }
+        if (t >= destinations.length) {
+            destinations = Arrays.copyOf(destinations, t + 1);
+        }
+        int[] dests = destinations[t];
+        if (dests == null) {
+            dests = collectDestinations(ruType);
+            destinations[t] = dests;
+        }
+        return dests;
+    }
+
+    private int[] collectDestinations(int ruType) {
         Path p;
         int num_paths = paths.size();
         int counter = 0;
@@ -126,7 +163,7 @@ public class SPData implements XMLSerializable, TwoStageLoader, InstantiationAss
     public void setShortestPath(DriveLane lane, int exitNodeId, int ruType, int length) {
         Path p = getPath(exitNodeId, ruType);
         if (p == null) {
-            paths.add(new Path(exitNodeId, ruType, lane, length));
+            addPath(new Path(exitNodeId, ruType, lane, length));
         } else {
             p.empty();
             DriveLane[] lanes = {lane};
@@ -148,12 +185,65 @@ public class SPData implements XMLSerializable, TwoStageLoader, InstantiationAss
     public void addShortestPath(DriveLane lane, int exitNodeId, int ruType, int length) {
         Path p = getPath(exitNodeId, ruType);
         if (p == null) {
-            paths.add(new Path(exitNodeId, ruType, lane, length));
+            addPath(new Path(exitNodeId, ruType, lane, length));
         } else {
             p.addLane(lane, length);
         }
     }
 
+    /**
+     * Adds all paths of the given SPData. It should not have paths for the
+     * exit nodes and Roaduser types this SPData already has paths for.
+     *
+     * @param sp The SPData to take the paths from, it should not be used
+     * anymore
+     */
+    public void addAll(SPData sp) {
+        for (Path p : sp.paths) {
+            addPath(p);
+        }
+    }
+
+    /**
+     * Replaces the paths to the given exit node for the given Roaduser type by
+     * the ones of the given SPData. The paths are expected to be in the order
+     * the ShortestPathCalculator adds them: by the place of their exit node,
+     * then from the highest Roaduser type down. New paths are put at their
+     * place in that order.
+     *
+     * @param exitNodeId The Id of the exit node the paths lead to
+     * @param ruType The type of Roaduser
+     * @param sp The SPData to take the new paths from, null if there are none
+     * @param exitOrder The place of every exit node, indexed by node id
+     */
+    public void replacePaths(int exitNodeId, int ruType, SPData sp, int[] exitOrder) {
+        Path newPath = (sp == null) ? null : sp.getPath(exitNodeId, ruType);
+        Path oldPath = getPath(exitNodeId, ruType);
+        if (oldPath != null) {
+            if (newPath == null) {
+                paths.remove(oldPath);
+                unindex(oldPath);
+            } else {
+                oldPath.setLanes(newPath.lanes, newPath.lengths);
+            }
+            return;
+        }
+        if (newPath == null) {
+            return;
+        }
+        int place = exitOrder[exitNodeId];
+        for (int i = 0; i < paths.size(); i++) {
+            Path p = paths.get(i);
+            int pPlace = exitOrder[p.getNodeId()];
+            if (pPlace > place || (pPlace == place && p.getRUType() < ruType)) {
+                paths.add(i, newPath);
+                index(newPath);
+                return;
+            }
+        }
+        addPath(newPath);
+    }
+
     /*============================================*/
  /* REMOVES                                    */
  /*============================================*/
@@ -191,6 +281,13 @@ public class SPData implements XMLSerializable, TwoStageLoader, InstantiationAss
      * Gets the Path object for given Node Id and Roaduser type
      */
     private Path getPath(int exitNodeId, int ruType) {
+        int t = typeIndex(ruType);
+        if (t >= 0 && exitNodeId >= 0) {
+            if (t < table.length && table[t] != null && exitNodeId < table[t].length) {
+                return table[t][exitNodeId];
+            }
+            return null;
+        }
         Path p;
         for (int i = 0; i < paths.size(); i++) {
             p = (Path) paths.get(i);
@@ -201,12 +298,139 @@ public class SPData implements XMLSerializable, TwoStageLoader, InstantiationAss
         return null;
     }
 
+    /**
+     * Returns the index of the given Roaduser type in the table, or -1 if it
+     * is not a single primitive type
+     */
+    private static int typeIndex(int ruType) {
+        if (ruType <= 0 || (ruType & (ruType - 1)) != 0) {
+            return -1;
+        }
+        return Integer.numberOfTrailingZeros(ruType);
+    }
+
+    /**
+     * Adds the path at the end, unless there already is a path to its exit
+     * node for its Roaduser type
+     */
+    private void addPath(Path p) {
+        if (getPath(p.getNodeId(), p.getRUType()) == null) {
+            paths.add(p);
+            index(p);
+        }
+    }
+
+    private void index(Path p) {
+        int t = typeIndex(p.getRUType());
+        int exitNodeId = p.getNodeId();
+        if (t < 0 || exitNodeId < 0) {
+            return;
+        }
+        if (t >= table.length) {
+            table = Arrays.copyOf(table, t + 1);
+        }
+        if (table[t] == null) {
+            table[t] = new Path[exitNodeId + 1];
+        } else if (exitNodeId >= table[t].length) {
+            table[t] = Arrays.copyOf(table[t], exitNodeId + 1);
+        }
+        table[t][exitNodeId] = p;
+        if (t < destinations.length) {
+            destinations[t] = null;
+        }
+    }
+
+    /**
+     * Indexes all paths again, the first path to an exit node for a Roaduser
+     * type is the one found
+     */
+    private void reindex() {
+        table = new Path[0][];
+        destinations = new int[0][];
+        for (Path p : paths) {
+            if (getPath(p.getNodeId(), p.getRUType()) == null) {
+                index(p);
+            }
+        }
+    }
+
+    private void unindex(Path p) {
+        int t = typeIndex(p.getRUType());
+        if (t >= 0 && p.getNodeId() >= 0) {
+            table[t][p.getNodeId()] = null;
+            if (t < destinations.length) {
+                destinations[t] = null;
+            }
+        }
+    }
+
+    /*============================================*/
+ /* Route cache                                */
+ /*============================================*/
+    /**
+     * Writes the paths to a route cache
+     *
+     * @param out The stream to write to
+     * @param laneIndices The index every lane has in the route cache
+     * @see RouteCache
+     */
+    void writeRoutes(DataOutputStream out, Map<DriveLane, Integer> laneIndices) throws IOException {
+        out.writeInt(paths.size());
+        for (Path p : paths) {
+            out.writeInt(p.exitNodeId);
+            out.writeInt(p.ruType);
+            if (p.lanes == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(p.lanes.length);
+                for (DriveLane lane : p.lanes) {
+                    Integer index = (lane == null) ? null : laneIndices.get(lane);
+                    out.writeInt(index == null ? -1 : index);
+                }
+            }
+            out.writeInt(p.lengths.length);
+            for (Integer length : p.lengths) {
+                out.writeInt(length);
+            }
+        }
+    }
+
+    /**
+     * Reads the paths written by writeRoutes, replacing the paths known
+     *
+     * @param in The buffer to read from
+     * @param lanes The lanes, indexed by their index in the route cache
+     * @see RouteCache
+     */
+    void readRoutes(ByteBuffer in, DriveLane[] lanes) {
+        int numPaths = in.getInt();
+        paths = new ArrayList<>(numPaths);
+        for (int i = 0; i < numPaths; i++) {
+            Path p = new Path(in.getInt(), in.getInt());
+            int numLanes = in.getInt();
+            if (numLanes >= 0) {
+                p.lanes = new DriveLane[numLanes];
+                for (int j = 0; j < numLanes; j++) {
+                    int index = in.getInt();
+                    p.lanes[j] = (index < 0) ? null : lanes[index];
+                }
+            }
+            p.lengths = new Integer[in.getInt()];
+            for (int j = 0; j < p.lengths.length; j++) {
+                p.lengths[j] = in.getInt();
+            }
+            paths.add(p);
+        }
+        reindex();
+    }
+
     /*============================================*/
  /* Load/save                                  */
  /*============================================*/
     @Override
     public void load(XMLElement myElement, XMLLoader loader) throws XMLTreeException, IOException, XMLInvalidInputException {
         paths = (ArrayList<Path>) XMLArray.loadArray(this, loader, this);
+        reindex();
     }
 
     @Override
@@ -15,6 +15,7 @@
  *------------------------------------------------------------------------*/
 package com.github.cc007.trafficlights.infra;
 
+import com.github.cc007.trafficlights.sim.SimContext;
 import com.github.cc007.trafficlights.sim.SimModel;
 import com.github.cc007.trafficlights.utils.*;
 import com.github.cc007.trafficlights.xml.*;
@@ -210,9 +211,9 @@ public abstract class SpecialNode extends Node implements XMLSerializable, TwoSt
     /**
      * Place a roaduser in one of the outbound queues
      */
-    public void placeRoaduser(Roaduser ru) throws InfraException {
+    public void placeRoaduser(Roaduser ru, SimContext context) throws InfraException {
         DriveLane[] lanes = (DriveLane[]) getShortestPaths(ru.getDestNode().getId(), ru.getType()).clone();
-        Arrayutils.randomizeArray(lanes);
+        Arrayutils.randomizeArray(lanes, context.getSeed());
         // The next person who outcomments this code will
         // be chopped into little pieces, burned, hanged, chainsawed, 
         // shredded, killed, /toaded and then ported to Microsoft Visual Lisp.
@@ -487,8 +488,8 @@ public abstract class SpecialNode extends Node implements XMLSerializable, TwoSt
      * Hook method that is called by the infra when a roaduser reaches this node
      */
     public void enter(Roaduser ru) {
-        if (ru instanceof CustomRoaduser) {
-            CustomFactory.removeCustom((CustomRoaduser) ru);
+        if (ru instanceof CustomRoaduser && ((CustomRoaduser) ru).getFactory() != null) {
+            ((CustomRoaduser) ru).getFactory().removeCustom((CustomRoaduser) ru);
         }
     }
 
@@ -0,0 +1,156 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.sim;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ *
+ * Hands snapshots of a <code>SimModel</code> to listeners without holding up
+ * the simulation. Every listener subscribes with the number of cycles between
+ * two snapshots and the executor the snapshots are delivered on. When a
+ * listener is still busy with its last snapshot, the new snapshot replaces
+ * the one waiting for it, so a slow listener skips snapshots instead of
+ * slowing down the steps.
+ * <p>
+ * Observers added to the model itself are still notified on the simulation
+ * thread after every step, this is needed for views that read the model
+ * while it is not changing.
+ *
+ * @author Group Model
+ * @version 1.0
+ */
+public class CyclePublisher {
+
+    protected CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Subscribes a listener.
+     *
+     * @param listener The listener
+     * @param interval The number of cycles between two snapshots
+     * @param executor Delivers the snapshots to the listener
+     */
+    public void subscribe(CycleListener listener, int interval, Executor executor) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("The interval should be at least 1 cycle");
+        }
+        unsubscribe(listener);
+        subscriptions.add(new Subscription(listener, interval, executor));
+    }
+
+    /**
+     * Unsubscribes a listener, a snapshot that is already waiting for it may
+     * still be delivered
+     */
+    public void unsubscribe(CycleListener listener) {
+        for (Subscription s : subscriptions) {
+            if (s.listener == listener) {
+                subscriptions.remove(s);
+            }
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Hands a snapshot of the model to the listeners that want one this cycle.
+     * Called by the SimModel after every step.
+     */
+    public void publish(SimModel model) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        int cycle = model.getCurCycle();
+        CycleSnapshot snapshot = null;
+        for (Subscription s : subscriptions) {
+            if (cycle % s.interval == 0) {
+                if (snapshot == null) {
+                    snapshot = new CycleSnapshot(model);
+                }
+                s.offer(snapshot);
+            }
+        }
+    }
+
+    /**
+     * A listener with its interval and executor
+     */
+    protected static class Subscription implements Runnable {
+
+        protected CycleListener listener;
+        protected int interval;
+        protected Executor executor;
+        /**
+         * The snapshot waiting to be delivered, null when there is none
+         */
+        protected AtomicReference<CycleSnapshot> pending = new AtomicReference<>();
+        /**
+         * True while a delivery is waiting for or running on the executor
+         */
+        protected AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        protected Subscription(CycleListener listener, int interval, Executor executor) {
+            this.listener = listener;
+            this.interval = interval;
+            this.executor = executor;
+        }
+
+        /**
+         * Delivers the snapshot, or lets it replace the one still waiting
+         */
+        protected void offer(CycleSnapshot snapshot) {
+            pending.set(snapshot);
+            schedule();
+        }
+
+        /**
+         * Puts a delivery on the executor, unless there already is one
+         */
+        protected void schedule() {
+            if (pending.get() != null && scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    pending.set(null);
+                    scheduled.set(false);
+                    Logger.getLogger(CyclePublisher.class.getName()).log(Level.WARNING, null, e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                CycleSnapshot snapshot = pending.getAndSet(null);
+                if (snapshot != null) {
+                    listener.cycleDone(snapshot);
+                }
+            } finally {
+                scheduled.set(false);
+                // A snapshot may have come in while the listener was busy
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.sim;
+
+import com.github.cc007.trafficlights.infra.Junction;
+import com.github.cc007.trafficlights.infra.SpecialNode;
+
+/**
+ *
+ * The state of a <code>SimModel</code> after a cycle, as shown by the
+ * <code>SimController</code>. A snapshot does not change after it is made, so
+ * it can be read on any thread while the simulation goes on.
+ *
+ * @author Group Model
+ * @version 1.0
+ */
+public class CycleSnapshot {
+
+    protected int cycle;
+    protected int numWaiting;
+    protected int maxRuWaitingQueue;
+    protected int curSeries;
+    protected int numSeries;
+    protected long seed;
+    protected float[] queueLengths;		// Of the special nodes
+    protected float[] junctionWaitingTimes;
+
+    /**
+     * Takes a snapshot of the given model
+     */
+    public CycleSnapshot(SimModel model) {
+        cycle = model.getCurCycle();
+        numWaiting = model.getCurNumWaiting();
+        maxRuWaitingQueue = model.getOptions().getMaxRuWaitingQueue();
+        curSeries = model.getCurSeries();
+        numSeries = model.getNumSeries();
+        seed = model.getContext().getSeed();
+
+        SpecialNode[] specialNodes = model.getInfrastructure().getSpecialNodes();
+        queueLengths = new float[specialNodes.length];
+        for (int i = 0; i < specialNodes.length; i++) {
+            queueLengths[i] = specialNodes[i].getWaitingQueueLength();
+        }
+        Junction[] junctions = model.getInfrastructure().getJunctions();
+        junctionWaitingTimes = new float[junctions.length];
+        for (int i = 0; i < junctions.length; i++) {
+            junctionWaitingTimes[i] = junctions[i].getStatistics(0).getAvgWaitingTime(true);
+        }
+    }
+
+    public int getCycle() {
+        return cycle;
+    }
+
+    /**
+     * Returns the number of roadusers waiting to enter the city
+     */
+    public int getNumWaiting() {
+        return numWaiting;
+    }
+
+    public int getMaxRuWaitingQueue() {
+        return maxRuWaitingQueue;
+    }
+
+    /**
+     * Returns the current run of a series, 0 when no series is running
+     */
+    public int getCurSeries() {
+        return curSeries;
+    }
+
+    public int getNumSeries() {
+        return numSeries;
+    }
+
+    /**
+     * Returns the seed of the current run
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the number of roadusers waiting to enter the city at each
+     * special node, in the order of Infrastructure.getSpecialNodes. The array
+     * must not be changed.
+     */
+    public float[] getQueueLengths() {
+        return queueLengths;
+    }
+
+    /**
+     * Returns the average waiting time of the roadusers at each junction, in
+     * the order of Infrastructure.getJunctions. The array must not be changed.
+     */
+    public float[] getJunctionWaitingTimes() {
+        return junctionWaitingTimes;
+    }
+}
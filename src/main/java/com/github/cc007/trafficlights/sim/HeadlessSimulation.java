@@ -0,0 +1,260 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.sim;
+
+import com.github.cc007.trafficlights.GLDException;
+import com.github.cc007.trafficlights.InvalidFilenameException;
+import com.github.cc007.trafficlights.algo.dp.DPFactory;
+import com.github.cc007.trafficlights.algo.tlc.HECinterface;
+import com.github.cc007.trafficlights.algo.tlc.TLCFactory;
+import com.github.cc007.trafficlights.algo.tlc.TLController;
+import com.github.cc007.trafficlights.sim.stats.TrackerFactory;
+import com.github.cc007.trafficlights.sim.stats.TrackingView;
+import com.github.cc007.trafficlights.xml.XMLLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ *
+ * Runs a <code>SimModel</code> without a <code>SimController</code>, so no
+ * frame or display is needed. The model is stepped directly from the calling
+ * thread, without the sleep of the <code>SimModelThread</code>. A series of
+ * runs saves the same tracking data to the same log files as the
+ * <code>SimController</code> does.
+ *
+ * @author Group Model
+ * @version 1.0
+ */
+public class HeadlessSimulation implements SeriesHandler {
+
+    /**
+     * The trackers saved at the end of every run, the same ones the
+     * SimController shows when running a series
+     */
+    public static final int[] SERIES_TRACKERS = {
+        TrackerFactory.TOTAL_QUEUE,
+        TrackerFactory.TOTAL_WAIT,
+        TrackerFactory.TOTAL_ROADUSERS,
+        TrackerFactory.TOTAL_JUNCTION,
+        TrackerFactory.ACCIDENTS_COUNT,
+        TrackerFactory.REMOVEDCARS_COUNT
+    };
+
+    protected SimModel model;
+    protected ArrayList<TrackingView> trackingViews = new ArrayList<>();
+    protected String logPath = "log";
+    /**
+     * The first and the last run of the series that is running
+     */
+    protected int firstRun = 1, lastRun = 0;
+
+    /**
+     * Creates a headless simulation with a new SimModel
+     */
+    public HeadlessSimulation() {
+        this(new SimModel(false));
+    }
+
+    /**
+     * Creates a headless simulation for the given model. The model should not
+     * have its thread started and should not have a SimController.
+     */
+    public HeadlessSimulation(SimModel m) {
+        model = m;
+        model.setSeriesHandler(this);
+        try {
+            setTLC(0, 0);
+            setDrivingPolicy(DPFactory.SHORTEST_PATH);
+        } catch (GLDException | ClassNotFoundException e) {
+            Logger.getLogger(HeadlessSimulation.class.getName()).log(Level.SEVERE, null, e);
+        }
+    }
+
+    /*============================================*/
+ /* GET and SET methods                        */
+ /*============================================*/
+    public SimModel getSimModel() {
+        return model;
+    }
+
+    public SimOptions getOptions() {
+        return model.getOptions();
+    }
+
+    /**
+     * Returns the directory the series data is saved to
+     */
+    public String getLogPath() {
+        return logPath;
+    }
+
+    /**
+     * Sets the directory the series data is saved to
+     */
+    public void setLogPath(String path) {
+        logPath = path;
+    }
+
+    public void setTLC(int cat, int nr) throws GLDException {
+        TLCFactory tlcf = new TLCFactory(model.getInfrastructure(), model.getRandom());
+        setTLController(tlcf.genTLC(cat, nr));
+    }
+
+    public void setTLController(TLController tlc) {
+        model.setTLController(tlc);
+        setHecAddon(getOptions().getHecAddon());
+    }
+
+    /**
+     * Sets a TLC by its XML name and passes it the given arguments.
+     *
+     * @param tlcName The XML name of the TLC
+     * @param args The arguments for the TLC, the ones it recognizes are
+     * removed
+     */
+    public void setTLC(String tlcName, HashMap args) throws Exception {
+        TLCFactory tlcf = new TLCFactory(model.getInfrastructure());
+        TLController tlc = tlcf.getInstanceForLoad(TLCFactory.getNumberByXMLTagName(tlcName));
+        tlc.loadArgs(args);
+        setTLController(tlc);
+    }
+
+    public void setDrivingPolicy(int dp) throws ClassNotFoundException {
+        model.setDrivingPolicy((new DPFactory(model, model.getTLController())).getInstance(dp));
+    }
+
+    public void setHecAddon(boolean b) {
+        getOptions().setHecAddon(b);
+        TLController tlc = model.getTLController();
+        if (tlc instanceof HECinterface) {
+            ((HECinterface) tlc).setHecAddon(b, null);
+        }
+    }
+
+    /*============================================*/
+ /* Load                                       */
+ /*============================================*/
+    /**
+     * Loads an infrastructure or a saved simulation into the model.
+     *
+     * @param filename The .infra or .sim file to load
+     */
+    public void load(String filename) throws InvalidFilenameException, Exception {
+        if (!filename.endsWith(".infra") && !filename.endsWith(".sim")) {
+            throw new InvalidFilenameException("You can only load .infra and .sim files.");
+        }
+        XMLLoader loader = new XMLLoader(new File(filename));
+        loader.load(null, model);
+        loader.close();
+        model.setInfrastructure(model.getInfrastructure());
+        model.getContext().getCustomFactory().reset();
+    }
+
+    /*============================================*/
+ /* Running                                    */
+ /*============================================*/
+    /**
+     * Does the given number of steps as fast as possible.
+     */
+    public void run(int cycles) {
+        for (int i = 0; i < cycles; i++) {
+            model.doStep();
+        }
+    }
+
+    /**
+     * Runs a series of simulations and saves the tracking data of each run to
+     * the log directory. Returns when the series is done.
+     */
+    public void runSeries() throws GLDException {
+        runSeries(1, model.getNumSeries());
+    }
+
+    /**
+     * Runs the given runs of a series of simulations, with the seeds and run
+     * numbers they have in a full series, and saves the tracking data of each
+     * run to the log directory. Returns when the runs are done.
+     *
+     * @param first The first run, counting from 1
+     * @param last The last run
+     */
+    public void runSeries(int first, int last) throws GLDException {
+        firstRun = first;
+        lastRun = last;
+        trackingViews.clear();
+        for (int type : SERIES_TRACKERS) {
+            TrackingView view = TrackerFactory.genTrackingView(model, type);
+            view.setVisible(false);
+            model.addObserver(view);
+            trackingViews.add(view);
+        }
+
+        model.runSeries(first - 1);
+        while (model.isRunSeries()) {
+            model.doStep();
+        }
+
+        for (TrackingView view : trackingViews) {
+            model.deleteObserver(view);
+        }
+        trackingViews.clear();
+    }
+
+    @Override
+    public void nextSeries() {
+        int curSeries = model.getCurSeries();
+        // If we have data, save it
+        if (curSeries >= firstRun) {
+            Date date = new Date();
+            File logDir = new File(logPath);
+
+            if (!logDir.exists()) {
+                logDir.mkdir(); // create log dir if doesn't exist
+            }
+
+            for (TrackingView tv : trackingViews) {
+                String filename = logDir + "/"
+                        + model.getSeriesLogName(tv.getDescription(), date.getTime());
+                try {
+                    tv.saveData(filename, model);
+                } catch (IOException exc) {
+                    Logger.getLogger(HeadlessSimulation.class.getName()).log(Level.SEVERE, null, exc);
+                }
+            }
+        }
+        // If we have more runs to run, do so.
+        if (curSeries < lastRun) {
+            System.out.println("Running a series of simulations, currently at: " + curSeries);
+            for (TrackingView tv : trackingViews) {
+                tv.reset();
+            }
+            try {
+                model.reset();
+            } catch (SimulationRunningException e) {
+                Logger.getLogger(HeadlessSimulation.class.getName()).log(Level.SEVERE, null, e);
+            }
+            model.nextCurSeries();
+        } else {
+            System.out.println("Done running Series of simulations.");
+            model.stopSeries();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.sim;
+
+import com.github.cc007.trafficlights.GLDSim;
+import com.github.cc007.trafficlights.algo.dp.DPFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ *
+ * Runs the runs of a series of simulations concurrently. Every run gets its
+ * own <code>HeadlessSimulation</code>, which loads the infrastructure and sets
+ * up the TLC, driving policy and options again, and runs with the seed it has
+ * in a serial series. The tracking data is saved to the same log files as a
+ * serial series.
+ * <p>
+ * Every run starts from the loaded infrastructure. In a serial series the TLC
+ * and some of the random number generators carry their state over from the
+ * previous run, so only the first run gives exactly the same data.
+ *
+ * @author Group Model
+ * @version 1.0
+ */
+public class ParallelSeriesRunner {
+
+    protected String infraFile;
+    protected String tlcName = null;
+    protected HashMap<String, String> tlcArgs = new HashMap<>();
+    protected int drivingPolicy = DPFactory.SHORTEST_PATH;
+    protected SimOptions options = new SimOptions();
+    protected String logPath = "log";
+    protected int numSeries;
+    protected int numThreads;
+
+    /**
+     * Creates a runner for the given infrastructure that uses one thread per
+     * available processor
+     *
+     * @param infraFile The .infra or .sim file every run loads
+     */
+    public ParallelSeriesRunner(String infraFile) {
+        this.infraFile = infraFile;
+        numSeries = SimModel.DEFAULT_NUM_SERIES;
+        numThreads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /*============================================*/
+ /* GET and SET methods                        */
+ /*============================================*/
+    /**
+     * Sets the TLC every run uses by its XML name, null for the default TLC
+     *
+     * @param name The XML name of the TLC
+     * @param args The arguments passed to the TLC of every run
+     */
+    public void setTLC(String name, HashMap<String, String> args) {
+        tlcName = name;
+        tlcArgs = new HashMap<>(args);
+    }
+
+    public void setDrivingPolicy(int dp) {
+        drivingPolicy = dp;
+    }
+
+    /**
+     * Returns the options every run uses, they are copied for each run
+     */
+    public SimOptions getOptions() {
+        return options;
+    }
+
+    public void setOptions(SimOptions o) {
+        options = o;
+    }
+
+    public void setLogPath(String path) {
+        logPath = path;
+    }
+
+    public int getNumSeries() {
+        return numSeries;
+    }
+
+    public void setNumSeries(int num) {
+        numSeries = num;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * Sets the maximum number of runs that run at the same time
+     */
+    public void setNumThreads(int num) {
+        numThreads = num;
+    }
+
+    /*============================================*/
+ /* Running                                    */
+ /*============================================*/
+    /**
+     * Runs all runs of the series and returns when they are done.
+     *
+     * @return the number of runs that failed
+     */
+    public int run() throws InterruptedException {
+        if (numSeries >= GLDSim.seriesSeed.length) {
+            throw new IllegalArgumentException("There are only " + (GLDSim.seriesSeed.length - 1)
+                    + " seeds for a series.");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(numThreads, numSeries)));
+        ArrayList<Future<?>> runs = new ArrayList<>();
+        for (int run = 1; run <= numSeries; run++) {
+            runs.add(pool.submit(new SeriesRun(run)));
+        }
+        pool.shutdown();
+
+        int failed = 0;
+        for (Future<?> run : runs) {
+            try {
+                run.get();
+            } catch (ExecutionException e) {
+                Logger.getLogger(ParallelSeriesRunner.class.getName()).log(Level.SEVERE, null, e.getCause());
+                failed++;
+            }
+        }
+        System.out.println("Done running Series of simulations.");
+        return failed;
+    }
+
+    /**
+     * Sets up a simulation the way the series is configured
+     */
+    protected HeadlessSimulation createSimulation() throws Exception {
+        HeadlessSimulation simulation = new HeadlessSimulation();
+        simulation.getSimModel().setOptions(new SimOptions(options));
+        simulation.setLogPath(logPath);
+        simulation.load(infraFile);
+        if (tlcName != null) {
+            simulation.setTLC(tlcName, new HashMap<>(tlcArgs));
+        } else {
+            simulation.setTLC(0, 0);
+        }
+        simulation.setDrivingPolicy(drivingPolicy);
+        return simulation;
+    }
+
+    /**
+     * One run of the series, in its own simulation
+     */
+    protected class SeriesRun implements Runnable {
+
+        protected int run;
+
+        public SeriesRun(int run) {
+            this.run = run;
+        }
+
+        @Override
+        public void run() {
+            try {
+                createSimulation().runSeries(run, run);
+            } catch (Exception e) {
+                throw new RuntimeException("Run " + run + " of the series failed", e);
+            }
+        }
+    }
+}
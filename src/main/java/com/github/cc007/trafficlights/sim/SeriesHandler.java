@@ -0,0 +1,33 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.sim;
+
+/**
+ *
+ * Receives the end of every run in a series of simulations. The handler saves
+ * the statistics of the finished run and either starts the next run or stops
+ * the series.
+ *
+ * @author Group Model
+ * @version 1.0
+ */
+public interface SeriesHandler {
+
+    /**
+     * Called by the <code>SimModel</code> when a run in a series has finished
+     * (or before the first run).
+     */
+    public void nextSeries();
+}
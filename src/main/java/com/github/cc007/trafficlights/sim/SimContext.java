@@ -0,0 +1,109 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.sim;
+
+import com.github.cc007.trafficlights.GLDSim;
+import com.github.cc007.trafficlights.algo.dp.DrivingPolicy;
+import com.github.cc007.trafficlights.algo.tlc.SignController;
+import com.github.cc007.trafficlights.infra.CustomFactory;
+
+import java.util.Random;
+
+/**
+ *
+ * The state that belongs to one running simulation: the seed of the current
+ * run in a series, the driving policy, the sign controller and the generators
+ * for new roadusers. A <code>SimModel</code> owns one context and hands it to
+ * its <code>Infrastructure</code>, through which the TLC, the driving policy
+ * and the nodes reach it. Several simulations can therefore run in one JVM
+ * without sharing random seeds or accident state.
+ *
+ * @author Group Model
+ * @version 1.0
+ */
+public class SimContext {
+
+    /**
+     * Index in GLDSim.seriesSeed of the seed used by the current run
+     */
+    protected int seriesSeedIndex = 0;
+    /**
+     * The Driving Policy of the simulation
+     */
+    protected DrivingPolicy drivingPolicy;
+    /**
+     * The SignController of the simulation
+     */
+    protected SignController signController;
+    /**
+     * Random number generator used by the RoaduserFactory
+     */
+    protected Random roaduserRandom;
+    /**
+     * Generates and keeps count of the custom roadusers
+     */
+    protected CustomFactory customFactory;
+
+    public SimContext() {
+        roaduserRandom = new Random(getSeed());
+        customFactory = new CustomFactory(this);
+    }
+
+    /**
+     * Returns the index of the seed of the current run
+     */
+    public int getSeriesSeedIndex() {
+        return seriesSeedIndex;
+    }
+
+    /**
+     * Sets the index of the seed of the current run
+     */
+    public void setSeriesSeedIndex(int index) {
+        seriesSeedIndex = index;
+    }
+
+    /**
+     * Returns the seed of the current run, all random number generators of
+     * this simulation are seeded with it
+     */
+    public long getSeed() {
+        return GLDSim.seriesSeed[seriesSeedIndex];
+    }
+
+    public DrivingPolicy getDrivingPolicy() {
+        return drivingPolicy;
+    }
+
+    public void setDrivingPolicy(DrivingPolicy dp) {
+        drivingPolicy = dp;
+    }
+
+    public SignController getSignController() {
+        return signController;
+    }
+
+    public void setSignController(SignController sc) {
+        signController = sc;
+    }
+
+    public Random getRoaduserRandom() {
+        return roaduserRandom;
+    }
+
+    public CustomFactory getCustomFactory() {
+        return customFactory;
+    }
+}
@@ -28,6 +28,7 @@ import com.github.cc007.trafficlights.xml.*;
 import java.awt.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,7 +38,17 @@ import java.util.logging.Logger;
  * @author Group GUI
  * @version 1.0
  */
-public class SimController extends Controller implements Observer {
+public class SimController extends Controller implements CycleListener, SeriesHandler {
+
+    /**
+     * Delivers the snapshots of the SimModel on the AWT event queue
+     */
+    protected static final Executor EVENT_QUEUE = new Executor() {
+        @Override
+        public void execute(Runnable r) {
+            EventQueue.invokeLater(r);
+        }
+    };
 
     protected EditController editController = null;
     protected SimMenuBar menuBar;
@@ -47,21 +58,14 @@ public class SimController extends Controller implements Observer {
 
     protected Choice speedChoice;
     protected StatisticsOverlay statsOverlay;
+    protected static final int OVERLAY_INTERVAL = 5;	// The number of cycles between two updates of the overlay
 
     protected boolean quitAfterSeries = false;  // Quit after series of experiments (DOAS 06)
 
-    protected boolean hecAddon; //(DOAS 05)
-    protected boolean accidents = true; // (DOAS 06) 	By default on. This must correspond to the SimMenuBar setting.
-    protected boolean rerouting = true; //(DOAS 06)
-
-    // DOAS 06: Removal of stuck cars.
-    protected boolean removeStuckCars = false;
-    protected int maxWaitingTime = 20;
-    protected int penalty = 0;
+    // The run options (hec, accidents, rerouting, stuck cars) are kept by the SimModel in its SimOptions.
+    // Accidents are on by default. This must correspond to the SimMenuBar setting.
     protected StuckCarsDialog stuckCarsDialog;
 
-    protected static int maxRuWaitingQueue = SimModel.LOCK_THRESHOLD;
-
     /**
      * Creates the main frame.
      *
@@ -97,12 +101,12 @@ public class SimController extends Controller implements Observer {
         return (SimModel) model;
     }
 
-    public static int getMaxRuWaitingQueue() {
-        return maxRuWaitingQueue;
+    public int getMaxRuWaitingQueue() {
+        return getSimModel().getOptions().getMaxRuWaitingQueue();
     }
 
-    public static void setMaxRuWaitingQueue(int num) {
-        maxRuWaitingQueue = num;
+    public void setMaxRuWaitingQueue(int num) {
+        getSimModel().getOptions().setMaxRuWaitingQueue(num);
     }
 
     /**
@@ -117,11 +121,11 @@ public class SimController extends Controller implements Observer {
      */
     public void setCycleCounterEnabled(boolean b) {
         if (b) {
-            getSimModel().addObserver(this);
+            getSimModel().getPublisher().subscribe(this, 1, EVENT_QUEUE);
         } else {
 
             setStatus("Cycle counter disabled at cycle " + getSimModel().getCurCycle() + ".");
-            getSimModel().deleteObserver(this);
+            getSimModel().getPublisher().unsubscribe(this);
         }
     }
 
@@ -132,7 +136,7 @@ public class SimController extends Controller implements Observer {
 
     //(DOAS 05)
     public void setHecAddon(boolean b) {
-        hecAddon = b;
+        getSimModel().getOptions().setHecAddon(b);
         try {
             HECinterface tlc = (HECinterface) ((SimModel) model).getTLController();
             tlc.setHecAddon(b, this);
@@ -144,17 +148,17 @@ public class SimController extends Controller implements Observer {
 
     //(DOAS 05)
     public boolean getHecAddon() {
-        return hecAddon;
+        return getSimModel().getOptions().getHecAddon();
     }
 
     //Set the accidents mode (DOAS 06)
     public void setAccidents(boolean b) {
-        accidents = b;
+        getSimModel().getOptions().setAccidents(b);
     }
 
     //Are the accidents ON?(DOAS 06)
     public boolean getAccidents() {
-        return accidents;
+        return getSimModel().getOptions().getAccidents();
     }
 
     // DOAS 06 set the removal of stuck cars.
@@ -169,42 +173,42 @@ public class SimController extends Controller implements Observer {
             stuckCarsDialog.setVisible(true);
         }
 
-        removeStuckCars = b;
+        getSimModel().getOptions().setRemoveStuckCars(b);
     }
 
     // DOAS 06 do we remove stuck cars?
     public boolean getRemoveStuckCars() {
-        return removeStuckCars;
+        return getSimModel().getOptions().getRemoveStuckCars();
     }
 
     // DOAS 06 set how lang a car may wait
     public void setMaxWaitingTime(int time) {
-        maxWaitingTime = time;
+        getSimModel().getOptions().setMaxWaitingTime(time);
     }
 
     // DOAS 06 how lang may a car wait before it is stuck.
     public int getMaxWaitingTime() {
-        return maxWaitingTime;
+        return getSimModel().getOptions().getMaxWaitingTime();
     }
 
     // DOAS 06 set a penalty for a removed car.
     public void setPenalty(int p) {
-        penalty = p;
+        getSimModel().getOptions().setPenalty(p);
     }
 
     // DOAS 06 get a penalty for a removed car.
     public int getPenalty() {
-        return penalty;
+        return getSimModel().getOptions().getPenalty();
     }
 
     //Set the rerouting mode (DOAS 06)
     public void setRerouting(boolean on) {
-        rerouting = on;
+        getSimModel().getOptions().setRerouting(on);
     }
 
     //Are we rerouting?(DOAS 06)
     public boolean getRerouting() {
-        return rerouting;
+        return getSimModel().getOptions().getRerouting();
     }
 
     /*============================================*/
@@ -273,23 +277,23 @@ public class SimController extends Controller implements Observer {
  /* Miscellanous                               */
  /*============================================*/
     /**
-     * Called by observable SimModel (if view enabled).
+     * Called on the event queue with the state of the SimModel (if the cycle
+     * counter is enabled).
      */
     @Override
-    public void update(Observable o, Object arg) {
-        SimModel model = (SimModel) o;
-        int cycle = model.getCurCycle();
-        int numWaiting = model.getCurNumWaiting();
-        int curSeries = model.getCurSeries(); // DOAS 06
+    public void cycleDone(CycleSnapshot snapshot) {
+        int cycle = snapshot.getCycle();
+        int numWaiting = snapshot.getNumWaiting();
+        int curSeries = snapshot.getCurSeries(); // DOAS 06
         if (cycle != 0) {
             String status = "Cycle: " + cycle
                     + ", Num Roadusers waiting to enter town: "
-                    + numWaiting + " max(" + maxRuWaitingQueue
+                    + numWaiting + " max(" + snapshot.getMaxRuWaitingQueue()
                     + ") seed:"
-                    + GLDSim.seriesSeed[GLDSim.seriesSeedIndex];
+                    + snapshot.getSeed();
             // DOAS 06: Series information in status bar added
             if (curSeries > 0) {
-                status = "Series: " + curSeries + " of " + model.getNumSeries() + ", " + status;
+                status = "Series: " + curSeries + " of " + snapshot.getNumSeries() + ", " + status;
             }
             setStatus(status);
         }
@@ -340,7 +344,7 @@ public class SimController extends Controller implements Observer {
      */
     public void enableOverlay() {
         statsOverlay = new StatisticsOverlay(view, getSimModel().getInfrastructure());
-        getSimModel().addObserver(statsOverlay);
+        getSimModel().getPublisher().subscribe(statsOverlay, OVERLAY_INTERVAL, EVENT_QUEUE);
         view.addOverlay(statsOverlay);
     }
 
@@ -348,7 +352,7 @@ public class SimController extends Controller implements Observer {
      * Enables the statistics overlay
      */
     public void disableOverlay() {
-        getSimModel().deleteObserver(statsOverlay);
+        getSimModel().getPublisher().unsubscribe(statsOverlay);
         view.remOverlay(statsOverlay);
     }
 
@@ -496,15 +500,13 @@ public class SimController extends Controller implements Observer {
         getSimModel().runSeries();
     }
 
+    @Override
     public void nextSeries() {
         getSimModel().pause();
         int curSeries = getSimModel().getCurSeries();
         String logPath = "log";
         // If we have data, save it
         if (curSeries > 0) {
-            String simName = getSimModel().getSimName();
-            String tlcName = TLCFactory.getDescription(TLCFactory.getNumberByXMLTagName(XMLUtils.getLastName(getSimModel().getTLController().getXMLName())));
-            String dpName = DPFactory.getDescription(DPFactory.getNumberByXMLTagName(XMLUtils.getLastName(getSimModel().getDrivingPolicy().getXMLName())));
             TrackingController[] tca = TrackerFactory.getTrackingControllers();
             // DOAS 06:
             Date date = new Date();
@@ -520,16 +522,7 @@ public class SimController extends Controller implements Observer {
             for (int i = 0; i < tca.length; i++) {
                 TrackingView tv = tca[i].getTrackingView();
                 String filename = logDir + "/"
-                        + "seed-" + GLDSim.seriesSeed[GLDSim.seriesSeedIndex]
-                        + "_tlc-" + tlcName
-                        + "_drivep-" + dpName
-                        + "_view-" + tv.getDescription()
-                        + "_run-" + curSeries
-                        + "_acc-" + getAccidents()
-                        + "_stuck-" + (getRemoveStuckCars() ? ("" + getPenalty()) : "false")
-                        + "_rerout-" + getRerouting()
-                        + "_time-" + date.getTime()
-                        + ".dat";
+                        + getSimModel().getSeriesLogName(tv.getDescription(), date.getTime());
                 try {
                     tv.saveData(filename, getSimModel());
                 } catch (IOException exc) {
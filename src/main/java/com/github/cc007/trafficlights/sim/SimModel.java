@@ -14,7 +14,6 @@
  *------------------------------------------------------------------------*/
 package com.github.cc007.trafficlights.sim;
 
-import com.github.cc007.trafficlights.GLDSim;
 import com.github.cc007.trafficlights.Model;
 
 import com.github.cc007.trafficlights.algo.dp.*;
@@ -28,6 +27,14 @@ import com.github.cc007.trafficlights.xml.*;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -52,6 +59,15 @@ public class SimModel extends Model implements XMLSerializable {
      * The SimController
      */
     protected SimController controller;
+    /**
+     * Handles the end of each run in a series, this is the SimController
+     * unless the simulation runs headless
+     */
+    protected SeriesHandler seriesHandler;
+    /**
+     * The run options of this simulation
+     */
+    protected SimOptions options = new SimOptions();
     /**
      * The current cycle we're in
      */
@@ -59,17 +75,14 @@ public class SimModel extends Model implements XMLSerializable {
     /* number of roadusers waiting in queues at all edges */
     protected int numWaiting = 0;
     /**
-     * The Driving Policy in this Simulation
+     * The state of this simulation that is shared with its infrastructure:
+     * the seed of the current run, the driving policy and the sign controller
      */
-    protected static DrivingPolicy dp;
+    protected SimContext context = new SimContext();
     /**
      * The TrafficLightControlling Algorithm
      */
     protected TLController tlc;
-    /**
-     * The Thing that makes all Trafficlights shudder
-     */
-    protected static SignController sgnctrl;
     /**
      * Name of the simulation
      */
@@ -92,27 +105,76 @@ public class SimModel extends Model implements XMLSerializable {
      */
     protected static int numSeriesSteps = 50000;
     protected static int LOCK_THRESHOLD = 10000;
-    protected static int numSeries = 10; // DOAS 06: 10 series per test config
+    /**
+     * The number of series that are run when it is not set
+     */
+    public static final int DEFAULT_NUM_SERIES = 10; // DOAS 06: 10 series per test config
+    protected static int numSeries = DEFAULT_NUM_SERIES;
     protected int curSeries = 0;
 
     /**
      * The derivation factor for calculating shortest paths
      */
     protected double derivationFactor = 1.1;
+    /**
+     * The possible moves passed to TLCs that do not use them
+     */
+    protected static final PosMov[] NO_POSMOVS = new PosMov[0];
+    /**
+     * Hands snapshots of this model to listeners on other threads
+     */
+    protected CyclePublisher publisher = new CyclePublisher();
+    /**
+     * The threads that move lanes concurrently
+     */
+    protected ThreadPoolExecutor laneMover;
+    /**
+     * The stack of lanes being moved, for each thread that moves lanes
+     */
+    protected final ThreadLocal<ArrayList<LaneMove>> laneMoves = new ThreadLocal<ArrayList<LaneMove>>() {
+        @Override
+        protected ArrayList<LaneMove> initialValue() {
+            return new ArrayList<>();
+        }
+    };
 
     /**
      * Creates second thread
      */
     public SimModel() {
+        this(true);
+    }
+
+    /**
+     * Creates a SimModel
+     *
+     * @param startThread whether to start the second thread. When it is not
+     * started the simulation only advances through calls to doStep(), as
+     * done by the HeadlessSimulation.
+     */
+    public SimModel(boolean startThread) {
         thread = new SimModelThread();
-        thread.start();
+        if (startThread) {
+            thread.start();
+        }
         curCycle = 0;
-        generator = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
-        sgnctrl = new SignController(tlc, infra);
+        generator = new Random(context.getSeed());
+        infra.setContext(context);
+        context.setSignController(new SignController(tlc, infra));
+    }
+
+    /**
+     * Returns the context of this simulation
+     */
+    public SimContext getContext() {
+        return context;
     }
-    
-    public static SignController getSignController(){
-        return sgnctrl;
+
+    /**
+     * Returns The Thing that makes all Trafficlights shudder
+     */
+    public SignController getSignController() {
+        return context.getSignController();
     }
 
     //(DOAS 06)
@@ -122,6 +184,36 @@ public class SimModel extends Model implements XMLSerializable {
 
     public void setSimController(SimController sc) {
         controller = sc;
+        seriesHandler = sc;
+    }
+
+    public SeriesHandler getSeriesHandler() {
+        return seriesHandler;
+    }
+
+    public void setSeriesHandler(SeriesHandler sh) {
+        seriesHandler = sh;
+    }
+
+    /**
+     * Returns the publisher that hands cycle snapshots to the listeners
+     */
+    public CyclePublisher getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Returns the run options of this simulation
+     */
+    public SimOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Sets the run options of this simulation
+     */
+    public void setOptions(SimOptions o) {
+        options = o;
     }
 
     @Override
@@ -129,11 +221,12 @@ public class SimModel extends Model implements XMLSerializable {
         pause();
 
         super.setInfrastructure(i);
+        i.setContext(context);
         if (tlc != null) {
             tlc.setInfrastructure(i);
         }
-        if (sgnctrl != null) {
-            sgnctrl.setInfrastructure(i);
+        if (context.getSignController() != null) {
+            context.getSignController().setInfrastructure(i);
         }
     }
 
@@ -168,15 +261,15 @@ public class SimModel extends Model implements XMLSerializable {
     /**
      * Returns the current Driving Policy
      */
-    public static DrivingPolicy getDrivingPolicy() {
-        return dp;
+    public DrivingPolicy getDrivingPolicy() {
+        return context.getDrivingPolicy();
     }
 
     /**
      * Sets the current DrivTLController
      */
     public void setDrivingPolicy(DrivingPolicy _dp) {
-        dp = _dp;
+        context.setDrivingPolicy(_dp);
     }
 
     /**
@@ -191,7 +284,7 @@ public class SimModel extends Model implements XMLSerializable {
      */
     public void setTLController(TLController _tlc) {
         tlc = _tlc;
-        sgnctrl.setTLC(tlc);
+        context.getSignController().setTLC(tlc);
     }
 
     /**
@@ -267,13 +360,27 @@ public class SimModel extends Model implements XMLSerializable {
     }
 
     public void runSeries() {
-        curSeries = 0;
+        runSeries(0);
+    }
+
+    /**
+     * Starts a series of simulations as if the given number of runs had
+     * already been done, so the next run uses the seed and run number it would
+     * have in a full series.
+     *
+     * @param runsDone The number of runs to skip
+     */
+    public void runSeries(int runsDone) {
+        curSeries = runsDone;
+        context.setSeriesSeedIndex(runsDone);
         runSeries = true;
         nextSeries();
     }
 
     public void nextSeries() {
-        controller.nextSeries();
+        if (seriesHandler != null) {
+            seriesHandler.nextSeries();
+        }
     }
 
     public void lockedSeries() {
@@ -281,6 +388,7 @@ public class SimModel extends Model implements XMLSerializable {
         for (; curCycle < numSeriesSteps; curCycle++) {
             setChanged();
             notifyObservers();
+            publisher.publish(this);
         }
         locked = false;
         nextSeries();
@@ -288,13 +396,13 @@ public class SimModel extends Model implements XMLSerializable {
 
     public void stopSeries() {
         curSeries = 0;
-        GLDSim.seriesSeedIndex = 0;
+        context.setSeriesSeedIndex(0);
         runSeries = false;
     }
 
     public void nextCurSeries() {
         curSeries++;
-        GLDSim.seriesSeedIndex = curSeries;
+        context.setSeriesSeedIndex(curSeries);
 
     }
 
@@ -302,6 +410,29 @@ public class SimModel extends Model implements XMLSerializable {
         return curSeries;
     }
 
+    /**
+     * Returns the name of the file the data of a tracking view is saved to at
+     * the end of the current run in a series (DOAS 06)
+     *
+     * @param viewDescription The description of the tracking view
+     * @param time The time stamp of the end of the run
+     * @return the file name, without directory
+     */
+    public String getSeriesLogName(String viewDescription, long time) {
+        String tlcName = TLCFactory.getDescription(TLCFactory.getNumberByXMLTagName(XMLUtils.getLastName(tlc.getXMLName())));
+        String dpName = DPFactory.getDescription(DPFactory.getNumberByXMLTagName(XMLUtils.getLastName(getDrivingPolicy().getXMLName())));
+        return "seed-" + context.getSeed()
+                + "_tlc-" + tlcName
+                + "_drivep-" + dpName
+                + "_view-" + viewDescription
+                + "_run-" + curSeries
+                + "_acc-" + options.getAccidents()
+                + "_stuck-" + (options.getRemoveStuckCars() ? ("" + options.getPenalty()) : "false")
+                + "_rerout-" + options.getRerouting()
+                + "_time-" + time
+                + ".dat";
+    }
+
     public boolean isRunSeries() {
         return runSeries;
     }
@@ -330,9 +461,9 @@ public class SimModel extends Model implements XMLSerializable {
         }
         infra.reset(derivationFactor);
         tlc.reset();
-        dp.reset(); //driving policy might also need being reset (DOAS 06)
+        getDrivingPolicy().reset(); //driving policy might also need being reset (DOAS 06)
         curCycle = 0;
-        generator = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+        generator = new Random(context.getSeed());
         TrackerFactory.resetTrackers();
 
         setChanged();
@@ -349,10 +480,14 @@ public class SimModel extends Model implements XMLSerializable {
 
         boolean structureChanged = false;
         // (DOAS 06) Setting added to the menu
-        if (this.controller.getAccidents()) {
+        if (options.getAccidents()) {
             structureChanged = infra.disableRandomLane(derivationFactor); // (DOAS 05) these two functions enable the use of 'accidents'
             structureChanged |= infra.enableRandomLane(derivationFactor);  // removing those two lines will revert the program to the normal version
         }
+        if (structureChanged) {
+            // the directions chosen when the signs switched may lead to a lane that is disabled now
+            getDrivingPolicy().forgetDecisions();
+        }
 
 //TODO make sure that this can actually be turned off (enable/disable already calcs all shortest paths twice)
 //        if (structureChanged && this.controller.getRerouting()) {
@@ -377,6 +512,7 @@ public class SimModel extends Model implements XMLSerializable {
         }
         setChanged();
         notifyObservers();
+        publisher.publish(this);
         if (runSeries && curCycle >= numSeriesSteps) {
             nextSeries();
         }
@@ -433,8 +569,9 @@ public class SimModel extends Model implements XMLSerializable {
         try {
             specialNodesDoStep();
             moveAllRoadusers();
+            getDrivingPolicy().forgetDecisions();
             spawnNewRoadusers();
-            sgnctrl.switchSigns();
+            context.getSignController().switchSigns();
         } catch (Exception e) {
             System.out.println("The simulator made a booboo:");
             System.out.println(e.getMessage());
@@ -457,6 +594,10 @@ public class SimModel extends Model implements XMLSerializable {
      * Just because we can! MUHAHAahahahahah!
      */
     public void moveAllRoadusers() throws InfraException {
+        if (options.getMovementThreads() > 1 && !tlc.readsLanesOnMove()) {
+            moveAllRoadusersConcurrently();
+            return;
+        }
         // Line below is faster than the obvious alternative
         Iterator lanes = infra.getAllInboundLanes().iterator();
         DriveLane lane;
@@ -471,56 +612,271 @@ public class SimModel extends Model implements XMLSerializable {
     }
 
     /**
-     * moving all roadusers from one lane to their new places
+     * Moves all roadusers in two phases with the same result as
+     * moveAllRoadusers on a single thread. The network is split into junction
+     * regions: the lanes leaving a node form the region of that node. When no
+     * roaduser on the lanes towards a node can reach its sign this cycle,
+     * nobody drives onto the lanes of its region, and the lanes in it that
+     * have no roaduser near their own sign depend on nothing but themselves.
+     * Those lanes are moved concurrently first. The TLC updates of their
+     * roadusers are kept, and passed on to the TLC in the second phase when
+     * the lane comes up in the usual order, in which all other lanes are
+     * moved like before.
+     * <p>
+     * Only lanes on which no roaduser can reach the sign this cycle are moved
+     * concurrently, so this scales with the number of such lanes, not with
+     * the number of regions. On a busy network most lanes that are not empty
+     * have a roaduser near their sign and are moved in the second phase.
+     */
+    protected void moveAllRoadusersConcurrently() throws InfraException {
+        final ArrayList<?> lanes = infra.getAllInboundLanes();
+        int numLanes = lanes.size();
+        boolean[] crossing = new boolean[numLanes];
+        boolean[] busyNodes = new boolean[infra.getNumNodes()];
+        for (int i = 0; i < numLanes; i++) {
+            DriveLane lane = (DriveLane) lanes.get(i);
+            crossing[i] = mayReachSign(lane);
+            if (crossing[i]) {
+                busyNodes[lane.getNodeLeadsTo().getId()] = true;
+            }
+        }
+
+        final ArrayList<Integer> region = new ArrayList<>();
+        for (int i = 0; i < numLanes; i++) {
+            DriveLane lane = (DriveLane) lanes.get(i);
+            if (!crossing[i] && !lane.getQueue().isEmpty()
+                    && !busyNodes[lane.getNodeComesFrom().getId()]) {
+                region.add(i);
+            }
+        }
+
+        // Phase 1: the lanes that depend on nothing but themselves
+        final List<List<DeferredMove>> deferredMoves = new ArrayList<>(Collections.nCopies(numLanes, (List<DeferredMove>) null));
+        int numTasks = Math.min(options.getMovementThreads(), region.size());
+        ArrayList<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < numTasks; t++) {
+            final int from = region.size() * t / numTasks;
+            final int to = region.size() * (t + 1) / numTasks;
+            tasks.add(getLaneMover().submit(new Callable<Object>() {
+                @Override
+                public Object call() throws InfraException {
+                    for (int r = from; r < to; r++) {
+                        int i = region.get(r);
+                        LaneMove move = getLaneMove(0);
+                        move.start((DriveLane) lanes.get(i));
+                        move.deferredMoves = new ArrayList<>();
+                        continueLane(move);
+                        move.lane.setCycleMoved(curCycle);
+                        deferredMoves.set(i, move.deferredMoves);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof InfraException) {
+                    throw (InfraException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        // Phase 2: all other lanes, in the usual order
+        for (int i = 0; i < numLanes; i++) {
+            DriveLane lane = (DriveLane) lanes.get(i);
+            if (deferredMoves.get(i) != null) {
+                for (DeferredMove move : deferredMoves.get(i)) {
+                    move.update();
+                }
+            } else if (lane.getCycleMoved() != curCycle) {
+                moveLane(lane);
+            }
+        }
+    }
+
+    /**
+     * Returns true when a roaduser on the lane may get to the sign of the lane
+     * this cycle
+     */
+    protected boolean mayReachSign(DriveLane lane) {
+        for (Roaduser ru : lane.getQueue()) {
+            if (ru.getPosition() - ru.getSpeed() < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the threads that move the lanes concurrently, they are started
+     * when they are first needed and stop after being idle for a while
+     */
+    protected ExecutorService getLaneMover() {
+        int threads = options.getMovementThreads();
+        if (laneMover == null || laneMover.getMaximumPoolSize() != threads) {
+            if (laneMover != null) {
+                laneMover.shutdown();
+            }
+            laneMover = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Lane mover");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            laneMover.allowCoreThreadTimeOut(true);
+        }
+        return laneMover;
+    }
+
+    /**
+     * moving all roadusers from one lane to their new places. When a roaduser
+     * wants to cross to a lane that is full and has not moved yet this cycle,
+     * that lane is moved first. The lanes waiting for another lane are kept on
+     * a stack instead of in recursive calls, so long chains of full lanes
+     * cannot overflow the call stack.
      *
      * @author Jilles V, Arne K, Chaim Z and Siets el S
      * @param lane The lane whose roadusers should be moved
-     * @param callingLanes ArrayList of drivelanes, for recursive internal use
-     * only, this parameter should have the value null, when called from the
-     * outside
      * @version 1.0
      */
     protected void moveLane(DriveLane lane) throws InfraException {
-        LinkedList queue;
-        ListIterator li;
-        DriveLane sourceLane, destLane;
+        int waitingLanes = 0;
+        getLaneMove(waitingLanes++).start(lane);
+
+        while (waitingLanes > 0) {
+            LaneMove move = getLaneMove(waitingLanes - 1);
+            DriveLane destLane = continueLane(move);
+            if (destLane != null) {
+                // System.out.println("Waiting for another lane to move..");
+                getLaneMove(waitingLanes++).start(destLane);
+            } else {
+                waitingLanes--;
+                move.lane.setCycleMoved(curCycle);
+            }
+        }
+    }
+
+    /**
+     * Returns the LaneMove of the current thread for the lane at the given
+     * depth of the stack of waiting lanes. The LaneMoves are reused every
+     * cycle.
+     */
+    protected LaneMove getLaneMove(int depth) {
+        ArrayList<LaneMove> moves = laneMoves.get();
+        while (moves.size() <= depth) {
+            moves.add(new LaneMove());
+        }
+        return moves.get(depth);
+    }
+
+    /**
+     * The state of a lane whose roadusers are being moved
+     */
+    protected class LaneMove {
+
+        protected DriveLane lane, destLane;
+        protected Sign sign;
+        protected Node node;
+        protected List<Roaduser> queue;
+        protected ListIterator<Roaduser> li;
+        protected Roaduser ru;
+        protected PosMov[] posMovs;
+        protected int ru_pos, ru_speed, ru_len;
+        protected boolean edgeNodeReached;
+        /**
+         * True when the current roaduser waits for destLane to move
+         */
+        protected boolean waiting = false;
+        /**
+         * When not null the TLC updates are kept here instead of being passed
+         * on to the TLC right away
+         */
+        protected List<DeferredMove> deferredMoves = null;
+        /**
+         * The possible moves of the current roaduser
+         */
+        protected PosMovBuffer posMovBuffer = new PosMovBuffer();
+
+        /**
+         * Starts moving the roadusers of the given lane
+         */
+        protected void start(DriveLane lane) {
+            this.lane = lane;
+            sign = lane.getSign();
+            queue = lane.getQueue();
+            li = queue.listIterator();
+            ru = null;
+            destLane = null;
+            waiting = false;
+            deferredMoves = null;
+
+            //(DOAS 06) This must be in the begining!!!!
+            lane.setCycleAsked(curCycle);
+        }
+    }
+
+    /**
+     * Moves the roadusers of a lane until all of them are done, or until one of
+     * them has to wait for another lane to move first.
+     *
+     * @param move The lane to continue with
+     * @return the lane that should be moved first, or null when the lane is
+     * done
+     */
+    protected DriveLane continueLane(LaneMove move) throws InfraException {
+        DriveLane lane = move.lane, destLane;
+        Sign sign = move.sign;
         Node node;
-        Sign sign;
         Roaduser ru;
-        int ru_pos, ru_des, ru_speed, ru_type, ru_len;
+        int ru_pos, ru_speed, ru_len;
 
-        sign = lane.getSign();
-        queue = lane.getQueue();
-        li = queue.listIterator();
-
-        //(DOAS 06) This must be in the begining!!!!
-        lane.setCycleAsked(curCycle);
+        if (move.waiting) {
+            // The lane we waited for moved, so try again
+            move.waiting = false;
+            crossToWaitedLane(move);
+            removeIfStuck(move);
+        }
 
-        while (li.hasNext()) {
+        while (move.li.hasNext()) {
             try {
-                ru = (Roaduser) li.next();
+                ru = move.li.next();
             } // When this exception is thrown you removed the first element of the queue, therefore re-create the iterator.
             catch (Exception e) {
-                li = queue.listIterator();
+                move.li = move.queue.listIterator();
                 continue;
             }
+            ListIterator<Roaduser> li = move.li;
 
             // Only attempt to move this RU when it hasnt already
             if (!ru.didMove(curCycle)) {
                 // DOAS 06
                 // No need to reset color
                 // ru.setColor(new Color(0, 0, 255));
-                boolean edgeNodeReached = false;
+                move.edgeNodeReached = false;
 
                 ru.setCycleAsked(curCycle);
                 node = sign.getNode();
                 ru_pos = ru.getPosition();
                 ru_speed = ru.getSpeed();
                 ru_len = ru.getLength();
-                ru_type = ru.getType();
-                ru_des = ru.getDestNode().getId();
 
-                PosMov[] posMovs = calcPosMovs(node, sign, lane, ru, li);
+                PosMov[] posMovs = tlc.usesPosMovs()
+                        ? calcPosMovs(node, sign, lane, ru, li, move.posMovBuffer) : NO_POSMOVS;
+                move.ru = ru;
+                move.node = node;
+                move.ru_pos = ru_pos;
+                move.ru_speed = ru_speed;
+                move.ru_len = ru_len;
+                move.posMovs = posMovs;
 
                 ru.setInQueueForSign(false);
 
@@ -542,15 +898,15 @@ public class SimModel extends Model implements XMLSerializable {
                             li.remove();
                             ru.setWaitPos(sign.getId(), sign.mayDrive(), ru_pos);
                             ru.setInQueueForSign(false);
-                            tlc.updateRoaduserMove(ru, lane, sign, ru_pos, null, null, 0, posMovs, null);
+                            updateRoaduserMove(move, ru, lane, sign, ru_pos, null, null, 0, posMovs, null);
                             ((SpecialNode) (node)).enter(ru);
-                            ru = null;
-                            edgeNodeReached = true;
+                            move.ru = null;
+                            move.edgeNodeReached = true;
                         }
                     } // Handle Roadusers that are (or nearly) at a Sign
                     else if (lane.getSign().mayDrive()) {
                         if (ru_pos == 0 || lane.getPosFree(li, 0, ru_len, ru_speed, ru) == 0) { // Can cross-check
-                            destLane = dp.getDirection(ru, lane, node); // HACK
+                            destLane = getDrivingPolicy().getDirection(ru, lane, node); // HACK
 
                             if (destLane != null) {
                                 // Check if there is room on the node
@@ -565,7 +921,7 @@ public class SimModel extends Model implements XMLSerializable {
                                                 ru_pos);
                                         ru.setInQueueForSign(false);
                                         ru.setCycleMoved(curCycle);
-                                        tlc.updateRoaduserMove(ru, lane, sign,
+                                        updateRoaduserMove(move, ru, lane, sign,
                                                 ru_pos, destLane,
                                                 destLane.getSign(),
                                                 ru.getPosition(), posMovs,
@@ -576,41 +932,13 @@ public class SimModel extends Model implements XMLSerializable {
                                         e.printStackTrace();
                                     }
                                 } else { // Otherwise, check if the next lane should move, and then do just that
+                                    move.destLane = destLane;
                                     if (curCycle != destLane.getCycleAsked()
                                             && curCycle != destLane.getCycleMoved()) { // If the position is not free, then check if it already moved this turn, if not:
-                                        moveLane(destLane); // System.out.println("Waiting for another lane to move..");
-                                    }
-                                    if (destLane.isLastPosFree(ru_len)) { // Ok now the lane that should have moved, moved so try again .........
-                                        try {
-                                            node.processStats(ru, curCycle,
-                                                    sign);
-                                            destLane.addRoaduserAtEnd(ru);
-                                            ru.setPrevSign(lane.getSign().getId());
-                                            li.remove();
-                                            ru.setWaitPos(sign.getId(),
-                                                    sign.mayDrive(), ru_pos);
-                                            ru.setInQueueForSign(false);
-                                            ru.setCycleMoved(curCycle);
-                                            tlc.updateRoaduserMove(ru, lane,
-                                                    sign,
-                                                    ru_pos, destLane,
-                                                    destLane.getSign(),
-                                                    ru.getPosition(), posMovs,
-                                                    destLane);
-                                        } catch (Exception e) {
-                                            Logger.getLogger(SimModel.class.getName()).log(Level.SEVERE, null, e);
-                                        }
-                                    } else { // Apparently no space was created, so we're still here.
-                                        if (moveRoaduserOnLane(li, ru, ru_speed,
-                                                lane) > 0) {
-                                            ru.setWaitPos(sign.getId(),
-                                                    sign.mayDrive(), ru_pos);
-                                        }
-                                        tlc.updateRoaduserMove(ru, lane, sign,
-                                                ru_pos, lane, sign,
-                                                ru.getPosition(),
-                                                posMovs, null);
+                                        move.waiting = true;
+                                        return destLane;
                                     }
+                                    crossToWaitedLane(move);
                                 }
                             }
                         }
@@ -619,7 +947,7 @@ public class SimModel extends Model implements XMLSerializable {
                         if (moveRoaduserOnLane(li, ru, ru_speed, lane) > 0) {
                             ru.setWaitPos(sign.getId(), sign.mayDrive(), ru_pos);
                         }
-                        tlc.updateRoaduserMove(ru, lane, sign, ru_pos, lane,
+                        updateRoaduserMove(move, ru, lane, sign, ru_pos, lane,
                                 sign, ru.getPosition(), posMovs, null);
                     }
                 } /* Roaduser impossibly can cross a sign. The maximum amount of space
@@ -628,45 +956,11 @@ public class SimModel extends Model implements XMLSerializable {
                         ru.setWaitPos(sign.getId(), sign.mayDrive(), ru_pos);
                     }
                     ru.setCycleMoved(curCycle);
-                    tlc.updateRoaduserMove(ru, lane, sign, ru_pos, lane, sign,
+                    updateRoaduserMove(move, ru, lane, sign, ru_pos, lane, sign,
                             ru.getPosition(), posMovs, null);
                 }
 
-                // DOAS 06: this code block checks whether the current road user has
-                // been stuck for more than x cycles, if so this car and all other waiting
-                // behind it will be removed. A penalty will be given to the learner, since
-                // stuck cars aren't nice.
-                //DEBUG DOAS 06
-                /*if (   !edgeNodeReached &&
-				    curCycle - ru.getCycleMoved() > controller.getMaxWaitingTime())
-				{
-                                    System.out.println("I'd remove a car now " + lane.getNodeLeadsTo().getId());
-                                    controller.pause();
-                                }*/
-                if (this.controller.getRemoveStuckCars()
-                        && !edgeNodeReached
-                        && curCycle - ru.getCycleMoved() > controller.getMaxWaitingTime()) {
-                    //System.out.println("Car seems to be stuck, removing car.");
-                    //ru.addDelay(controller.getPenalty());
-                    //node.processStats(ru, curCycle, sign);
-                    ru.setPosition(-1);
-                    ru.setPrevSign(-1);
-                    li.remove();
-                    ru.setWaitPos(sign.getId(), sign.mayDrive(), ru_pos);
-                    ru.setInQueueForSign(false);
-
-                    //update learners (punishment for removed cars) (DOAS 06)
-                    if (tlc instanceof TCRL) {
-                        //System.out.println("We have penalty: " + controller.getPenalty());
-                        ((TCRL) tlc).updateRoaduserMove(ru, lane, sign, ru_pos, lane, sign, 0, posMovs, null, controller.getPenalty());
-                    } else {
-                        tlc.updateRoaduserMove(ru, lane, sign, ru_pos, lane, sign, 0, posMovs, null);
-                    }
-
-                    ru = null;
-                    // increment counter of cars removed.
-                    infra.removedCarsIncrement();
-                }
+                removeIfStuck(move);
 
 //				if (ru != null)
 //				{
@@ -677,7 +971,158 @@ public class SimModel extends Model implements XMLSerializable {
                 // ru.setColor(new Color(0, 0, 0));
             }
         }
-        lane.setCycleMoved(curCycle);
+        return null;
+    }
+
+    /**
+     * Lets the current roaduser of a lane cross to the full lane it waited
+     * for, or move it as far as it can go on its own lane when still no space
+     * was created.
+     */
+    protected void crossToWaitedLane(LaneMove move) {
+        DriveLane lane = move.lane, destLane = move.destLane;
+        Sign sign = move.sign;
+        Roaduser ru = move.ru;
+        ListIterator<Roaduser> li = move.li;
+        int ru_pos = move.ru_pos;
+
+        if (destLane.isLastPosFree(move.ru_len)) { // Ok now the lane that should have moved, moved so try again .........
+            try {
+                move.node.processStats(ru, curCycle,
+                        sign);
+                destLane.addRoaduserAtEnd(ru);
+                ru.setPrevSign(lane.getSign().getId());
+                li.remove();
+                ru.setWaitPos(sign.getId(),
+                        sign.mayDrive(), ru_pos);
+                ru.setInQueueForSign(false);
+                ru.setCycleMoved(curCycle);
+                updateRoaduserMove(move, ru, lane,
+                        sign,
+                        ru_pos, destLane,
+                        destLane.getSign(),
+                        ru.getPosition(), move.posMovs,
+                        destLane);
+            } catch (Exception e) {
+                Logger.getLogger(SimModel.class.getName()).log(Level.SEVERE, null, e);
+            }
+        } else { // Apparently no space was created, so we're still here.
+            if (moveRoaduserOnLane(li, ru, move.ru_speed,
+                    lane) > 0) {
+                ru.setWaitPos(sign.getId(),
+                        sign.mayDrive(), ru_pos);
+            }
+            updateRoaduserMove(move, ru, lane, sign,
+                    ru_pos, lane, sign,
+                    ru.getPosition(),
+                    move.posMovs, null);
+        }
+    }
+
+    /**
+     * DOAS 06: this code block checks whether the current road user has been
+     * stuck for more than x cycles, if so this car and all other waiting
+     * behind it will be removed. A penalty will be given to the learner, since
+     * stuck cars aren't nice.
+     */
+    protected void removeIfStuck(LaneMove move) {
+        DriveLane lane = move.lane;
+        Sign sign = move.sign;
+        Roaduser ru = move.ru;
+        int ru_pos = move.ru_pos;
+
+        //DEBUG DOAS 06
+        /*if (   !edgeNodeReached &&
+				    curCycle - ru.getCycleMoved() > controller.getMaxWaitingTime())
+				{
+                                    System.out.println("I'd remove a car now " + lane.getNodeLeadsTo().getId());
+                                    controller.pause();
+                                }*/
+        if (options.getRemoveStuckCars()
+                && !move.edgeNodeReached
+                && curCycle - ru.getCycleMoved() > options.getMaxWaitingTime()) {
+            //System.out.println("Car seems to be stuck, removing car.");
+            //ru.addDelay(controller.getPenalty());
+            //node.processStats(ru, curCycle, sign);
+            ru.setPosition(-1);
+            ru.setPrevSign(-1);
+            move.li.remove();
+            ru.setWaitPos(sign.getId(), sign.mayDrive(), ru_pos);
+            ru.setInQueueForSign(false);
+
+            DeferredMove removed = new DeferredMove(ru, lane, sign, ru_pos, lane, sign, 0, move.posMovs, null);
+            removed.removed = true;
+            if (move.deferredMoves != null) {
+                move.deferredMoves.add(removed);
+            } else {
+                removed.update();
+            }
+
+            move.ru = null;
+        }
+    }
+
+    /**
+     * Passes the move of a roaduser on to the TLC, or keeps it when the lane
+     * is moved concurrently
+     */
+    protected void updateRoaduserMove(LaneMove move, Roaduser ru, DriveLane prevlane, Sign prevsign,
+            int prevpos, DriveLane dlanenow, Sign signnow, int posnow, PosMov[] posMovs, DriveLane desired) {
+        if (move.deferredMoves != null) {
+            move.deferredMoves.add(new DeferredMove(ru, prevlane, prevsign, prevpos, dlanenow, signnow,
+                    posnow, posMovs, desired));
+        } else {
+            tlc.updateRoaduserMove(ru, prevlane, prevsign, prevpos, dlanenow, signnow, posnow, posMovs, desired);
+        }
+    }
+
+    /**
+     * The move of a roaduser, as it is passed on to the TLC. The possible
+     * moves are copied, because the LaneMove reuses its array.
+     */
+    protected class DeferredMove {
+
+        protected Roaduser ru;
+        protected DriveLane prevlane, dlanenow, desired;
+        protected Sign prevsign, signnow;
+        protected int prevpos, posnow;
+        protected PosMov[] posMovs;
+        /**
+         * True when the roaduser was removed because it was stuck
+         */
+        protected boolean removed = false;
+
+        protected DeferredMove(Roaduser ru, DriveLane prevlane, Sign prevsign, int prevpos,
+                DriveLane dlanenow, Sign signnow, int posnow, PosMov[] posMovs, DriveLane desired) {
+            this.ru = ru;
+            this.prevlane = prevlane;
+            this.prevsign = prevsign;
+            this.prevpos = prevpos;
+            this.dlanenow = dlanenow;
+            this.signnow = signnow;
+            this.posnow = posnow;
+            this.posMovs = PosMovBuffer.copyOf(posMovs);
+            this.desired = desired;
+        }
+
+        /**
+         * Passes the move on to the TLC
+         */
+        protected void update() {
+            if (!removed) {
+                tlc.updateRoaduserMove(ru, prevlane, prevsign, prevpos, dlanenow, signnow, posnow, posMovs, desired);
+                return;
+            }
+            //update learners (punishment for removed cars) (DOAS 06)
+            if (tlc instanceof TCRL) {
+                //System.out.println("We have penalty: " + controller.getPenalty());
+                ((TCRL) tlc).updateRoaduserMove(ru, prevlane, prevsign, prevpos, dlanenow, signnow, posnow, posMovs, desired, options.getPenalty());
+            } else {
+                tlc.updateRoaduserMove(ru, prevlane, prevsign, prevpos, dlanenow, signnow, posnow, posMovs, desired);
+            }
+            // increment counter of cars removed.
+            infra.removedCarsIncrement();
+        }
     }
 
     /* Moves a roaduser on it's present lane as far as it can go. */
@@ -716,6 +1161,7 @@ public class SimModel extends Model implements XMLSerializable {
             /* has no car in front, advance to your best pos */
             // The Roaduser can advance some positions
             ru.setPosition(best_pos);
+            lane.getQueue().positionChanged();
             return (speed_left - (ru_pos - best_pos));
         } else {
             /* best_pos == ru_pos, or, you cant move. */
@@ -723,8 +1169,12 @@ public class SimModel extends Model implements XMLSerializable {
         }
     }
 
+    /**
+     * Calculates the positions a roaduser could get to this cycle. The moves
+     * are put in the given buffer, the returned array is reused by the buffer.
+     */
     protected PosMov[] calcPosMovs(Node node, Sign sign, DriveLane lane,
-            Roaduser ru, ListIterator li) {
+            Roaduser ru, ListIterator li, PosMovBuffer vPosMovs) {
         // =======================================
         // Calculating the ranges per drivelane to where roaduser could get to
         // =======================================
@@ -734,13 +1184,13 @@ public class SimModel extends Model implements XMLSerializable {
         int ru_type = ru.getType();
         int ru_des = ru.getDestNode().getId();
 
-        ArrayList<PosMov> vPosMovs = new ArrayList<>();
+        vPosMovs.clear();
         int tlId = sign.getId();
 
         // Get the position closest to the Sign the RU can reach
         int bestPos = lane.getPosFree(li, ru_pos, ru_len, ru_speed, ru);
         for (int z = ru_pos; z >= bestPos; z--) {
-            vPosMovs.add(new PosMov(tlId, z));
+            vPosMovs.add(tlId, z);
         }
 
         int speedLeft = ru_speed - ru_pos; // ru_pos as that is the number of units to be moven to the Sign
@@ -765,13 +1215,13 @@ public class SimModel extends Model implements XMLSerializable {
                     bestPos = Math.max(testLane.getCompleteLength() - ru_len
                             - speedLeft, testLane.getLength() - ru_len);
                     for (int k = worstPos; k >= bestPos; k--) {
-                        vPosMovs.add(new PosMov(tltlId, k));
+                        vPosMovs.add(tltlId, k);
                     }
                 }
             }
         }
         // Fuck it, we aint got the power to cross, so don't even bother calculating further..
-        return vPosMovs.toArray(new PosMov[vPosMovs.size()]);
+        return vPosMovs.getPosMovs();
     }
 
     /**
@@ -829,7 +1279,7 @@ public class SimModel extends Model implements XMLSerializable {
 					 * When all drivelanes are full the road users are queued.			*/
                     SpecialNode dest = getRandomDestination(specialNodes, edge,
                             ruType, destfreqs);
-                    r = RoaduserFactory.genRoaduser(ruType, edge, dest, 0);
+                    r = RoaduserFactory.genRoaduser(context, ruType, edge, dest, 0);
                     r.setDrivelaneStartTime(curCycle);
 
                     // Add R in queue if there is no place
@@ -840,7 +1290,7 @@ public class SimModel extends Model implements XMLSerializable {
 						 } else {
 						 break;
 						 }*/
-                        if (total_queue < SimController.getMaxRuWaitingQueue()) {
+                        if (total_queue < options.getMaxRuWaitingQueue()) {
                             list.add(r);
                             wqsize++;
                         } else {
@@ -853,7 +1303,7 @@ public class SimModel extends Model implements XMLSerializable {
         }
 
         setCurNumWaiting(total_queue);
-        if (total_queue >= SimController.getMaxRuWaitingQueue()) {
+        if (total_queue >= options.getMaxRuWaitingQueue()) {
             locked = true;
         }
     }
@@ -886,7 +1336,7 @@ public class SimModel extends Model implements XMLSerializable {
         SpecialNode dest = (SpecialNode) r.getDestNode();
         DriveLane[] lanes = (DriveLane[]) e.getShortestPaths(dest.getId(),
                 r.getType()).clone();
-        Arrayutils.randomizeArray(lanes);
+        Arrayutils.randomizeArray(lanes, context.getSeed());
         int num_lanes = lanes.length;
         for (int i = 0; i < num_lanes; i++) {
             if (lanes[i].isLastPosFree(r.getLength())) {
@@ -1101,16 +1551,17 @@ public class SimModel extends Model implements XMLSerializable {
             tlc.loadSecondStage(loadMap);
             DPFactory dpFactory = new DPFactory(this, tlc);
             try {
-                dp = dpFactory.getInstance(DPFactory.getNumberByXMLTagName(loader.getNextElementName()));
+                DrivingPolicy dp = dpFactory.getInstance(DPFactory.getNumberByXMLTagName(loader.getNextElementName()));
+                context.setDrivingPolicy(dp);
                 loader.load(this, dp);
                 System.out.println("Loaded DP " + dp.getXMLName());
             } catch (ClassNotFoundException e) {
                 throw new XMLInvalidInputException("Problem with creating DP in SimModel."
                         + "Could not generate instance of DP type :" + e);
             }
-            dp.loadSecondStage(loadMap);
-            loader.load(this, sgnctrl);
-            sgnctrl.setTLC(tlc);
+            getDrivingPolicy().loadSecondStage(loadMap);
+            loader.load(this, context.getSignController());
+            context.getSignController().setTLC(tlc);
         } else {
             curCycle = 0;
         }
@@ -1135,8 +1586,8 @@ public class SimModel extends Model implements XMLSerializable {
         super.saveChilds(saver);
         System.out.println("Saving TLC " + tlc.getXMLName());
         saver.saveObject(tlc);
-        System.out.println("Saving DP " + dp.getXMLName());
-        saver.saveObject(dp);
-        saver.saveObject(sgnctrl);
+        System.out.println("Saving DP " + getDrivingPolicy().getXMLName());
+        saver.saveObject(getDrivingPolicy());
+        saver.saveObject(context.getSignController());
     }
 }
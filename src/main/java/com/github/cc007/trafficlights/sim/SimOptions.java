@@ -0,0 +1,138 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.sim;
+
+/**
+ *
+ * The run options of a simulation. These used to be kept by the
+ * <code>SimController</code>, they are kept here so a <code>SimModel</code> can
+ * run without any controller attached to it.
+ *
+ * @author Group Model
+ * @version 1.0
+ */
+public class SimOptions {
+
+    /**
+     * Use the HEC add-on for TLCs that support it (DOAS 05)
+     */
+    protected boolean hecAddon = false;
+    /**
+     * Randomly disable lanes (DOAS 06)
+     */
+    protected boolean accidents = true;
+    /**
+     * Let roadusers take another lane when their shortest path is blocked (DOAS
+     * 06)
+     */
+    protected boolean rerouting = true;
+    /**
+     * Remove roadusers that did not move for more than maxWaitingTime cycles
+     * (DOAS 06)
+     */
+    protected boolean removeStuckCars = false;
+    protected int maxWaitingTime = 20;
+    protected int penalty = 0;
+    /**
+     * The maximum number of roadusers waiting to enter the city
+     */
+    protected int maxRuWaitingQueue = SimModel.LOCK_THRESHOLD;
+    /**
+     * The number of threads that move the roadusers, 1 moves them all on the
+     * simulation thread
+     */
+    protected int movementThreads = 1;
+
+    public SimOptions() {
+    }
+
+    /**
+     * Creates a copy of the given options
+     */
+    public SimOptions(SimOptions other) {
+        hecAddon = other.hecAddon;
+        accidents = other.accidents;
+        rerouting = other.rerouting;
+        removeStuckCars = other.removeStuckCars;
+        maxWaitingTime = other.maxWaitingTime;
+        penalty = other.penalty;
+        maxRuWaitingQueue = other.maxRuWaitingQueue;
+        movementThreads = other.movementThreads;
+    }
+
+    public boolean getHecAddon() {
+        return hecAddon;
+    }
+
+    public void setHecAddon(boolean b) {
+        hecAddon = b;
+    }
+
+    public boolean getAccidents() {
+        return accidents;
+    }
+
+    public void setAccidents(boolean b) {
+        accidents = b;
+    }
+
+    public boolean getRerouting() {
+        return rerouting;
+    }
+
+    public void setRerouting(boolean b) {
+        rerouting = b;
+    }
+
+    public boolean getRemoveStuckCars() {
+        return removeStuckCars;
+    }
+
+    public void setRemoveStuckCars(boolean b) {
+        removeStuckCars = b;
+    }
+
+    public int getMaxWaitingTime() {
+        return maxWaitingTime;
+    }
+
+    public void setMaxWaitingTime(int time) {
+        maxWaitingTime = time;
+    }
+
+    public int getPenalty() {
+        return penalty;
+    }
+
+    public void setPenalty(int p) {
+        penalty = p;
+    }
+
+    public int getMaxRuWaitingQueue() {
+        return maxRuWaitingQueue;
+    }
+
+    public void setMaxRuWaitingQueue(int num) {
+        maxRuWaitingQueue = num;
+    }
+
+    public int getMovementThreads() {
+        return movementThreads;
+    }
+
+    public void setMovementThreads(int num) {
+        movementThreads = num;
+    }
+}
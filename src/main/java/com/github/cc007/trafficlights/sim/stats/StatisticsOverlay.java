@@ -17,25 +17,25 @@
 package com.github.cc007.trafficlights.sim.stats;
 
 import com.github.cc007.trafficlights.*;
-import com.github.cc007.trafficlights.sim.SimModel;
+import com.github.cc007.trafficlights.sim.CycleListener;
+import com.github.cc007.trafficlights.sim.CycleSnapshot;
 import com.github.cc007.trafficlights.infra.*;
 import com.github.cc007.trafficlights.xml.*;
 
 import java.awt.*;
 import java.io.IOException;
-import java.util.Observer;
-import java.util.Observable;
 
 /**
 *
 * Overlay for <code>gld.View</code>. Shows waiting queue lengths and relative 
-* average junction waiting times.
+* average junction waiting times. The data is taken from the snapshots of
+* the <code>SimModel</code>, so it is not read on the simulation thread.
 *
 * @author Group GUI
 * @version 1.0
 */
 
-public class StatisticsOverlay implements Overlay, Observer, XMLSerializable
+public class StatisticsOverlay implements Overlay, CycleListener, XMLSerializable
 {
 	/** Current infrastructure. */
 	Infrastructure infra;
@@ -71,32 +71,27 @@ public class StatisticsOverlay implements Overlay, Observer, XMLSerializable
 			junctionData[i] = 0;
 	}
 	
-	/** Updates the current data. */
+	/** Takes the current data from a snapshot of the model. */
     @Override
-	public void update(Observable obs, Object obj)
+	public void cycleDone(CycleSnapshot snapshot)
 	{
-		Infrastructure _infra = ((SimModel)obs).getInfrastructure();
-		if(infra != _infra) {
-            setInfrastructure(_infra);
+		float[] _specialData = snapshot.getQueueLengths();
+		float[] _junctionData = snapshot.getJunctionWaitingTimes();
+		if(_specialData.length != specialNum || _junctionData.length != junctionNum) {
+            return; // Taken from another infrastructure
         }
-		refreshData();
-	}
-	
-	/** Rereads the statistical data from the model. */
-	public void refreshData()
-	{
-		specialMax = 0;
-		junctionMax = 0.01f;
 		
+		float _specialMax = 0;
+		float _junctionMax = 0.01f;
 		for(int i=0; i<specialNum; i++)
-			if((specialData[i] = specialNodes[i].getWaitingQueueLength()) > specialMax) {
-                specialMax = specialData[i];
-        }
-			
+			_specialMax = Math.max(_specialMax, _specialData[i]);
 		for(int i=0; i<junctionNum; i++)
-			if((junctionData[i] = junctions[i].getStatistics(0).getAvgWaitingTime(true)) > junctionMax) {
-                junctionMax = junctionData[i];
-        }
+			_junctionMax = Math.max(_junctionMax, _junctionData[i]);
+		
+		specialData = _specialData;
+		junctionData = _junctionData;
+		specialMax = _specialMax;
+		junctionMax = _junctionMax;
 	}
 	
     @Override
@@ -70,10 +70,23 @@ public class TrackerFactory
 	* @param type One of the 'TOTAL_' constants.
 	*/
  	public static TrackingController showTracker(SimModel model, SimController controller, int type) throws GLDException
+	{
+		TrackingView view = genTrackingView(model, type);
+		if(view instanceof ExtendedTrackingView) {
+            return genExtTracker(model, controller, (ExtendedTrackingView)view);
+        }
+		return genTracker(model, controller, view);
+	}
+
+	/**
+	* Creates one of the 'global' tracking views without a window around it.
+	* The caller has to register the view as observer of the model.
+	* @param type One of the 'TOTAL_' constants.
+	*/
+ 	public static TrackingView genTrackingView(SimModel model, int type) throws GLDException
 	{
 		if(type == TOTAL_QUEUE) {
-			TrackingView view = new AllQueuesTrackingView(model.getCurCycle(), model);
-			return genTracker(model, controller, view);
+			return new AllQueuesTrackingView(model.getCurCycle(), model);
 		}
 
 		ExtendedTrackingView view = null;
@@ -101,7 +114,7 @@ public class TrackerFactory
 		if(view == null) {
             throw new GLDException("Invalid tracker type!");
         }
-		return genExtTracker(model, controller, view);
+		return view;
 	}
 
 	/**
@@ -15,7 +15,6 @@
  *------------------------------------------------------------------------*/
 package com.github.cc007.trafficlights.utils;
 
-import com.github.cc007.trafficlights.GLDSim;
 import java.lang.reflect.Array;
 import java.util.Iterator;
 import java.util.Random;
@@ -220,10 +219,11 @@ public class Arrayutils {
      * Replaces the elements of the provided array in a random fashion.
      *
      * @param ar The array to randomize.
+     * @param seed The seed of the random number generator used.
      * @return The array in which the elements are replaced randomly..
      */
-    public static Object[] randomizeArray(Object[] ar) {
-        Random r = new Random(GLDSim.seriesSeed[GLDSim.seriesSeedIndex]);
+    public static Object[] randomizeArray(Object[] ar, long seed) {
+        Random r = new Random(seed);
         int newplace, place;
         int numswaps = ar.length;
         Object temp;
@@ -0,0 +1,98 @@
+/*-----------------------------------------------------------------------
+ * Copyright (C) 2001 Green Light District Team, Utrecht University
+ *
+ * This program (Green Light District) is free software.
+ * You may redistribute it and/or modify it under the terms
+ * of the GNU General Public License as published by
+ * the Free Software Foundation (version 2 or later).
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * See the documentation of Green Light District for further information.
+ *------------------------------------------------------------------------*/
+package com.github.cc007.trafficlights.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * A set of which the elements can also be picked by index, for example to pick
+ * a random element. Adding, removing and looking up an element take constant
+ * time. To remove an element, the last element is moved into its place, so the
+ * order of the elements changes when elements are removed.
+ *
+ * @param <E> The type of the elements
+ */
+public class IndexedSet<E> {
+
+    protected ArrayList<E> elements;
+    protected HashMap<E, Integer> indices;
+
+    public IndexedSet() {
+        elements = new ArrayList<>();
+        indices = new HashMap<>();
+    }
+
+    public IndexedSet(Collection<? extends E> c) {
+        this();
+        for (E e : c) {
+            add(e);
+        }
+    }
+
+    /**
+     * Adds the element at the end, if it is not in the set yet
+     *
+     * @return true if the element was added
+     */
+    public boolean add(E e) {
+        if (indices.containsKey(e)) {
+            return false;
+        }
+        indices.put(e, elements.size());
+        elements.add(e);
+        return true;
+    }
+
+    /**
+     * Removes the element and moves the last element into its place
+     *
+     * @return true if the element was in the set
+     */
+    public boolean remove(Object o) {
+        Integer index = indices.remove(o);
+        if (index == null) {
+            return false;
+        }
+        E last = elements.remove(elements.size() - 1);
+        if (index < elements.size()) {
+            elements.set(index, last);
+            indices.put(last, index);
+        }
+        return true;
+    }
+
+    public boolean contains(Object o) {
+        return indices.containsKey(o);
+    }
+
+    public E get(int index) {
+        return elements.get(index);
+    }
+
+    public int size() {
+        return elements.size();
+    }
+
+    public boolean isEmpty() {
+        return elements.isEmpty();
+    }
+
+    public void clear() {
+        elements.clear();
+        indices.clear();
+    }
+}
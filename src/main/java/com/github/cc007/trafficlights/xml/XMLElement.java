@@ -104,6 +104,21 @@ public class XMLElement {
         throw new NoSuchElementException("Could not find XML attribute named " + name);
     }
 
+    /**
+     * Checks if this element has an attribute with a certain name
+     *
+     * @param name The name to search for
+     * @return true if there is an attribute with that name
+     */
+    public boolean hasAttribute(String name) {
+        for (int t = 0; t < attributes.size(); t++) {
+            if (name.equals(((XMLAttribute) (attributes.get(t))).name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Get the (first) attribute with a certain name
      *
@@ -33,6 +33,7 @@ public class XMLLoader {
     protected XMLElement nextElement;
     protected XMLStack stack;
     protected boolean atEOF;
+    protected File file;
 
     /**
      * Simple constructor
@@ -54,6 +55,7 @@ public class XMLLoader {
      */
     public XMLLoader(File file) throws IOException, XMLTreeException, XMLInvalidInputException {
         this();
+        this.file = file;
         reader = new XMLFileReader(file);
         lookAhead();
     }
@@ -74,6 +76,14 @@ public class XMLLoader {
         lookAhead();
     }
 
+    /**
+     * Returns the file this XMLLoader loads from, null if it loads from a
+     * socket
+     */
+    public File getFile() {
+        return file;
+    }
+
     /**
      * Load an XMLSerializable from the XML file
      *
@@ -29,6 +29,7 @@ import java.util.*;
 public class XMLSaver
 { protected XMLWriter writer;
   protected XMLStack stack;
+  protected File file;
   
   /** Make a new XMLSaver
    */
@@ -43,6 +44,7 @@ public class XMLSaver
    */
   	public XMLSaver (File file) throws IOException
   	{ 	this();
+  		this.file=file;
   		writer=new XMLFileWriter(file);
   	}
 
@@ -57,6 +59,11 @@ public class XMLSaver
 		writer=new XMLNetWriter(hostname,port);
   	}
   
+  /** Returns the file this XMLSaver saves to, null if it saves to a socket */
+  public File getFile ()
+  { return file;
+  }
+
   /** A crude indication if we can write to this XMLSaver */
   public boolean hasStream ()
   { return writer != null ;